@@ -22,6 +22,7 @@ import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
 import com.squareup.javapoet.TypeSpec
+import com.squareup.javapoet.WildcardTypeName
 import javax.annotation.processing.ProcessingEnvironment
 import javax.lang.model.element.Modifier
 import javax.lang.model.element.TypeElement
@@ -88,12 +89,19 @@ internal class JsonFactoryGenerator(
                             
             """.trimIndent(),
         ).addModifiers(Modifier.PUBLIC, Modifier.FINAL).addSuperinterface(superinterface)
+            .addMethod(generateTypeIdMethod(sortedList))
             .addMethod(
                 generateToJsonMethod(
                     ClassName.get(eventType),
                     sortedList,
                 ),
             )
+            .addMethod(
+                generateWriteJsonMethod(
+                    ClassName.get(eventType),
+                    sortedList,
+                ),
+            )
             .addMethod(
                 generateParseFromMethod(
                     builderType,
@@ -114,6 +122,70 @@ internal class JsonFactoryGenerator(
         }
     }
 
+    /**
+     * 按类名排序后的序号作为类型 id，与注解类的声明顺序无关
+     */
+    private fun typeIds(sortedList: List<TypeElement>): List<Pair<Int, TypeElement>> {
+        return sortedList.sortedBy { it.qualifiedName.toString() }.mapIndexed { index, element -> index to element }
+    }
+
+    /**
+     * private static int typeIdOf(Class<?> clazz) {
+     *     switch (clazz.getName()) {
+     *         case "com.growingio.android.sdk.track.events.CustomEvent": return 3;
+     *         default: return -1;
+     *     }
+     * }
+     */
+    private fun generateTypeIdMethod(sortedList: List<TypeElement>): MethodSpec {
+        val typeIdMethod = MethodSpec.methodBuilder("typeIdOf")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(ParameterizedTypeName.get(ClassName.get(Class::class.java), WildcardTypeName.subtypeOf(Object::class.java)), "clazz")
+            .returns(TypeName.INT)
+            .beginControlFlow("switch (clazz.getName())")
+        typeIds(sortedList).forEach { (id, element) ->
+            typeIdMethod.addStatement("case \$S: return $id", processEnv.elementUtils.getBinaryName(element).toString())
+        }
+        typeIdMethod.addStatement("default: return -1")
+        return typeIdMethod.endControlFlow().build()
+    }
+
+    /**
+     * 注解类直接按类型 id 分发，未注解的子类按继承顺序匹配
+     */
+    private fun addDispatch(
+        method: MethodSpec.Builder,
+        sortedList: MutableList<TypeElement>,
+        statement: String,
+    ) {
+        method.beginControlFlow("switch (typeIdOf(event.getClass()))")
+        typeIds(sortedList).forEach { (id, element) ->
+            val eventClass = generatedClassOf(element)
+            method.addCode("case $id:\n\$>")
+            method.addStatement("\$T.create().$statement", eventClass, element)
+            method.addStatement("return")
+            method.addCode("\$<")
+        }
+        method.addCode("default:\n\$>")
+        method.addStatement("break")
+        method.addCode("\$<")
+        method.endControlFlow()
+
+        sortedList.forEach { element ->
+            val eventClass = generatedClassOf(element)
+            method.beginControlFlow("if (event instanceof \$T)", element)
+            method.addStatement("\$T.create().$statement", eventClass, element)
+            method.addStatement("return")
+            method.endControlFlow()
+        }
+    }
+
+    private fun generatedClassOf(element: TypeElement): ClassName {
+        val eventPackageName = element.enclosingElement.toString()
+        val eventName = element.simpleName.toString() + ProcessUtils.GENERATE_CLASS_APPEND
+        return ClassName.get(eventPackageName, eventName)
+    }
+
     private fun generateToJsonMethod(
         eventType: TypeName,
         sortedList: MutableList<TypeElement>,
@@ -129,21 +201,27 @@ internal class JsonFactoryGenerator(
             .addParameter(eventType, "event").addModifiers(Modifier.PUBLIC)
             .addAnnotation(Override::class.java)
 
-        sortedList.forEach { element ->
-            val eventPackageName = element.enclosingElement.toString()
-            val eventName = element.simpleName.toString() + ProcessUtils.GENERATE_CLASS_APPEND
-            val eventClass = ClassName.get(eventPackageName, eventName)
+        addDispatch(toJsonMethod, sortedList, "toJson(jsonObject, (\$T) event)")
+        return toJsonMethod.build()
+    }
 
-            toJsonMethod.beginControlFlow("if (event instanceof \$T)", element)
-            toJsonMethod.addStatement(
-                "\$T.create().toJson(jsonObject, (\$T) event)",
-                eventClass,
-                element,
+    private fun generateWriteJsonMethod(
+        eventType: TypeName,
+        sortedList: MutableList<TypeElement>,
+    ): MethodSpec {
+        val writeJsonMethod = MethodSpec.methodBuilder("writeJson")
+            .addParameter(
+                ClassName.get(
+                    ProcessUtils.JSON_SERIALIZABLE_PACKAGE,
+                    ProcessUtils.JSON_WRITER_CLASS,
+                ),
+                "writer",
             )
-            toJsonMethod.addStatement("return")
-            toJsonMethod.endControlFlow()
-        }
-        return toJsonMethod.build()
+            .addParameter(eventType, "event").addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override::class.java)
+
+        addDispatch(writeJsonMethod, sortedList, "writeJson(writer, (\$T) event)")
+        return writeJsonMethod.build()
     }
 
     private fun generateParseFromMethod(
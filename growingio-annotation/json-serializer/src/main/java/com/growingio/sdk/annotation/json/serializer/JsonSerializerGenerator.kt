@@ -28,8 +28,10 @@ import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.JSON_
 import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.JSON_OBJECT_PACKAGE
 import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.JSON_SERIALIZABLE_CLASS
 import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.JSON_SERIALIZABLE_PACKAGE
+import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.JSON_WRITER_CLASS
 import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.TEXT_UTILS_CLASS
 import com.growingio.sdk.annotation.json.serializer.ProcessUtils.Companion.TEXT_UTILS_PACKAGE
+import com.squareup.javapoet.ArrayTypeName
 import com.squareup.javapoet.ClassName
 import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.MethodSpec
@@ -96,6 +98,7 @@ internal class JsonSerializerGenerator(
             """.trimIndent(),
         ).addModifiers(Modifier.PUBLIC, Modifier.FINAL).addSuperinterface(superinterface)
             .addField(generateInstanceField(generateClass))
+            .addFields(generateNameFields(fields, jsonSerializer))
             .addMethod(generateStaticCreateMethod(generateClass, generatedName))
             .addMethod(
                 generateToJsonMethod(
@@ -105,6 +108,14 @@ internal class JsonSerializerGenerator(
                     containSuperElement,
                 ),
             )
+            .addMethod(
+                generateWriteJsonMethod(
+                    ClassName.get(eventType),
+                    fields,
+                    jsonSerializer,
+                    containSuperElement,
+                ),
+            )
             .addMethod(
                 generateParseFromMethod(
                     builderType,
@@ -177,60 +188,20 @@ internal class JsonSerializerGenerator(
                     return@forEach
                 }
                 if (field.asType().kind == TypeKind.INT || field.asType().kind == TypeKind.LONG) {
-                    val annotation = field.getAnnotation(IntRange::class.java)
-                    if (annotation != null) {
-                        val state = if (annotation.from == annotation.to) {
-                            "if (event.$fieldMethod != ${annotation.from})"
-                        } else {
-                            val hasFrom =
-                                if (annotation.from != Long.MIN_VALUE) "event.$fieldMethod > ${annotation.from}" else ""
-                            val hasTo =
-                                if (annotation.to != Long.MAX_VALUE) "event.$fieldMethod < ${annotation.to}" else ""
-                            if (hasFrom.isNotEmpty() && hasTo.isNotEmpty()) {
-                                "if ($hasFrom && $hasTo)"
-                            } else if (hasFrom.isEmpty() && hasTo.isEmpty()) {
-                                null
-                            } else {
-                                "if ($hasFrom$hasTo)"
-                            }
-                        }
-                        if (state != null) {
-                            toJsonMethod.beginControlFlow(state)
-                                .addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
-                                .endControlFlow()
-                        } else {
-                            toJsonMethod.addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
-                        }
+                    val state = intRangeCondition(field, fieldMethod)
+                    if (state != null) {
+                        toJsonMethod.beginControlFlow(state)
+                            .addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
+                            .endControlFlow()
                     } else {
                         toJsonMethod.addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
                     }
                 } else if (field.asType().kind == TypeKind.DOUBLE || field.asType().kind == TypeKind.FLOAT) {
-                    val annotation = field.getAnnotation(FloatRange::class.java)
-                    if (annotation != null) {
-                        val state = if (annotation.from == annotation.to) {
-                            "if (event.$fieldMethod != ${annotation.from})"
-                        } else {
-                            val fromEqual = if (annotation.fromInclusive) ">=" else ">"
-                            val toEqual = if (annotation.toInclusive) "<=" else "<"
-                            val hasFrom =
-                                if (annotation.from != Double.NEGATIVE_INFINITY) "event.$fieldMethod $fromEqual ${annotation.from}" else ""
-                            val hasTo =
-                                if (annotation.to != Double.POSITIVE_INFINITY) "event.$fieldMethod $toEqual ${annotation.to}" else ""
-                            if (hasFrom.isNotEmpty() && hasTo.isNotEmpty()) {
-                                "if ($hasFrom && $hasTo)"
-                            } else if (hasFrom.isEmpty() && hasTo.isEmpty()) {
-                                null
-                            } else {
-                                "if ($hasFrom$hasTo)"
-                            }
-                        }
-                        if (state != null) {
-                            toJsonMethod.beginControlFlow(state)
-                                .addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
-                                .endControlFlow()
-                        } else {
-                            toJsonMethod.addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
-                        }
+                    val state = floatRangeCondition(field, fieldMethod)
+                    if (state != null) {
+                        toJsonMethod.beginControlFlow(state)
+                            .addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
+                            .endControlFlow()
                     } else {
                         toJsonMethod.addStatement("jsonObject.put(\"${fieldName}\", event.$fieldMethod)")
                     }
@@ -299,6 +270,148 @@ internal class JsonSerializerGenerator(
         return toJsonMethod.build()
     }
 
+    /**
+     * if (event.getIndex() > -1)
+     */
+    private fun intRangeCondition(field: VariableElement, fieldMethod: String): String? {
+        val annotation = field.getAnnotation(IntRange::class.java) ?: return null
+        if (annotation.from == annotation.to) {
+            return "if (event.$fieldMethod != ${annotation.from})"
+        }
+        val hasFrom =
+            if (annotation.from != Long.MIN_VALUE) "event.$fieldMethod > ${annotation.from}" else ""
+        val hasTo =
+            if (annotation.to != Long.MAX_VALUE) "event.$fieldMethod < ${annotation.to}" else ""
+        return if (hasFrom.isNotEmpty() && hasTo.isNotEmpty()) {
+            "if ($hasFrom && $hasTo)"
+        } else if (hasFrom.isEmpty() && hasTo.isEmpty()) {
+            null
+        } else {
+            "if ($hasFrom$hasTo)"
+        }
+    }
+
+    private fun floatRangeCondition(field: VariableElement, fieldMethod: String): String? {
+        val annotation = field.getAnnotation(FloatRange::class.java) ?: return null
+        if (annotation.from == annotation.to) {
+            return "if (event.$fieldMethod != ${annotation.from})"
+        }
+        val fromEqual = if (annotation.fromInclusive) ">=" else ">"
+        val toEqual = if (annotation.toInclusive) "<=" else "<"
+        val hasFrom =
+            if (annotation.from != Double.NEGATIVE_INFINITY) "event.$fieldMethod $fromEqual ${annotation.from}" else ""
+        val hasTo =
+            if (annotation.to != Double.POSITIVE_INFINITY) "event.$fieldMethod $toEqual ${annotation.to}" else ""
+        return if (hasFrom.isNotEmpty() && hasTo.isNotEmpty()) {
+            "if ($hasFrom && $hasTo)"
+        } else if (hasFrom.isEmpty() && hasTo.isEmpty()) {
+            null
+        } else {
+            "if ($hasFrom$hasTo)"
+        }
+    }
+
+    private fun jsonFieldName(field: VariableElement): String {
+        val jsonAliasAnnotation = field.getAnnotation(JsonAlias::class.java)
+        if (jsonAliasAnnotation != null && jsonAliasAnnotation.name.isNotEmpty()) {
+            return jsonAliasAnnotation.name
+        }
+        return field.simpleName.toString()
+    }
+
+    /**
+     * pageShowTimestamp -> NAME_PAGE_SHOW_TIMESTAMP
+     */
+    private fun nameFieldOf(field: VariableElement): String {
+        return "NAME_" + field.simpleName.toString().replace(Regex("([a-z0-9])([A-Z])"), "$1_$2").uppercase()
+    }
+
+    /**
+     * private static final byte[] NAME_EVENT_NAME = JsonStreamWriter.name("eventName");
+     */
+    private fun generateNameFields(fields: MutableList<VariableElement>, clazz: TypeElement): List<FieldSpec> {
+        return fields.filter { processUtils.findGetFieldMethod(it, clazz) != null }.map { field ->
+            FieldSpec.builder(ArrayTypeName.of(TypeName.BYTE), nameFieldOf(field))
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(
+                    "\$T.name(\$S)",
+                    ClassName.get(JSON_SERIALIZABLE_PACKAGE, JSON_WRITER_CLASS),
+                    jsonFieldName(field),
+                ).build()
+        }
+    }
+
+    /**
+     * @Override
+     * public void writeJson(JsonStreamWriter writer, BaseEvent event) {}
+     */
+    private fun generateWriteJsonMethod(
+        eventType: TypeName,
+        fields: MutableList<VariableElement>,
+        clazz: TypeElement,
+        containSuperElement: Boolean,
+    ): MethodSpec {
+        val writeJsonMethod = MethodSpec.methodBuilder("writeJson")
+            .addParameter(ClassName.get(JSON_SERIALIZABLE_PACKAGE, JSON_WRITER_CLASS), "writer")
+            .addParameter(eventType, "event").addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override::class.java)
+
+        if (containSuperElement) {
+            val superElement = clazz.superclass
+            val superClassName = superElement.toString().substringAfterLast(".")
+            val superPackageName = superElement.toString().substringBeforeLast(".")
+            val superName = superClassName + GENERATE_CLASS_APPEND
+            val superClass = ClassName.get(superPackageName, superName)
+            writeJsonMethod.addStatement("\$T.create().writeJson(writer, event)", superClass)
+        }
+
+        fields.forEach { field ->
+            val fieldMethod = processUtils.findGetFieldMethod(field, clazz) ?: return@forEach
+            val nameField = nameFieldOf(field)
+            val kind = field.asType().kind
+            val typeName = field.asType().toString()
+            val state = when {
+                kind == TypeKind.INT || kind == TypeKind.LONG -> intRangeCondition(field, fieldMethod)
+                kind == TypeKind.DOUBLE || kind == TypeKind.FLOAT -> floatRangeCondition(field, fieldMethod)
+                "java.lang.String" == typeName && field.getAnnotation(Nullable::class.java) != null ->
+                    "if (!\$T.isEmpty(event.$fieldMethod))"
+                else -> null
+            }
+            val statement = if ("java.util.Map<java.lang.String,java.lang.String>" == typeName) {
+                // @Nullable 的 map 为空时不输出，且忽略 null 值
+                val nullable = field.getAnnotation(Nullable::class.java) != null
+                if (nullable) {
+                    writeJsonMethod.addStatement(
+                        "\$T ${field.simpleName} = event.$fieldMethod",
+                        ParameterizedTypeName.get(
+                            ClassName.get(Map::class.java),
+                            ClassName.get(String::class.java),
+                            ClassName.get(String::class.java),
+                        ),
+                    )
+                    writeJsonMethod.beginControlFlow("if (${field.simpleName} != null && !${field.simpleName}.isEmpty())")
+                        .addStatement("writer.value($nameField, ${field.simpleName}, true)")
+                        .endControlFlow()
+                    return@forEach
+                }
+                "writer.value($nameField, event.$fieldMethod, false)"
+            } else {
+                "writer.value($nameField, event.$fieldMethod)"
+            }
+            if (state != null) {
+                if (state.contains("\$T")) {
+                    writeJsonMethod.beginControlFlow(state, ClassName.get(TEXT_UTILS_PACKAGE, TEXT_UTILS_CLASS))
+                } else {
+                    writeJsonMethod.beginControlFlow(state)
+                }
+                writeJsonMethod.addStatement(statement).endControlFlow()
+            } else {
+                writeJsonMethod.addStatement(statement)
+            }
+        }
+        return writeJsonMethod.build()
+    }
+
     /**
      * @Override
      * public void parseFrom(BaseEvent.BaseBuilder<BaseEvent> builder, JSONObject json) {}
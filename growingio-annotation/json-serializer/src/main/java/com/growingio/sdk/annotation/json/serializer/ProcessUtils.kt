@@ -122,6 +122,7 @@ class ProcessUtils(val processEnv: ProcessingEnvironment) {
 
         const val JSON_SERIALIZABLE_PACKAGE = "com.growingio.android.sdk.track.events.helper"
         const val JSON_SERIALIZABLE_CLASS = "JsonSerializable"
+        const val JSON_WRITER_CLASS = "JsonStreamWriter"
 
         const val JSON_OBJECT_PACKAGE = "org.json"
         const val JSON_OBJECT_CLASS = "JSONObject"
@@ -56,7 +56,8 @@ public class ViewChangeProvider implements IActivityLifecycle, OnViewStateChange
 
         if (autotrackConfig == null || !autotrackConfig.isAutotrack()) return;
         activityStateProvider.registerActivityLifecycleListener(this);
-        viewTreeStatusObserver = new ViewTreeStatusObserver(false, false, true, false, this,
+        // layout is observed to invalidate the cached view nodes of the click events
+        viewTreeStatusObserver = new ViewTreeStatusObserver(true, false, true, false, this,
                 R.id.growing_tracker_monitoring_focus_change);
     }
 
@@ -21,17 +21,27 @@ import android.view.View;
 
 import com.growingio.android.sdk.autotrack.R;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ClassUtil {
     private static final String ANONYMOUS_CLASS_NAME = "Anonymous";
+    // getSimpleName creates a new string every time on old devices, the view classes are limited
+    private static final Map<Class<?>, String> SIMPLE_CLASS_NAMES = new ConcurrentHashMap<>();
 
     private ClassUtil() {
     }
 
     public static String getSimpleClassName(Class<?> clazz) {
-        String name = clazz.getSimpleName();
+        String name = SIMPLE_CLASS_NAMES.get(clazz);
+        if (name != null) {
+            return name;
+        }
+        name = clazz.getSimpleName();
         if (TextUtils.isEmpty(name)) {
             name = ANONYMOUS_CLASS_NAME;
         }
+        SIMPLE_CLASS_NAMES.put(clazz, name);
         return name;
     }
 
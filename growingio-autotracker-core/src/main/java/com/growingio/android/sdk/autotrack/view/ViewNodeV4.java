@@ -19,16 +19,11 @@ import android.content.Context;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
 import android.widget.Button;
-import android.widget.ExpandableListView;
 import android.widget.TextView;
 
 import com.growingio.android.sdk.autotrack.page.Page;
-import com.growingio.android.sdk.autotrack.shadow.ListMenuItemViewShadow;
-import com.growingio.android.sdk.autotrack.util.ClassUtil;
 import com.growingio.android.sdk.track.utils.ClassExistHelper;
-import com.growingio.android.sdk.track.view.WindowHelper;
 
 /**
  * <p>
@@ -174,79 +169,58 @@ class ViewNodeV4 implements ViewNode {
     }
 
     public void calculate() {
-        calculateViewPosition();
-        calculateViewXPath();
-        calculateViewContent();
-    }
-
-    private void calculateViewPosition() {
-        if (this.view.getParent() != null && (this.view.getParent() instanceof ViewGroup)) {
-            ViewGroup parent = (ViewGroup) (this.view.getParent());
-            if (ClassExistHelper.instanceOfAndroidXViewPager(parent)) {
-                this.viewPosition = ((androidx.viewpager.widget.ViewPager) parent).getCurrentItem();
-            } else if (ClassExistHelper.instanceOfSupportViewPager(parent)) {
-                this.viewPosition = ((android.support.v4.view.ViewPager) parent).getCurrentItem();
-            } else if (parent instanceof AdapterView) {
-                AdapterView listView = (AdapterView) parent;
-                this.viewPosition = listView.getFirstVisiblePosition() + this.viewPosition;
-            } else if (ClassExistHelper.instanceOfRecyclerView(parent)) {
-                int adapterPosition = getChildAdapterPositionInRecyclerView(this.view, parent);
-                if (adapterPosition >= 0) {
-                    this.viewPosition = adapterPosition;
-                }
-            }
-        }
+        apply(ViewPathSegment.capture(null, this.view, this.viewPosition));
+    }
+
+    private void apply(ViewPathSegment segment) {
+        calculateViewXPath(segment);
+        this.viewContent = segment.getContent();
     }
 
-    private void calculateViewXPath() {
-        Object parentObject = this.view.getParent();
-        if (parentObject == null || (WindowHelper.get().isDecorView(this.view) && !(parentObject instanceof View))) {
+    private void calculateViewXPath(ViewPathSegment segment) {
+        if (segment.getType() == ViewPathSegment.TYPE_SKIP) {
             return;
         }
 
-        String customId = ViewAttributeUtil.getCustomId(this.view);
+        String customId = segment.getCustomId();
         if (customId != null) this.hasUniqueTag = true;
         StringBuilder indeedXIndex = new StringBuilder(customId == null ? this.indeedXIndex : "");
         StringBuilder xPath = new StringBuilder(customId == null ? this.xPath : "");
         StringBuilder xIndex = new StringBuilder(customId == null ? this.xIndex : "");
-        String viewName = ClassUtil.getSimpleClassName(this.view.getClass());
+        String viewName = segment.getViewName();
 
-        //针对菜单栏处理
-        if (ListMenuItemViewShadow.isListMenuItemView(this.view)) {
-            MenuItem menuItem = new ListMenuItemViewShadow(this.view).getMenuItem();
-            if (menuItem != null) {
-                ViewNodeV4 itemViewNode = generateMenuItemViewNode(this.view.getContext(), this.page, menuItem);
+        switch (segment.getType()) {
+            //针对菜单栏处理
+            case ViewPathSegment.TYPE_MENU_ITEM:
+                ViewNodeV4 itemViewNode = segment.getNode();
                 this.xPath = itemViewNode.getXPath();
                 this.index = itemViewNode.getIndex();
                 this.xIndex = itemViewNode.getXIndex();
                 this.viewContent = itemViewNode.getViewContent();
                 this.indeedXIndex = itemViewNode.getIndeedXIndex();
                 return;
-            }
-        }
-
-        if (parentObject instanceof ViewGroup) {
-            ViewGroup parent = (ViewGroup) parentObject;
-            if (parent instanceof ExpandableListView) {
-                ExpandableListView listParent = (ExpandableListView) parent;
-                calculateExpandableListView(listParent, viewName, xPath, indeedXIndex, xIndex);
-            } else if (ClassExistHelper.isListView(parent) || ClassExistHelper.instanceOfRecyclerView(parent)) {
-                calculateListView(viewName, xPath, indeedXIndex, xIndex);
-            } else if (ClassExistHelper.instanceofAndroidXSwipeRefreshLayout(parentObject)
-                    || ClassExistHelper.instanceOfSupportSwipeRefreshLayout(parentObject)) {
+            case ViewPathSegment.TYPE_EXPANDABLE_HEADER:
+            case ViewPathSegment.TYPE_EXPANDABLE_FOOTER:
+            case ViewPathSegment.TYPE_EXPANDABLE_GROUP:
+            case ViewPathSegment.TYPE_EXPANDABLE_CHILD:
+                calculateExpandableListView(segment, viewName, xPath, indeedXIndex, xIndex);
+                break;
+            case ViewPathSegment.TYPE_LIST:
+                calculateListView(segment.getPosition(), viewName, xPath, indeedXIndex, xIndex);
+                break;
+            case ViewPathSegment.TYPE_SWIPE_REFRESH:
                 xPath.append("/").append(viewName);
                 xIndex.append("/0");
                 indeedXIndex.append("/0");
-            } else {
-                calculateDefaultViewGroup(parent, viewName, xPath, indeedXIndex, xIndex);
-            }
-        } else {
-            xPath.append("/").append(viewName);
-            xIndex.append("/").append(this.viewPosition);
-            indeedXIndex.append("/").append(this.viewPosition);
+                break;
+            default:
+                xPath.append("/").append(viewName);
+                xIndex.append("/").append(segment.getPosition());
+                indeedXIndex.append("/").append(segment.getPosition());
+                break;
         }
 
-        String replaceId = ViewAttributeUtil.getViewPackageId(this.view);
+        String replaceId = segment.getReplaceId();
         boolean isList = xIndex.charAt(xIndex.length() - 1) == '-';
 
         if (replaceId != null && !isList) {
@@ -265,10 +239,6 @@ class ViewNodeV4 implements ViewNode {
         this.indeedXIndex = indeedXIndex.toString();
     }
 
-    private void calculateViewContent() {
-        this.viewContent = ViewAttributeUtil.getViewContent(this.view);
-    }
-
     /**
      * create a new ViewNode after current ViewNode and return the newly created ViewNode.
      */
@@ -293,11 +263,45 @@ class ViewNodeV4 implements ViewNode {
                 .setClickablePatentXIndex(ViewUtil.canCircle(this.view) ? this.xIndex : this.clickablePatentXIndex)
                 .setHasListParent(hasListParent)
                 .setViewPosition(index)
-                .setParent(this)
-                .calculate();
+                .setParent(this);
+        viewNode.calculate();
+        return viewNode;
+    }
+
+    /**
+     * create a new ViewNode from the captured segment, the view is not read so that it can be called in other threads.
+     *
+     * @param canCircle whether current view can be circled
+     */
+    ViewNodeV4 append(ViewPathSegment segment, boolean canCircle) {
+        ViewNodeV4 viewNode = new ViewNodeV4();
+        viewNode.setIndex(segment.isHasListParent() ? this.index : -1)
+                .setXPath(this.xPath)
+                .setIndeedXIndex(this.indeedXIndex)
+                .setXIndex(this.xIndex)
+                .setPage(this.page)
+                .setHasUniqueTag(this.hasUniqueTag)
+                .setClickableParentXPath(canCircle ? this.xPath : this.clickableParentXPath)
+                .setClickablePatentXIndex(canCircle ? this.xIndex : this.clickablePatentXIndex)
+                .setHasListParent(segment.isHasListParent())
+                .setParent(this);
+        viewNode.apply(segment);
         return viewNode;
     }
 
+    ViewNodeV4 copyWithoutView() {
+        return new ViewNodeV4()
+                .setIndex(index)
+                .setXPath(xPath)
+                .setXIndex(xIndex)
+                .setIndeedXIndex(indeedXIndex)
+                .setPage(page)
+                .setHasUniqueTag(hasUniqueTag)
+                .setHasListParent(hasListParent)
+                .setClickableParentXPath(clickableParentXPath)
+                .setClickablePatentXIndex(clickablePatentXIndex)
+                .setViewContent(viewContent);
+    }
 
     public static ViewNodeV4 generateMenuItemViewNode(Context context, Page page, MenuItem menuItem) {
         StringBuilder xpath = new StringBuilder();
@@ -315,82 +319,43 @@ class ViewNodeV4 implements ViewNode {
                 .setIndeedXIndex(xpath.toString());
     }
 
-    private void calculateExpandableListView(ExpandableListView listParent, String viewName, StringBuilder xPath, StringBuilder indeedXIndex, StringBuilder xIndex) {
-        long elp = listParent.getExpandableListPosition(this.viewPosition);
-        if (ExpandableListView.getPackedPositionType(elp) == ExpandableListView.PACKED_POSITION_TYPE_NULL) {
-            if (this.viewPosition < listParent.getHeaderViewsCount()) {
+    private void calculateExpandableListView(ViewPathSegment segment, String viewName, StringBuilder xPath, StringBuilder indeedXIndex, StringBuilder xIndex) {
+        int position = segment.getPosition();
+        switch (segment.getType()) {
+            case ViewPathSegment.TYPE_EXPANDABLE_HEADER:
                 xPath.append("/ELH/").append(viewName);
-                xIndex.append("/").append(this.viewPosition).append("/0");
-                indeedXIndex.append("/").append(this.viewPosition).append("/0");
-            } else {
-                int footerIndex = this.viewPosition - (listParent.getCount() - listParent.getFooterViewsCount());
+                xIndex.append("/").append(position).append("/0");
+                indeedXIndex.append("/").append(position).append("/0");
+                return;
+            case ViewPathSegment.TYPE_EXPANDABLE_FOOTER:
                 xPath.append("/ELF/").append(viewName);
-                xIndex.append("/").append(footerIndex).append("/0");
-                indeedXIndex.append("/").append(footerIndex).append("/0");
-            }
-        } else {
-            int groupIdx = ExpandableListView.getPackedPositionGroup(elp);
-            int childIdx = ExpandableListView.getPackedPositionChild(elp);
-            if (childIdx != -1) {
+                xIndex.append("/").append(position).append("/0");
+                indeedXIndex.append("/").append(position).append("/0");
+                return;
+            case ViewPathSegment.TYPE_EXPANDABLE_CHILD:
+                int childIdx = segment.getChildPosition();
                 this.index = childIdx;
                 xPath.append("/ELVG/ELVC/").append(viewName);
-                xIndex.delete(0, xIndex.length()).append(indeedXIndex).append("/").append(groupIdx).append("/-").append("/0");
-                indeedXIndex.append("/").append(groupIdx).append("/").append(childIdx).append("/0");
-            } else {
-                this.index = groupIdx;
+                xIndex.delete(0, xIndex.length()).append(indeedXIndex).append("/").append(position).append("/-").append("/0");
+                indeedXIndex.append("/").append(position).append("/").append(childIdx).append("/0");
+                break;
+            default:
+                this.index = position;
                 xPath.append("/ELVG/").append(viewName);
                 xIndex.delete(0, xIndex.length()).append(indeedXIndex).append("/-").append("/0");
-                indeedXIndex.append("/").append(groupIdx).append("/0");
-            }
-            // index start with 1
-            this.index += 1;
+                indeedXIndex.append("/").append(position).append("/0");
+                break;
         }
+        // index start with 1
+        this.index += 1;
     }
 
-    private void calculateListView(String viewName, StringBuilder xPath, StringBuilder indeedXIndex, StringBuilder xIndex) {
+    private void calculateListView(int viewPosition, String viewName, StringBuilder xPath, StringBuilder indeedXIndex, StringBuilder xIndex) {
         // index start with 1
-        this.index = this.viewPosition + 1;
+        this.index = viewPosition + 1;
         xPath.append("/").append(viewName);
         xIndex.delete(0, xIndex.length()).append(indeedXIndex).append("/-");
-        indeedXIndex.append("/").append(this.viewPosition);
-    }
-
-    private void calculateDefaultViewGroup(ViewGroup parent, String viewName, StringBuilder xPath, StringBuilder indeedXIndex, StringBuilder xIndex) {
-        int matchTypePosition = 0;
-        boolean findChildView = false;
-        for (int siblingIndex = 0; siblingIndex < parent.getChildCount(); siblingIndex++) {
-            View siblingView = parent.getChildAt(siblingIndex);
-            if (siblingView == this.view) {
-                findChildView = true;
-                break;
-            } else if (siblingView.getClass().getSimpleName().equals(viewName)) {
-                matchTypePosition++;
-            }
-        }
-        if (findChildView) {
-            xPath.append("/").append(viewName);
-            xIndex.append("/").append(matchTypePosition);
-            indeedXIndex.append("/").append(matchTypePosition);
-        } else {
-            xPath.append("/").append(viewName);
-            xIndex.append("/").append(this.viewPosition);
-            indeedXIndex.append("/").append(this.viewPosition);
-        }
-    }
-
-    private int getChildAdapterPositionInRecyclerView(View childView, ViewGroup parentView) {
-        if (ClassExistHelper.instanceOfAndroidXRecyclerView(parentView)) {
-            return ((androidx.recyclerview.widget.RecyclerView) parentView).getChildAdapterPosition(childView);
-        } else if (ClassExistHelper.instanceOfSupportRecyclerView(parentView)) {
-            // For low version RecyclerView
-            try {
-                return ((android.support.v7.widget.RecyclerView) parentView).getChildAdapterPosition(childView);
-            } catch (Throwable e) {
-                return ((android.support.v7.widget.RecyclerView) parentView).getChildPosition(childView);
-            }
-
-        }
-        return -1;
+        indeedXIndex.append("/").append(viewPosition);
     }
 
     private static final String INPUT = "INPUT";
@@ -41,6 +41,7 @@ import com.growingio.android.sdk.track.modelloader.ModelLoader;
 import com.growingio.android.sdk.track.utils.ClassExistHelper;
 import com.growingio.android.sdk.track.view.DecorView;
 import com.growingio.android.sdk.track.view.TipView;
+import com.growingio.android.sdk.track.view.ViewTreeStatusObserver;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -106,42 +107,7 @@ class ViewNodeV4Renderer implements ViewNodeRenderer {
             return;
         }
 
-        ViewNodeV4 viewNode = renderViewNode(view);
-        if (viewNode != null) {
-            Page<?> page = viewNode.getPage();
-            if (page == null) {
-                Logger.w(TAG, "sendClickEvent: page is NULL");
-                return;
-            }
-
-            StringBuilder xpath = new StringBuilder();
-            StringBuilder xIndex = new StringBuilder();
-            if (viewNode.isHasUniqueTag()) {
-                xpath.append(viewNode.getXPath());
-                xIndex.append(viewNode.getXIndex());
-            } else {
-                String pagePath = page.originPath(false);
-                xpath.append(pagePath).append(viewNode.getXPath());
-                xIndex.append(page.getXIndex()).append(viewNode.getXIndex());
-            }
-
-            if (viewNode.getViewContent() == null || viewNode.getViewContent().isEmpty()) {
-                String content = ViewAttributeUtil.findViewContent(viewNode.getView());
-                viewNode.setViewContent(content);
-            }
-
-            TrackMainThread.trackMain().postEventToTrackMain(
-                    new ViewElementEvent.Builder(AutotrackEventType.VIEW_CLICK)
-                            .setPath(page.activePath())
-                            .setXpath(xpath.toString())
-                            .setXIndex(xIndex.toString())
-                            .setIndex(viewNode.getIndex())
-                            .setTextValue(viewNode.getViewContent())
-                            .setAttributes(page.activeAttributes())
-            );
-        } else {
-            Logger.e(TAG, "ViewNode is NULL");
-        }
+        postViewElementEvent(AutotrackEventType.VIEW_CLICK, view);
     }
 
     @Override
@@ -160,50 +126,70 @@ class ViewNodeV4Renderer implements ViewNodeRenderer {
             return;
         }
 
-        ViewNodeV4 viewNode = renderViewNode(view);
-        if (viewNode != null) {
-            Page<?> page = viewNode.getPage();
-            if (page == null) {
-                Logger.w(TAG, "sendChangeEvent: page is NULL");
-                return;
-            }
-            StringBuilder xpath = new StringBuilder();
-            StringBuilder xIndex = new StringBuilder();
+        postViewElementEvent(AutotrackEventType.VIEW_CHANGE, view);
+    }
+
+    /**
+     * 主线程只读取 view 和 page 的值，xpath 与 xIndex 在 build 时（track 线程）由 segment 链拼接
+     */
+    private void postViewElementEvent(String eventType, View view) {
+        ViewPathSegment segment = captureViewPath(view);
+        Page<?> page = segment.getPage();
+        if (page == null) {
+            Logger.w(TAG, "send " + eventType + " event: page is NULL");
+            return;
+        }
+
+        String content = segment.getContent();
+        if (content == null || content.isEmpty()) {
+            content = ViewAttributeUtil.findViewContent(view);
+        }
+
+        ViewElementSnapshotBuilder builder = new ViewElementSnapshotBuilder(eventType, segment);
+        builder.pageXPath = page.originPath(false);
+        builder.pageXIndex = page.getXIndex();
+        builder.setPath(page.activePath())
+                .setTextValue(content)
+                .setAttributes(page.activeAttributes());
+        TrackMainThread.trackMain().postEventToTrackMain(builder);
+    }
+
+    private static final class ViewElementSnapshotBuilder extends ViewElementEvent.Builder {
+        private final ViewPathSegment segment;
+        private String pageXPath;
+        private String pageXIndex;
+
+        ViewElementSnapshotBuilder(String eventType, ViewPathSegment segment) {
+            super(eventType);
+            this.segment = segment;
+        }
+
+        @Override
+        public ViewElementEvent build() {
+            ViewNodeV4 viewNode = segment.resolve();
             if (viewNode.isHasUniqueTag()) {
-                xpath.append(viewNode.getXPath());
-                xIndex.append(viewNode.getXIndex());
+                setXpath(viewNode.getXPath());
+                setXIndex(viewNode.getXIndex());
             } else {
-                String pagePath = page.originPath(false);
-                xpath.append(pagePath).append(viewNode.getXPath());
-                xIndex.append(page.getXIndex()).append(viewNode.getXIndex());
-            }
-
-            if (viewNode.getViewContent() == null || viewNode.getViewContent().isEmpty()) {
-                String content = ViewAttributeUtil.findViewContent(viewNode.getView());
-                viewNode.setViewContent(content);
+                setXpath(pageXPath + viewNode.getXPath());
+                setXIndex(pageXIndex + viewNode.getXIndex());
             }
-
-            TrackMainThread.trackMain().postEventToTrackMain(
-                    new ViewElementEvent.Builder(AutotrackEventType.VIEW_CHANGE)
-                            .setPath(page.activePath())
-                            .setXpath(xpath.toString())
-                            .setXIndex(xIndex.toString())
-                            .setIndex(viewNode.getIndex())
-                            .setTextValue(viewNode.getViewContent())
-                            .setAttributes(page.activeAttributes())
-            );
-        } else {
-            Logger.e(TAG, "ViewNode is NULL");
+            setIndex(viewNode.getIndex());
+            return super.build();
         }
     }
 
     ViewNodeV4 renderViewNode(View childView) {
+        return captureViewPath(childView).resolve().withView(childView);
+    }
+
+    ViewPathSegment captureViewPath(View childView) {
         // judge Menu Item
         if (ListMenuItemViewShadow.isListMenuItemView(childView) && childView.getContext() != null) {
             Page page = PageProvider.get().findPage(childView);
             MenuItem menuItem = new ListMenuItemViewShadow(childView).getMenuItem();
             if (menuItem != null) {
-                return renderMenuItemViewNode(childView.getContext(), page, menuItem);
+                return ViewPathSegment.root(renderMenuItemViewNode(childView.getContext(), page, menuItem));
             }
         }
 
@@ -212,20 +198,53 @@ class ViewNodeV4Renderer implements ViewNodeRenderer {
     }
 
     /**
-     * make one-way NodeTree
+     * make one-way segment chain, only the values of views are read here
      *
      * @param childView clicked View
-     * @return childView's ViewNode
+     * @return childView's segment
      */
-    private ViewNodeV4 makeNodeLinkTree(View childView) {
+    private ViewPathSegment makeNodeLinkTree(View childView) {
         // find linked views
         LinkedList<View> linkedViews = new LinkedList<>();
-        ViewNodeV4 childViewNode = findRootViewNode(childView, linkedViews);
+        int layoutGeneration = ViewTreeStatusObserver.getLayoutGeneration();
+        boolean useCache = ViewTreeStatusObserver.isLayoutObserved(childView.getRootView());
+        ViewPathSegment segment = useCache ? findCachedSegment(childView, linkedViews, layoutGeneration) : null;
+        View parentView;
+        if (segment == null) {
+            linkedViews.clear();
+            ViewNodeV4 rootNode = findRootViewNode(childView, linkedViews);
+            segment = ViewPathSegment.root(rootNode);
+            parentView = rootNode.getView();
+            if (useCache && !linkedViews.isEmpty()) segment.saveToCache(parentView, layoutGeneration);
+        } else {
+            parentView = (View) linkedViews.getFirst().getParent();
+        }
 
-        while (!linkedViews.isEmpty()) {
-            childViewNode = childViewNode.append(linkedViews.pollFirst());
+        while (!linkedViews.isEmpty() && parentView instanceof ViewGroup) {
+            View view = linkedViews.pollFirst();
+            segment = ViewPathSegment.capture(segment, view, ((ViewGroup) parentView).indexOfChild(view));
+            // the clicked view itself is not reused, its content may change
+            if (useCache && !linkedViews.isEmpty()) segment.saveToCache(view, layoutGeneration);
+            parentView = view;
+        }
+        return segment;
+    }
+
+    /**
+     * find the nearest ancestor whose segment is cached in current layout generation,
+     * stop at the page view as {@link #findRootViewNode} does.
+     */
+    private ViewPathSegment findCachedSegment(View childView, LinkedList<View> linkedViews, int layoutGeneration) {
+        View view = childView;
+        while (ViewAttributeUtil.getViewPage(view) == null && view.getParent() instanceof ViewGroup) {
+            linkedViews.addFirst(view);
+            view = (View) view.getParent();
+            ViewPathSegment cachedSegment = ViewPathSegment.getFromCache(view, layoutGeneration);
+            if (cachedSegment != null) {
+                return cachedSegment;
+            }
         }
-        return childViewNode;
+        return null;
     }
 
     private ViewNodeV4 findRootViewNode(View childView, LinkedList<View> linkedViews) {
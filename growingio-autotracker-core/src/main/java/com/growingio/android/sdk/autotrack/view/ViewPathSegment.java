@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.autotrack.view;
+
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ExpandableListView;
+
+import com.growingio.android.sdk.autotrack.R;
+import com.growingio.android.sdk.autotrack.page.Page;
+import com.growingio.android.sdk.autotrack.shadow.ListMenuItemViewShadow;
+import com.growingio.android.sdk.autotrack.util.ClassUtil;
+import com.growingio.android.sdk.track.utils.ClassExistHelper;
+import com.growingio.android.sdk.track.view.WindowHelper;
+
+/**
+ * 计算 xpath 所需的单个 view 的值，只在 UI 线程中读取 view。
+ * <p>
+ * 通过 parent 连接成从根节点到当前 view 的链，链上不持有 view，xpath 与 xIndex 在 {@link #resolve()} 时拼接，
+ * 可以在 track 线程中进行。同一次布局内 ViewGroup 的链保存在 view tag 中复用。
+ */
+final class ViewPathSegment {
+    static final int TYPE_ROOT = 0;
+    // 没有父 View 的 DecorView，不拼接 xpath
+    static final int TYPE_SKIP = 1;
+    static final int TYPE_MENU_ITEM = 2;
+    static final int TYPE_DEFAULT = 3;
+    static final int TYPE_LIST = 4;
+    static final int TYPE_SWIPE_REFRESH = 5;
+    static final int TYPE_EXPANDABLE_HEADER = 6;
+    static final int TYPE_EXPANDABLE_FOOTER = 7;
+    static final int TYPE_EXPANDABLE_GROUP = 8;
+    static final int TYPE_EXPANDABLE_CHILD = 9;
+
+    private final ViewPathSegment parent;
+    private final Page<?> page;
+    private final boolean hasListParent;
+    // the position of the view in list or pager may change without layout, such as scrolling
+    private boolean cacheable;
+
+    private int type;
+    private ViewNodeV4 node;
+    private String viewName;
+    private String customId;
+    private String replaceId;
+    private int position;
+    private int childPosition;
+    private String content;
+    private boolean canCircle;
+
+    private ViewPathSegment(ViewPathSegment parent, Page<?> page, boolean hasListParent, boolean cacheable) {
+        this.parent = parent;
+        this.page = page;
+        this.hasListParent = hasListParent;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * 以已经计算好的节点作为链的起点，如 page 的根节点或菜单节点
+     */
+    static ViewPathSegment root(ViewNodeV4 rootNode) {
+        ViewPathSegment segment = new ViewPathSegment(null, rootNode.getPage(), false, true);
+        segment.type = TYPE_ROOT;
+        segment.node = rootNode.copyWithoutView();
+        segment.content = rootNode.getViewContent();
+        segment.canCircle = rootNode.getView() != null && ViewUtil.canCircle(rootNode.getView());
+        return segment;
+    }
+
+    /**
+     * @param parent        父 view 的 segment，为空时不连接成链，只用于计算当前 view 的 xpath
+     * @param indexInParent view 在父 view 中的位置
+     */
+    static ViewPathSegment capture(ViewPathSegment parent, View view, int indexInParent) {
+        boolean hasListParent = (parent != null && parent.hasListParent) || ClassExistHelper.isListView(view);
+        boolean cacheable = (parent == null || parent.cacheable) && !hasListParent;
+        ViewPathSegment segment = new ViewPathSegment(parent, parent == null ? null : parent.page, hasListParent, cacheable);
+        segment.content = ViewAttributeUtil.getViewContent(view);
+        segment.canCircle = ViewUtil.canCircle(view);
+
+        int viewPosition = calculateViewPosition(view, indexInParent);
+        Object parentObject = view.getParent();
+        if (parentObject == null || (WindowHelper.get().isDecorView(view) && !(parentObject instanceof View))) {
+            segment.type = TYPE_SKIP;
+            return segment;
+        }
+
+        segment.customId = ViewAttributeUtil.getCustomId(view);
+        segment.viewName = ClassUtil.getSimpleClassName(view.getClass());
+
+        //针对菜单栏处理
+        if (ListMenuItemViewShadow.isListMenuItemView(view)) {
+            MenuItem menuItem = new ListMenuItemViewShadow(view).getMenuItem();
+            if (menuItem != null) {
+                segment.type = TYPE_MENU_ITEM;
+                segment.node = ViewNodeV4.generateMenuItemViewNode(view.getContext(), segment.page, menuItem);
+                segment.cacheable = false;
+                return segment;
+            }
+        }
+
+        if (parentObject instanceof ViewGroup) {
+            ViewGroup parentView = (ViewGroup) parentObject;
+            if (parentView instanceof ExpandableListView) {
+                segment.captureExpandableListView((ExpandableListView) parentView, viewPosition);
+            } else if (ClassExistHelper.isListView(parentView) || ClassExistHelper.instanceOfRecyclerView(parentView)) {
+                segment.type = TYPE_LIST;
+                segment.position = viewPosition;
+            } else if (ClassExistHelper.instanceofAndroidXSwipeRefreshLayout(parentObject)
+                    || ClassExistHelper.instanceOfSupportSwipeRefreshLayout(parentObject)) {
+                segment.type = TYPE_SWIPE_REFRESH;
+            } else {
+                segment.type = TYPE_DEFAULT;
+                segment.position = findMatchTypePosition(parentView, view, segment.viewName, viewPosition);
+            }
+        } else {
+            segment.type = TYPE_DEFAULT;
+            segment.position = viewPosition;
+        }
+        segment.replaceId = ViewAttributeUtil.getViewPackageId(view);
+        return segment;
+    }
+
+    /**
+     * 拼接从根节点到当前 view 的节点，不读取 view，返回的节点也不持有 view
+     */
+    ViewNodeV4 resolve() {
+        if (parent == null) {
+            return node.copyWithoutView();
+        }
+        return parent.resolve().append(this, parent.canCircle);
+    }
+
+    Page<?> getPage() {
+        return page;
+    }
+
+    String getContent() {
+        return content;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    ViewNodeV4 getNode() {
+        return node;
+    }
+
+    String getViewName() {
+        return viewName;
+    }
+
+    String getCustomId() {
+        return customId;
+    }
+
+    String getReplaceId() {
+        return replaceId;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    int getChildPosition() {
+        return childPosition;
+    }
+
+    boolean isHasListParent() {
+        return hasListParent;
+    }
+
+    /**
+     * the segment of a ViewGroup is saved in its tag, so that the descendants clicked later can be captured from it
+     * instead of walking from the page root again. It's valid until the next global layout of the window.
+     */
+    void saveToCache(View view, int layoutGeneration) {
+        if (!cacheable || !(view instanceof ViewGroup)) return;
+        view.setTag(R.id.growing_tracker_view_node_cache, new CachedSegment(this, layoutGeneration));
+    }
+
+    static ViewPathSegment getFromCache(View view, int layoutGeneration) {
+        Object cache = view.getTag(R.id.growing_tracker_view_node_cache);
+        if (cache instanceof CachedSegment && ((CachedSegment) cache).layoutGeneration == layoutGeneration) {
+            return ((CachedSegment) cache).segment;
+        }
+        return null;
+    }
+
+    private static final class CachedSegment {
+        private final ViewPathSegment segment;
+        private final int layoutGeneration;
+
+        CachedSegment(ViewPathSegment segment, int layoutGeneration) {
+            this.segment = segment;
+            this.layoutGeneration = layoutGeneration;
+        }
+    }
+
+    private void captureExpandableListView(ExpandableListView listParent, int viewPosition) {
+        long elp = listParent.getExpandableListPosition(viewPosition);
+        if (ExpandableListView.getPackedPositionType(elp) == ExpandableListView.PACKED_POSITION_TYPE_NULL) {
+            if (viewPosition < listParent.getHeaderViewsCount()) {
+                this.type = TYPE_EXPANDABLE_HEADER;
+                this.position = viewPosition;
+            } else {
+                this.type = TYPE_EXPANDABLE_FOOTER;
+                this.position = viewPosition - (listParent.getCount() - listParent.getFooterViewsCount());
+            }
+        } else {
+            int groupIdx = ExpandableListView.getPackedPositionGroup(elp);
+            int childIdx = ExpandableListView.getPackedPositionChild(elp);
+            this.type = childIdx != -1 ? TYPE_EXPANDABLE_CHILD : TYPE_EXPANDABLE_GROUP;
+            this.position = groupIdx;
+            this.childPosition = childIdx;
+        }
+    }
+
+    private static int findMatchTypePosition(ViewGroup parent, View view, String viewName, int viewPosition) {
+        int matchTypePosition = 0;
+        for (int siblingIndex = 0; siblingIndex < parent.getChildCount(); siblingIndex++) {
+            View siblingView = parent.getChildAt(siblingIndex);
+            if (siblingView == view) {
+                return matchTypePosition;
+            } else if (siblingView.getClass().getSimpleName().equals(viewName)) {
+                matchTypePosition++;
+            }
+        }
+        return viewPosition;
+    }
+
+    private static int calculateViewPosition(View view, int viewPosition) {
+        if (view.getParent() != null && (view.getParent() instanceof ViewGroup)) {
+            ViewGroup parent = (ViewGroup) (view.getParent());
+            if (ClassExistHelper.instanceOfAndroidXViewPager(parent)) {
+                return ((androidx.viewpager.widget.ViewPager) parent).getCurrentItem();
+            } else if (ClassExistHelper.instanceOfSupportViewPager(parent)) {
+                return ((android.support.v4.view.ViewPager) parent).getCurrentItem();
+            } else if (parent instanceof AdapterView) {
+                AdapterView listView = (AdapterView) parent;
+                return listView.getFirstVisiblePosition() + viewPosition;
+            } else if (ClassExistHelper.instanceOfRecyclerView(parent)) {
+                int adapterPosition = getChildAdapterPositionInRecyclerView(view, parent);
+                if (adapterPosition >= 0) {
+                    return adapterPosition;
+                }
+            }
+        }
+        return viewPosition;
+    }
+
+    private static int getChildAdapterPositionInRecyclerView(View childView, ViewGroup parentView) {
+        if (ClassExistHelper.instanceOfAndroidXRecyclerView(parentView)) {
+            return ((androidx.recyclerview.widget.RecyclerView) parentView).getChildAdapterPosition(childView);
+        } else if (ClassExistHelper.instanceOfSupportRecyclerView(parentView)) {
+            // For low version RecyclerView
+            try {
+                return ((android.support.v7.widget.RecyclerView) parentView).getChildAdapterPosition(childView);
+            } catch (Throwable e) {
+                return ((android.support.v7.widget.RecyclerView) parentView).getChildPosition(childView);
+            }
+
+        }
+        return -1;
+    }
+}
@@ -19,6 +19,7 @@ package com.growingio.android.sdk.autotrack.view;
 import android.app.Application;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
@@ -38,6 +39,7 @@ import com.growingio.android.sdk.autotrack.IgnorePolicy;
 import com.growingio.android.sdk.autotrack.RobolectricActivity;
 import com.growingio.android.sdk.autotrack.page.ActivityPage;
 import com.growingio.android.sdk.track.providers.TrackerLifecycleProviderFactory;
+import com.growingio.android.sdk.track.view.ViewTreeStatusObserver;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -117,6 +119,73 @@ public class ViewNodeV4Test {
     }
 
 
+    @Test
+    public void viewNodeCacheTest() {
+        RobolectricActivity activity = Robolectric.buildActivity(RobolectricActivity.class).create().start().resume().get();
+        ViewTreeStatusObserver observer = new ViewTreeStatusObserver(true, false, false, false, changedEvent -> {
+        }, com.growingio.android.sdk.track.R.id.growing_tracker_monitoring_view_tree_enabled);
+        observer.onActivityResumed(activity);
+
+        ViewNodeProvider viewNodeProvider = context.getProvider(ViewNodeProvider.class);
+        ViewNodeV4Renderer renderer = new ViewNodeV4Renderer(viewNodeProvider);
+        ViewGroup parent = (ViewGroup) activity.getTextView().getParent();
+        int generation = ViewTreeStatusObserver.getLayoutGeneration();
+
+        ViewNodeV4 viewNode = renderer.renderViewNode(activity.getTextView());
+        Truth.assertThat(ViewPathSegment.getFromCache(parent, generation)).isNotNull();
+        Truth.assertThat(ViewPathSegment.getFromCache(activity.getTextView(), generation)).isNull();
+        ViewNodeV4 cachedNode = renderer.renderViewNode(activity.getTextView());
+        Truth.assertThat(cachedNode.getXPath()).isEqualTo(viewNode.getXPath());
+        Truth.assertThat(cachedNode.getXIndex()).isEqualTo(viewNode.getXIndex());
+        Truth.assertThat(cachedNode.getViewContent()).isEqualTo(viewNode.getViewContent());
+
+        // nodes in list are never cached
+        RecyclerView recyclerView = activity.getRecyclerView();
+        View itemView = Objects.requireNonNull(recyclerView.findViewHolderForAdapterPosition(2)).itemView;
+        ViewNodeV4 listItemNode = renderer.renderViewNode(itemView);
+        Truth.assertThat(listItemNode.getXIndex()).isEqualTo("/0/0/0/action_bar_root/0/0/0/-");
+        Truth.assertThat(renderer.renderViewNode(itemView).getXIndex()).isEqualTo(listItemNode.getXIndex());
+        Truth.assertThat(ViewPathSegment.getFromCache(recyclerView, generation)).isNull();
+
+        observer.onActivityPaused(activity);
+        Truth.assertThat(ViewTreeStatusObserver.getLayoutGeneration()).isNotEqualTo(generation);
+        Truth.assertThat(ViewPathSegment.getFromCache(parent, ViewTreeStatusObserver.getLayoutGeneration())).isNull();
+    }
+
+    @Test
+    public void viewPathSegmentTest() throws InterruptedException {
+        RobolectricActivity activity = Robolectric.buildActivity(RobolectricActivity.class).create().start().resume().get();
+        ViewNodeProvider viewNodeProvider = context.getProvider(ViewNodeProvider.class);
+        ViewNodeV4Renderer renderer = new ViewNodeV4Renderer(viewNodeProvider);
+
+        RecyclerView recyclerView = activity.getRecyclerView();
+        View itemView = Objects.requireNonNull(recyclerView.findViewHolderForAdapterPosition(2)).itemView;
+        ViewNodeV4 textNode = renderer.renderViewNode(activity.getTextView());
+        ViewNodeV4 listItemNode = renderer.renderViewNode(itemView);
+        ViewPathSegment textSegment = renderer.captureViewPath(activity.getTextView());
+        ViewPathSegment listItemSegment = renderer.captureViewPath(itemView);
+        Truth.assertThat(textSegment.getContent()).isEqualTo("this is cpacm");
+
+        // 采集之后 view 树的变化不影响拼接结果，拼接时不读取 view
+        ((ViewGroup) activity.getTextView().getParent()).removeView(activity.getTextView());
+        ViewNodeV4[] resolved = new ViewNodeV4[2];
+        Thread trackThread = new Thread(() -> {
+            resolved[0] = textSegment.resolve();
+            resolved[1] = listItemSegment.resolve();
+        });
+        trackThread.start();
+        trackThread.join();
+
+        Truth.assertThat(resolved[0].getView()).isNull();
+        Truth.assertThat(resolved[0].getXPath()).isEqualTo(textNode.getXPath());
+        Truth.assertThat(resolved[0].getXIndex()).isEqualTo(textNode.getXIndex());
+        Truth.assertThat(resolved[0].getIndex()).isEqualTo(-1);
+        Truth.assertThat(resolved[0].getPage()).isSameInstanceAs(textNode.getPage());
+        Truth.assertThat(resolved[1].getXPath()).isEqualTo(listItemNode.getXPath());
+        Truth.assertThat(resolved[1].getXIndex()).isEqualTo("/0/0/0/action_bar_root/0/0/0/-");
+        Truth.assertThat(resolved[1].getIndex()).isEqualTo(3);
+    }
+
     @Test
     public void viewRenderTest() {
         RobolectricActivity activity = Robolectric.buildActivity(RobolectricActivity.class).create().start().resume().get();
@@ -69,13 +69,13 @@ public class DatabaseDataFetcher implements DataFetcher<EventDbResult> {
             assertCondition(database.getLimit() > 0
                             && database.getPolicy() >= SEND_POLICY_INSTANT,
                     "leak necessary param");
-            dataManager.queryEvents(database.getPolicy(), database.getLimit(), dbResult);
+            dataManager.queryEvents(database.getPolicy(), database.getLimit(), database.getFirstId(), database.getMaxBytes(), dbResult);
             return dbResult;
         } else if (database.getDbOp() == EventDatabase.DATABASE_OP_DELETE) {
             assertCondition(database.getLastId() > 0
                     && database.getPolicy() >= SEND_POLICY_INSTANT
                     && !TextUtils.isEmpty(database.getEventType()), "no event id to delete");
-            int sum = dataManager.removeEvents(database.getLastId(), database.getPolicy(), database.getEventType());
+            int sum = dataManager.removeEvents(database.getFirstId(), database.getLastId(), database.getPolicy(), database.getEventType());
             dbResult.setSum(sum);
             dbResult.setSuccess(sum >= 0);
             return dbResult;
@@ -87,7 +87,7 @@ public class DatabaseDataFetcher implements DataFetcher<EventDbResult> {
             return dbResult;
         } else if (database.getDbOp() == EventDatabase.DATABASE_OP_UPDATE) {
             assertCondition(database.getLastId() > 0, "no event id to update");
-            int sum = dataManager.updateEventsWhenSendFailed(database.getLastId(), database.getEventType());
+            int sum = dataManager.updateEventsWhenSendFailed(database.getFirstId(), database.getLastId(), database.getEventType());
             dbResult.setSum(sum);
             dbResult.setSuccess(sum >= 0);
             return dbResult;
@@ -101,6 +101,36 @@ public class EventDataContentProvider extends ContentProvider {
         throw new IllegalArgumentException("UnKnow Uri:" + uri.toString());
     }
 
+    /**
+     * insert all values in one transaction, so a batch of events costs only one disk sync.
+     */
+    @Override
+    public int bulkInsert(Uri uri, ContentValues[] values) {
+        if (MATCHER.match(uri) != EVENT_DATA_CODE) {
+            throw new IllegalArgumentException("UnKnow Uri:" + uri.toString());
+        }
+        if (values == null || values.length == 0) {
+            return 0;
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int count = 0;
+        db.beginTransaction();
+        try {
+            for (ContentValues value : values) {
+                if (db.insert(TABLE_EVENTS, null, value) != -1) {
+                    count++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (count > 0) {
+            this.getContext().getContentResolver().notifyChange(uri, null);
+        }
+        return count;
+    }
+
     @Override
     public int delete(Uri uri, String selection, String[] selectionArgs) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
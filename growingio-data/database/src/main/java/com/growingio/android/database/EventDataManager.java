@@ -32,6 +32,7 @@ import com.growingio.android.sdk.track.middleware.format.EventByteArray;
 import com.growingio.android.sdk.track.middleware.EventDbResult;
 import com.growingio.android.sdk.track.middleware.format.EventFormatData;
 import com.growingio.android.sdk.track.middleware.GEvent;
+import com.growingio.android.sdk.track.modelloader.BoundModelLoader;
 import com.growingio.android.sdk.track.modelloader.ModelLoader;
 
 import java.io.File;
@@ -52,11 +53,13 @@ public class EventDataManager {
 
     private final TrackerContext context;
     private final String eventsInfoAuthority;
+    private final BoundModelLoader<EventFormatData, EventByteArray> formatModelLoader;
     private boolean ignoreOperations = false;
 
     EventDataManager(TrackerContext context) {
         this.context = context;
         eventsInfoAuthority = context.getPackageName() + "." + EventDataContentProvider.CONTENT_PROVIDER_NAME;
+        formatModelLoader = context.getRegistry().bind(EventFormatData.class, EventByteArray.class);
 
         DeprecatedEventSQLite deprecatedEventSQLite = new DeprecatedEventSQLite(context, this);
         deprecatedEventSQLite.migrateEvents();
@@ -67,7 +70,7 @@ public class EventDataManager {
     }
 
     private EventByteArray formatData(EventFormatData data) {
-        ModelLoader<EventFormatData, EventByteArray> modelLoader = context.getRegistry().getModelLoader(EventFormatData.class, EventByteArray.class);
+        ModelLoader<EventFormatData, EventByteArray> modelLoader = formatModelLoader.get();
         if (modelLoader == null) {
             Logger.e(TAG, "please register eventformat component first");
             return null;
@@ -77,12 +80,30 @@ public class EventDataManager {
     }
 
     int insertEvents(List<GEvent> events) {
-        int count = 0;
-        for (GEvent event : events) {
-            Uri uri = insertEvent(event);
-            if (uri != null) count++;
+        if (events.size() == 1) {
+            return insertEvent(events.get(0)) != null ? 1 : 0;
         }
-        return count;
+        if (ignoreOperations) {
+            return 0;
+        }
+
+        try {
+            List<ContentValues> valuesList = new ArrayList<>(events.size());
+            for (GEvent event : events) {
+                ContentValues contentValues = formatValues(event);
+                if (contentValues != null) valuesList.add(contentValues);
+            }
+            if (valuesList.isEmpty()) {
+                return 0;
+            }
+            ContentResolver contentResolver = context.getContentResolver();
+            return contentResolver.bulkInsert(getContentUri(), valuesList.toArray(new ContentValues[0]));
+        } catch (SQLiteFullException e) {
+            onDiskFull(e);
+        } catch (Exception e) {
+            Logger.e(TAG, e, "insertEvents failed");
+        }
+        return 0;
     }
 
     Uri insertEvent(GEvent gEvent) {
@@ -91,19 +112,10 @@ public class EventDataManager {
         }
 
         try {
-            ContentResolver contentResolver = context.getContentResolver();
-            Uri uri = getContentUri();
-
-            EventByteArray data = formatData(EventFormatData.format(gEvent));
-            if (data != null && data.getBodyData() != null) {
-                if (data.getBodyData().length > EVENT_DATA_MAX_SIZE) {
-                    // SQLiteBlobTooBigException: Row too big to fit into CursorWindow
-                    // cursor window default is 2M, so we should limit the data size
-                    Logger.e(TAG, "event data is too large, ignore it.");
-                    return null;
-                }
-                ContentValues contentValues = EventDataTable.putValues(data.getBodyData(), getDatabaseEventType(gEvent), gEvent.getSendPolicy());
-                return contentResolver.insert(uri, contentValues);
+            ContentValues contentValues = formatValues(gEvent);
+            if (contentValues != null) {
+                ContentResolver contentResolver = context.getContentResolver();
+                return contentResolver.insert(getContentUri(), contentValues);
             }
         } catch (SQLiteFullException e) {
             onDiskFull(e);
@@ -114,6 +126,20 @@ public class EventDataManager {
         return null;
     }
 
+    private ContentValues formatValues(GEvent gEvent) {
+        EventByteArray data = formatData(EventFormatData.format(gEvent));
+        if (data != null && data.getBodyData() != null) {
+            if (data.getBodyData().length > EVENT_DATA_MAX_SIZE) {
+                // SQLiteBlobTooBigException: Row too big to fit into CursorWindow
+                // cursor window default is 2M, so we should limit the data size
+                Logger.e(TAG, "event data is too large, ignore it.");
+                return null;
+            }
+            return EventDataTable.putValues(data.getBodyData(), getDatabaseEventType(gEvent), gEvent.getSendPolicy());
+        }
+        return null;
+    }
+
     int removeOverdueEvents(int day) {
         if (ignoreOperations) {
             return -1;
@@ -137,39 +163,51 @@ public class EventDataManager {
     }
 
     void queryEvents(int policy, int limit, EventDbResult dbResult) {
+        queryEvents(policy, limit, 0L, dbResult);
+    }
+
+    void queryEvents(int policy, int limit, long firstId, EventDbResult dbResult) {
+        queryEvents(policy, limit, firstId, 0, dbResult);
+    }
+
+    /**
+     * @param maxBytes the total size limit of the events, no more than EVENT_DATA_MAX_SIZE, 0 for the default
+     */
+    void queryEvents(int policy, int limit, long firstId, int maxBytes, EventDbResult dbResult) {
         // query 判断磁盘空间是否已满，避免ignoreOperations的情况下，重复发送同一事件
         if (ignoreOperations) {
             dbResult.setSuccess(false);
             return;
         }
         List<byte[]> queryList = new ArrayList<>();
+        List<Long> illegalIds = new ArrayList<>();
         ContentProviderClient client = context.getContentResolver().acquireContentProviderClient(eventsInfoAuthority);
-        try (Cursor cursor = queryEvents(client, policy, limit)) {
-            int count = 0;
+        double maxSize = maxBytes > 0 ? Math.min(maxBytes, EVENT_DATA_MAX_SIZE) : EVENT_DATA_MAX_SIZE;
+        try (Cursor cursor = queryEvents(client, policy, limit, firstId)) {
             double dataSize = 0;
             while (cursor.moveToNext()) {
-                count++;
-                String eventType = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TYPE));
-                dbResult.setEventType(eventType);
                 byte[] data = cursor.getBlob(cursor.getColumnIndexOrThrow(COLUMN_DATA));
                 if (data != null && data.length < EVENT_DATA_MAX_SIZE) {
                     dataSize += data.length;
-                    if (dataSize > EVENT_DATA_MAX_SIZE) {
+                    // a single event larger than maxSize is still sent alone
+                    if (dataSize > maxSize && !queryList.isEmpty()) {
                         break;
                     }
                     queryList.add(data);
+                    dbResult.setEventType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TYPE)));
                     long lastId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
+                    if (queryList.size() == 1) dbResult.setFirstId(lastId);
                     dbResult.setLastId(lastId);
                 } else {
                     Logger.e(TAG, "event data is too large or null, delete it.");
-                    // event data is illegal, delete it.
-                    long delId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
-                    removeEventById(client, delId);
+                    // event data is illegal, delete them together after reading.
+                    illegalIds.add(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID)));
                 }
             }
+            removeEventsByIds(client, illegalIds);
             EventByteArray result = formatData(EventFormatData.merge(queryList));
             if (result != null && result.getBodyData() != null) {
-                dbResult.setSum(count);
+                dbResult.setSum(queryList.size());
                 dbResult.setSuccess(true);
                 dbResult.setData(result.getBodyData());
                 dbResult.setMediaType(result.getMediaType());
@@ -198,9 +236,12 @@ public class EventDataManager {
         }
         ContentProviderClient client = context.getContentResolver().acquireContentProviderClient(eventsInfoAuthority);
         List<byte[]> queryList = new ArrayList<>();
-        try (Cursor cursor = queryEvents(client, policy, limit)) {
+        try (Cursor cursor = queryEvents(client, policy, limit, 0L)) {
             int count = 0;
             double dataSize = 0;
+            long firstDelId = -1;
+            long lastDelId = -1;
+            String eventType = null;
             while (cursor.moveToNext()) {
                 count++;
                 byte[] data = cursor.getBlob(cursor.getColumnIndexOrThrow(COLUMN_DATA));
@@ -213,8 +254,15 @@ public class EventDataManager {
                     long lastId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
                     dbResult.setLastId(lastId);
                 }
-                long delId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
-                removeEventById(client, delId);
+                lastDelId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
+                if (firstDelId < 0) {
+                    firstDelId = lastDelId;
+                    eventType = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TYPE));
+                }
+            }
+            // the rows read are all the rows of the policy and type in [firstDelId, lastDelId], delete them in one statement
+            if (firstDelId > 0) {
+                removeEvents(client, firstDelId, lastDelId, policy, eventType);
             }
             EventByteArray result = formatData(EventFormatData.merge(queryList));
             if (result != null && result.getBodyData() != null) {
@@ -239,6 +287,10 @@ public class EventDataManager {
     }
 
     int updateEventsWhenSendFailed(long lastId, String eventType) {
+        return updateEventsWhenSendFailed(0L, lastId, eventType);
+    }
+
+    int updateEventsWhenSendFailed(long firstId, long lastId, String eventType) {
         if (ignoreOperations) {
             return -1;
         }
@@ -255,8 +307,8 @@ public class EventDataManager {
             Uri uri = getContentUri();
             return contentResolver.update(uri,
                     contentValues,
-                    COLUMN_ID + "<=? AND " + COLUMN_EVENT_TYPE + "=?",
-                    new String[]{String.valueOf(lastId), eventType});
+                    COLUMN_ID + ">=? AND " + COLUMN_ID + "<=? AND " + COLUMN_EVENT_TYPE + "=?",
+                    new String[]{String.valueOf(firstId), String.valueOf(lastId), eventType});
         } catch (SQLiteFullException e) {
             onDiskFull(e);
             return -1;
@@ -267,7 +319,7 @@ public class EventDataManager {
     }
 
     @SuppressLint("Recycle")
-    private Cursor queryEvents(ContentProviderClient client, int policy, int limit) throws RemoteException {
+    private Cursor queryEvents(ContentProviderClient client, int policy, int limit, long firstId) throws RemoteException {
         Uri uri = getContentUri();
         String subSelect = "SELECT " + COLUMN_EVENT_TYPE
                 + " FROM " + TABLE_EVENTS + " WHERE " + COLUMN_POLICY + "=" + policy
@@ -277,6 +329,7 @@ public class EventDataManager {
                 + COLUMN_EVENT_TYPE
                 + " FROM " + TABLE_EVENTS
                 + " WHERE " + COLUMN_EVENT_TYPE + "=(" + subSelect + ") AND " + COLUMN_POLICY + "=" + policy
+                + (firstId > 0 ? " AND " + COLUMN_ID + ">=" + firstId : "")
                 + " ORDER BY " + COLUMN_ID + " ASC "
                 + " LIMIT " + limit + ";";
         if (client == null) {
@@ -287,27 +340,43 @@ public class EventDataManager {
         }
     }
 
-    private void removeEventById(ContentProviderClient client, long id) throws RemoteException {
+    private void removeEventsByIds(ContentProviderClient client, List<Long> ids) throws RemoteException {
+        if (ids.isEmpty()) return;
+        StringBuilder selection = new StringBuilder(COLUMN_ID).append(" IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) selection.append(',');
+            selection.append(ids.get(i).longValue());
+        }
+        selection.append(')');
+        delete(client, selection.toString(), null);
+    }
+
+    private int removeEvents(ContentProviderClient client, long firstId, long lastId, int policy, String eventType) throws RemoteException {
+        return delete(client, COLUMN_ID + ">=? AND " + COLUMN_ID + "<=? AND " + COLUMN_EVENT_TYPE + "=? AND " + COLUMN_POLICY + "=?",
+                new String[]{String.valueOf(firstId), String.valueOf(lastId), eventType, String.valueOf(policy)});
+    }
+
+    private int delete(ContentProviderClient client, String selection, String[] selectionArgs) throws RemoteException {
         Uri uri = getContentUri();
         if (client == null) {
             ContentResolver contentResolver = context.getContentResolver();
-            contentResolver.delete(uri, COLUMN_ID + "=?", new String[]{String.valueOf(id)});
+            return contentResolver.delete(uri, selection, selectionArgs);
         } else {
-            client.delete(uri, COLUMN_ID + "=?", new String[]{String.valueOf(id)});
+            return client.delete(uri, selection, selectionArgs);
         }
     }
 
     int removeEvents(long lastId, int policy, String eventType) {
+        return removeEvents(0L, lastId, policy, eventType);
+    }
+
+    int removeEvents(long firstId, long lastId, int policy, String eventType) {
         if (ignoreOperations) {
             return -1;
         }
 
         try {
-            ContentResolver contentResolver = context.getContentResolver();
-            Uri uri = getContentUri();
-            return contentResolver.delete(uri,
-                    COLUMN_ID + "<=? AND " + COLUMN_EVENT_TYPE + "=? AND " + COLUMN_POLICY + "=?",
-                    new String[]{String.valueOf(lastId), eventType, String.valueOf(policy)});
+            return removeEvents(null, firstId, lastId, policy, eventType);
         } catch (SQLiteFullException e) {
             onDiskFull(e);
             return -1;
@@ -21,7 +21,11 @@ import android.database.sqlite.SQLiteOpenHelper;
 
 public class EventDataSQLiteOpenHelper extends SQLiteOpenHelper {
 
-    private static final int DATABASE_VERSION = 1;
+    /**
+     * 1: events table.
+     * 2: add indexes of policy, event type and create time.
+     */
+    private static final int DATABASE_VERSION = 2;
     private static final String DATABASE_NAME = "growingio.db";
 
 
@@ -36,11 +40,40 @@ public class EventDataSQLiteOpenHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(EventDataTable.CREATE_TABLE_EVENTS);
+        createIndexes(db);
     }
 
+    /**
+     * migrate step by step and keep the cached events, onUpgrade runs in a transaction.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL(EventDataTable.DROP_TABLE_EVENTS);
-        onCreate(db);
+        if (oldVersion < 2) {
+            createIndexes(db);
+        }
+    }
+
+    /**
+     * the default implementation throws SQLiteException, which makes the cached events unreachable.
+     * only the indexes are changed since version 1, drop them and keep the events table.
+     */
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropIndexes(db);
+        if (newVersion >= 2) {
+            createIndexes(db);
+        }
+    }
+
+    private void createIndexes(SQLiteDatabase db) {
+        db.execSQL(EventDataTable.CREATE_INDEX_POLICY);
+        db.execSQL(EventDataTable.CREATE_INDEX_POLICY_TYPE);
+        db.execSQL(EventDataTable.CREATE_INDEX_CREATE_TIME);
+    }
+
+    private void dropIndexes(SQLiteDatabase db) {
+        db.execSQL(EventDataTable.DROP_INDEX_POLICY);
+        db.execSQL(EventDataTable.DROP_INDEX_POLICY_TYPE);
+        db.execSQL(EventDataTable.DROP_INDEX_CREATE_TIME);
     }
 }
@@ -43,6 +43,25 @@ public class EventDataTable {
                     + COLUMN_POLICY + " INTEGER NOT NULL \n"
                     + ");";
 
+    // the type of the newest event in a policy: SEARCH USING INDEX (_policy=?) instead of sorting all rows
+    public static final String CREATE_INDEX_POLICY =
+            "CREATE INDEX IF NOT EXISTS idx_events_policy ON " + TABLE_EVENTS
+                    + "(" + COLUMN_POLICY + ", " + COLUMN_ID + ");";
+
+    // query, delete and update a batch of events by policy, type and id range
+    public static final String CREATE_INDEX_POLICY_TYPE =
+            "CREATE INDEX IF NOT EXISTS idx_events_policy_type ON " + TABLE_EVENTS
+                    + "(" + COLUMN_POLICY + ", " + COLUMN_EVENT_TYPE + ", " + COLUMN_ID + ");";
+
+    // remove overdue events
+    public static final String CREATE_INDEX_CREATE_TIME =
+            "CREATE INDEX IF NOT EXISTS idx_events_created ON " + TABLE_EVENTS
+                    + "(" + COLUMN_CREATE_TIME + ");";
+
+    public static final String DROP_INDEX_POLICY = "DROP INDEX IF EXISTS idx_events_policy;";
+    public static final String DROP_INDEX_POLICY_TYPE = "DROP INDEX IF EXISTS idx_events_policy_type;";
+    public static final String DROP_INDEX_CREATE_TIME = "DROP INDEX IF EXISTS idx_events_created;";
+
     public static final String DROP_TABLE_EVENTS = "DROP TABLE IF EXISTS " + TABLE_EVENTS + ";";
 
     public static ContentValues putValues(byte[] data, String eventType, Integer policy) {
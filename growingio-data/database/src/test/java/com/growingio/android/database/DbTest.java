@@ -16,7 +16,10 @@
 package com.growingio.android.database;
 
 import android.app.Application;
+import android.content.Context;
 import android.content.pm.ProviderInfo;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 
 import androidx.test.core.app.ApplicationProvider;
@@ -30,6 +33,7 @@ import com.growingio.android.sdk.track.events.CustomEvent;
 import com.growingio.android.sdk.track.events.PageEvent;
 import com.growingio.android.sdk.track.middleware.EventDatabase;
 import com.growingio.android.sdk.track.middleware.EventDbResult;
+import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.middleware.format.EventByteArray;
 import com.growingio.android.sdk.track.middleware.format.EventFormatData;
 import com.growingio.android.sdk.track.modelloader.DataFetcher;
@@ -48,6 +52,8 @@ import org.robolectric.annotation.Config;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -180,15 +186,104 @@ public class DbTest {
         assertThat(dbResult.getSum()).isEqualTo(0);
     }
 
+    @Test
+    public void bulkInsertTest() {
+        trackerContext.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
+        controller.create(providerInfo).get();
+        sqLite.removeAllEvents();
+        List<GEvent> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            events.add(new CustomEvent.Builder()
+                    .setEventName("bulkInsert" + i)
+                    .build());
+        }
+        assertThat(sqLite.insertEvents(events)).isEqualTo(30);
+
+        EventDbResult dbResult = new EventDbResult();
+        sqLite.queryEvents(events.get(0).getSendPolicy(), 100, dbResult);
+        assertThat(dbResult.isSuccess()).isTrue();
+        assertThat(dbResult.getSum()).isEqualTo(30);
+
+        // 超出字节上限时只返回实际放入批次的事件
+        EventDbResult cappedResult = new EventDbResult();
+        sqLite.queryEvents(events.get(0).getSendPolicy(), 100, 0L, 1, cappedResult);
+        assertThat(cappedResult.isSuccess()).isTrue();
+        assertThat(cappedResult.getSum()).isEqualTo(1);
+        assertThat(cappedResult.getLastId()).isEqualTo(cappedResult.getFirstId());
+    }
+
     @Test
     public void dbHelperTest() throws IOException {
         EventDataSQLiteOpenHelper dbHelper = new EventDataSQLiteOpenHelper(application, "growing3.db");
         dbHelper.onUpgrade(dbHelper.getWritableDatabase(), 1, 2);
         Truth.assertThat(dbHelper.getDatabaseName()).isEqualTo("growing3.db");
-        Truth.assertThat(dbHelper.getWritableDatabase().getVersion()).isEqualTo(1);
+        Truth.assertThat(dbHelper.getWritableDatabase().getVersion()).isEqualTo(2);
+        dbHelper.close();
+    }
+
+    @Test
+    public void dbUpgradeTest() {
+        String dbName = "growing_upgrade.db";
+        application.deleteDatabase(dbName);
+        SQLiteDatabase oldDb = application.openOrCreateDatabase(dbName, Context.MODE_PRIVATE, null);
+        oldDb.execSQL(EventDataTable.CREATE_TABLE_EVENTS);
+        oldDb.insert(EventDataTable.TABLE_EVENTS, null, EventDataTable.putValues("cpacm".getBytes(), "TRACK", (int) GEvent.SEND_POLICY_MOBILE_DATA));
+        oldDb.setVersion(1);
+        oldDb.close();
+
+        EventDataSQLiteOpenHelper dbHelper = new EventDataSQLiteOpenHelper(application, dbName);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        Truth.assertThat(db.getVersion()).isEqualTo(2);
+        try (Cursor cursor = db.query(EventDataTable.TABLE_EVENTS, null, null, null, null, null, null)) {
+            Truth.assertThat(cursor.getCount()).isEqualTo(1);
+        }
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='index' AND tbl_name=?",
+                new String[]{EventDataTable.TABLE_EVENTS})) {
+            List<String> indexes = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+            Truth.assertThat(indexes).containsAtLeast("idx_events_policy", "idx_events_policy_type", "idx_events_created");
+        }
         dbHelper.close();
     }
 
+    @Test
+    public void dbDowngradeTest() {
+        String dbName = "growing_downgrade.db";
+        application.deleteDatabase(dbName);
+        EventDataSQLiteOpenHelper dbHelper = new EventDataSQLiteOpenHelper(application, dbName);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.insert(EventDataTable.TABLE_EVENTS, null, EventDataTable.putValues("cpacm".getBytes(), "TRACK", (int) GEvent.SEND_POLICY_MOBILE_DATA));
+        // written by a newer version
+        db.setVersion(3);
+        dbHelper.close();
+
+        dbHelper = new EventDataSQLiteOpenHelper(application, dbName);
+        db = dbHelper.getWritableDatabase();
+        Truth.assertThat(db.getVersion()).isEqualTo(2);
+        Truth.assertThat(queryIndexes(db)).containsAtLeast("idx_events_policy", "idx_events_policy_type", "idx_events_created");
+
+        // back to version 1, which has no index
+        dbHelper.onDowngrade(db, 2, 1);
+        Truth.assertThat(queryIndexes(db)).containsNoneOf("idx_events_policy", "idx_events_policy_type", "idx_events_created");
+        try (Cursor cursor = db.query(EventDataTable.TABLE_EVENTS, null, null, null, null, null, null)) {
+            Truth.assertThat(cursor.getCount()).isEqualTo(1);
+        }
+        dbHelper.close();
+    }
+
+    private static List<String> queryIndexes(SQLiteDatabase db) {
+        List<String> indexes = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type='index' AND tbl_name=?",
+                new String[]{EventDataTable.TABLE_EVENTS})) {
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+        }
+        return indexes;
+    }
+
     @Test
     public void migrateTest() {
         trackerContext.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
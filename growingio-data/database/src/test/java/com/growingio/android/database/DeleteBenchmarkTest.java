@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.database;
+
+import android.app.Application;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.pm.ProviderInfo;
+import android.database.Cursor;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.Tracker;
+import com.growingio.android.sdk.track.middleware.GEvent;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * compare deleting events row by row with deleting them in one statement.
+ */
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DeleteBenchmarkTest {
+    private static final int[] ROW_COUNTS = {100, 1000, 10000};
+    private static final String EVENT_TYPE = "TRACK";
+
+    private final Application application = ApplicationProvider.getApplicationContext();
+    private EventDataManager dataManager;
+    private ContentResolver contentResolver;
+    private Uri uri;
+
+    @Before
+    public void setup() {
+        // run with ./gradlew test -Pbenchmark
+        Assume.assumeTrue(Boolean.getBoolean("growingio.benchmark"));
+        ProviderInfo providerInfo = new ProviderInfo();
+        providerInfo.authority = application.getPackageName() + "." + EventDataContentProvider.class.getSimpleName();
+        Robolectric.buildContentProvider(EventDataContentProvider.class).create(providerInfo).get();
+        dataManager = new EventDataManager(new Tracker(application).getContext());
+        contentResolver = application.getContentResolver();
+        uri = dataManager.getContentUri();
+    }
+
+    @Test
+    public void benchmark() {
+        for (int rows : ROW_COUNTS) {
+            long[] ids = insertRows(rows);
+            long start = System.nanoTime();
+            for (long id = ids[0]; id <= ids[1]; id++) {
+                contentResolver.delete(uri, EventDataTable.COLUMN_ID + "=?", new String[]{String.valueOf(id)});
+            }
+            long perRow = System.nanoTime() - start;
+            Truth.assertThat(countRows()).isEqualTo(0);
+
+            ids = insertRows(rows);
+            start = System.nanoTime();
+            int deleted = dataManager.removeEvents(ids[0], ids[1], GEvent.SEND_POLICY_MOBILE_DATA, EVENT_TYPE);
+            long batched = System.nanoTime() - start;
+            Truth.assertThat(deleted).isEqualTo(rows);
+            Truth.assertThat(countRows()).isEqualTo(0);
+
+            System.out.printf("delete %d rows: per-row %d ms, batched %d ms%n", rows, perRow / 1000_000, batched / 1000_000);
+        }
+    }
+
+    private long[] insertRows(int rows) {
+        ContentValues[] values = new ContentValues[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = EventDataTable.putValues(("event" + i).getBytes(), EVENT_TYPE, (int) GEvent.SEND_POLICY_MOBILE_DATA);
+        }
+        Truth.assertThat(contentResolver.bulkInsert(uri, values)).isEqualTo(rows);
+        try (Cursor cursor = contentResolver.query(uri, new String[]{"MIN(" + EventDataTable.COLUMN_ID + ")", "MAX(" + EventDataTable.COLUMN_ID + ")"},
+                null, null, null)) {
+            Truth.assertThat(cursor.moveToFirst()).isTrue();
+            return new long[]{cursor.getLong(0), cursor.getLong(1)};
+        }
+    }
+
+    private int countRows() {
+        try (Cursor cursor = contentResolver.query(uri, null, null, null, null)) {
+            return cursor.getCount();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+/**
+ * CRC-32C (Castagnoli) checksum used by snappy framing format,
+ * java.util.zip.CRC32C is only available since Android O.
+ */
+final class Crc32C {
+    private static final int POLYNOMIAL = 0x82F63B78;
+    private static final int MASK_DELTA = 0xa282ead8;
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+    }
+
+    private Crc32C() {
+    }
+
+    static int checksum(byte[] data, int offset, int length) {
+        int crc = 0xFFFFFFFF;
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return ~crc;
+    }
+
+    /**
+     * the checksum in framing format is masked, see https://github.com/google/snappy/blob/main/framing_format.txt
+     */
+    static int maskedChecksum(byte[] data, int offset, int length) {
+        int crc = checksum(data, offset, length);
+        return ((crc >>> 15) | (crc << 17)) + MASK_DELTA;
+    }
+}
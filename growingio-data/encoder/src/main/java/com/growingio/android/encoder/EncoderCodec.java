@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.growingio.android.sdk.track.middleware.http.EventStream;
+
+import java.io.IOException;
+
+/**
+ * compression codec of the request body, selected by {@link EncoderConfig#setCodec(EncoderCodec)}.
+ * the codec id is sent with header "X-Compress-Codec", so the collector can choose the decoder.
+ */
+public interface EncoderCodec {
+
+    /**
+     * value of header "X-Compress-Codec".
+     */
+    String getCodecId();
+
+    /**
+     * compress the data and encrypt it by xor with the key while writing.
+     */
+    EventStream encode(byte[] data, int key);
+
+    /**
+     * decrypt and uncompress the encoded data, used to verify the encoded body.
+     */
+    byte[] decode(byte[] encoded, int key) throws IOException;
+}
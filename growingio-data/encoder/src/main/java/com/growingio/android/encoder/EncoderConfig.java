@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.growingio.android.sdk.Configurable;
+
+public class EncoderConfig implements Configurable {
+
+    private boolean verifyEnabled = false;
+    private EncoderCodec codec = new SnappyCodec();
+
+    /**
+     * compression codec of the request body, default is {@link SnappyCodec}.
+     * make sure the collector supports the codec before changing it.
+     */
+    public EncoderConfig setCodec(EncoderCodec codec) {
+        if (codec != null) {
+            this.codec = codec;
+        }
+        return this;
+    }
+
+    public EncoderCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * decode the encoded request body and compare it with the source before sending,
+     * the body is sent without compression when they are mismatched. only used for debugging.
+     */
+    public EncoderConfig setVerifyEnabled(boolean verifyEnabled) {
+        this.verifyEnabled = verifyEnabled;
+        return this;
+    }
+
+    public boolean isVerifyEnabled() {
+        return verifyEnabled;
+    }
+}
@@ -15,11 +15,14 @@
  */
 package com.growingio.android.encoder;
 
+import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.http.EventEncoder;
+import com.growingio.android.sdk.track.middleware.http.EventStream;
 import com.growingio.android.sdk.track.middleware.http.EventUrl;
 import com.growingio.android.sdk.track.modelloader.DataFetcher;
-import com.growingio.android.snappy.Snappy;
-import com.growingio.android.snappy.XORUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * <p>
@@ -30,23 +33,53 @@ public class EncoderDataFetcher implements DataFetcher<EventEncoder> {
     private static final String TAG = "EncoderDataFetcher";
 
     private final EventEncoder eventEncoder;
+    private final boolean verifyEnabled;
+    private final EncoderCodec codec;
 
     public EncoderDataFetcher(EventEncoder eventEncoder) {
+        this(eventEncoder, null);
+    }
+
+    public EncoderDataFetcher(EventEncoder eventEncoder, EncoderConfig config) {
         this.eventEncoder = eventEncoder;
+        this.verifyEnabled = config != null && config.isVerifyEnabled();
+        this.codec = config != null ? config.getCodec() : new SnappyCodec();
     }
 
     @Override
     public EventEncoder executeData() {
         EventUrl eventUrl = eventEncoder.getEventUrl();
         long currentTimeMillis = eventUrl.getTime();
-        byte[] compressData = Snappy.compress(eventUrl.getRequestBody());
-        compressData = XORUtils.encrypt(compressData, (int) (currentTimeMillis & 0xFF));
-        eventUrl.setBodyData(compressData);
-        eventUrl.addHeader("X-Compress-Codec", "2");
+        byte[] data = eventUrl.getRequestBody();
+        if (data == null) {
+            return eventEncoder;
+        }
+        // compress and encrypt while writing to the connection, avoid copying the whole body.
+        int key = (int) (currentTimeMillis & 0xFF);
+        EventStream bodyStream = codec.encode(data, key);
+        if (verifyEnabled && !verify(codec, bodyStream, data, key)) {
+            Logger.e(TAG, "encoded data is mismatched with the source, send it without encoding.");
+            return eventEncoder;
+        }
+        eventUrl.setBodyStream(bodyStream);
+        eventUrl.addHeader("X-Compress-Codec", codec.getCodecId());
         eventUrl.addHeader("X-Crypt-Codec", "1");
         return eventEncoder;
     }
 
+    /**
+     * decrypt and uncompress the encoded body, then compare it with the source data.
+     */
+    static boolean verify(EncoderCodec codec, EventStream bodyStream, byte[] source, int key) {
+        try {
+            byte[] decoded = codec.decode(bodyStream.toByteArray(), key);
+            return Arrays.equals(decoded, source);
+        } catch (IOException e) {
+            Logger.e(TAG, e, "verify encoded data failed");
+            return false;
+        }
+    }
+
     @Override
     public Class<EventEncoder> getDataClass() {
         return EventEncoder.class;
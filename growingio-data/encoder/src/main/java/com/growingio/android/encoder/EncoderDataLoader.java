@@ -26,15 +26,31 @@ import com.growingio.android.sdk.track.modelloader.ModelLoaderFactory;
  */
 public class EncoderDataLoader implements ModelLoader<EventEncoder, EventEncoder> {
 
+    private final EncoderConfig config;
+
+    public EncoderDataLoader(EncoderConfig config) {
+        this.config = config;
+    }
+
     @Override
     public LoadData<EventEncoder> buildLoadData(EventEncoder eventEncoder) {
-        return new LoadData<>(new EncoderDataFetcher(eventEncoder));
+        return new LoadData<>(new EncoderDataFetcher(eventEncoder, config));
     }
 
     public static class Factory implements ModelLoaderFactory<EventEncoder, EventEncoder> {
+        private final EncoderConfig config;
+
+        public Factory() {
+            this(new EncoderConfig());
+        }
+
+        public Factory(EncoderConfig config) {
+            this.config = config;
+        }
+
         @Override
         public ModelLoader<EventEncoder, EventEncoder> build() {
-            return new EncoderDataLoader();
+            return new EncoderDataLoader(config);
         }
     }
 }
@@ -26,10 +26,14 @@ import com.growingio.sdk.annotation.GIOLibraryModule;
  *
  * @author cpacm 5/19/21
  */
-@GIOLibraryModule
+@GIOLibraryModule(config = EncoderConfig.class)
 public class EncoderLibraryGioModule extends LibraryGioModule {
     @Override
     public void registerComponents(TrackerContext context) {
-        context.getRegistry().register(EventEncoder.class, EventEncoder.class, new EncoderDataLoader.Factory());
+        EncoderConfig config = context.getConfigurationProvider().getConfiguration(EncoderConfig.class);
+        if (config == null) {
+            config = new EncoderConfig();
+        }
+        context.getRegistry().register(EventEncoder.class, EventEncoder.class, new EncoderDataLoader.Factory(config));
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import java.nio.charset.Charset;
+
+/**
+ * static preset dictionary of the common field names and values of events.
+ * deflate prefers the strings near the end of the dictionary, so the most frequent ones are placed last.
+ * the collector identifies the dictionary by its adler32 in the zlib header,
+ * so DO NOT CHANGE IT, add a new dictionary instead.
+ */
+final class EventDictionary {
+
+    private EventDictionary() {
+    }
+
+    private static final String DEFAULT_V1 =
+            // protobuf & less frequent fields
+            "google_advertising_idandroid_idoaidimeiorientationPORTRAITLANDSCAPEreferralPagequeryhyperlink"
+                    + "protocolTypeFORM_SUBMITVIEW_CHANGEACTIVATEAPP_CLOSEDCONVERSION_VARIABLES"
+                    + "LOGIN_USER_ATTRIBUTESVISITOR_ATTRIBUTESPAGE_ATTRIBUTESpageShowTimestamp"
+                    + "\"resourceItem\":{\"id\":\"\"key\":\"\"extraSdk\":{\"latitude\":\"longitude\":"
+                    // event specific fields
+                    + "\"eventName\":\"\"attributes\":{\"textValue\":\"\"xpath\":\"/MainWindow/DecorView\"xIndex\":\"/0"
+                    + "\"index\":\"title\":\"\"path\":\"/\"VIEW_CLICK\"PAGE\"CUSTOM\"VISIT\""
+                    // common fields of every event
+                    + "\"appChannel\":\"\"userKey\":\"\"userId\":\"\"gioId\":\"\"networkState\":\"WIFI\"networkState\":\"4G"
+                    + "\"appState\":\"BACKGROUND\"appState\":\"FOREGROUND\"urlScheme\":\"growing."
+                    + "\"timezoneOffset\":\"-480\"language\":\"zh_CN\"language\":\"en_US"
+                    + "\"screenHeight\":\"screenWidth\":\"deviceType\":\"PHONE\"deviceType\":\"PAD"
+                    + "\"deviceBrand\":\"\"deviceModel\":\"\"appName\":\"\"appVersion\":\"\"sdkVersion\":\"4."
+                    + "\"platform\":\"Android\"platformVersion\":\"\"dataSourceId\":\"\"domain\":\"com."
+                    + "\"eventSequenceId\":\"globalSequenceId\":\"sendTime\":\"timestamp\":"
+                    + "\"sessionId\":\"\"deviceId\":\"\"eventType\":\"";
+
+    static byte[] defaultDictionary() {
+        return DEFAULT_V1.getBytes(Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * 线程内复用的压缩输出缓冲区，按大小分级，从 8000 字节到 2048000 字节（一次上传请求的上限）
+ * 更大的缓冲区不复用
+ */
+final class OutputBufferRecycler {
+    private static final int MIN_OUTPUT_BUFFER = 8000;
+    private static final int OUTPUT_BUFFER_CLASSES = 9;
+
+    private static final ThreadLocal<SoftReference<OutputBufferRecycler>> RECYCLER_REF = new ThreadLocal<>();
+
+    private final byte[][] outputBuffers = new byte[OUTPUT_BUFFER_CLASSES][];
+
+    private OutputBufferRecycler() {
+    }
+
+    private static OutputBufferRecycler instance() {
+        SoftReference<OutputBufferRecycler> ref = RECYCLER_REF.get();
+        OutputBufferRecycler recycler = ref == null ? null : ref.get();
+        if (recycler == null) {
+            recycler = new OutputBufferRecycler();
+            RECYCLER_REF.set(new SoftReference<>(recycler));
+        }
+        return recycler;
+    }
+
+    /**
+     * @return a buffer of at least <code>minSize</code> bytes, its content is undefined.
+     * call {@link #release(byte[])} when it's no longer used.
+     */
+    static byte[] alloc(int minSize) {
+        int sizeClass = outputSizeClass(minSize);
+        if (sizeClass < 0) {
+            return new byte[minSize];
+        }
+        OutputBufferRecycler recycler = instance();
+        byte[] buf = recycler.outputBuffers[sizeClass];
+        if (buf == null) {
+            buf = new byte[MIN_OUTPUT_BUFFER << sizeClass];
+        } else {
+            recycler.outputBuffers[sizeClass] = null;
+        }
+        return buf;
+    }
+
+    static void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int sizeClass = outputSizeClass(buffer.length);
+        // only buffers allocated by size class can be recycled
+        if (sizeClass >= 0 && buffer.length == (MIN_OUTPUT_BUFFER << sizeClass)) {
+            instance().outputBuffers[sizeClass] = buffer;
+        }
+    }
+
+    private static int outputSizeClass(int size) {
+        for (int i = 0; i < OUTPUT_BUFFER_CLASSES; i++) {
+            if (size <= (MIN_OUTPUT_BUFFER << i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
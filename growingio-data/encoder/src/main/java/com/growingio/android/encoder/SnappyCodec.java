@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.growingio.android.sdk.track.middleware.http.EventStream;
+
+import java.io.IOException;
+
+/**
+ * default codec, raw snappy format.
+ */
+public class SnappyCodec implements EncoderCodec {
+    public static final String CODEC_ID = "2";
+
+    @Override
+    public String getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public EventStream encode(byte[] data, int key) {
+        return new SnappyEncodedStream(data, key);
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded, int key) throws IOException {
+        byte[] data = encoded.clone();
+        XorCipher.encrypt(data, 0, data.length, key);
+        try {
+            return SnappyDecompressor.uncompress(data, 0, data.length);
+        } catch (CorruptionException e) {
+            throw new IOException(e);
+        }
+    }
+}
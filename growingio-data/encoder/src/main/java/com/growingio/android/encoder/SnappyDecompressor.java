@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * raw snappy and framing format decoder, the published snappy 1.1.0 only has the compressor.
+ */
+final class SnappyDecompressor {
+    private static final int LITERAL = 0;
+    private static final int COPY_1_BYTE_OFFSET = 1;
+    private static final int COPY_2_BYTE_OFFSET = 2;
+
+    // framing format, see https://github.com/google/snappy/blob/main/framing_format.txt
+    static final byte[] STREAM_IDENTIFIER = {'s', 'N', 'a', 'P', 'p', 'Y'};
+    static final int CHUNK_STREAM_IDENTIFIER = 0xff;
+    static final int CHUNK_COMPRESSED = 0x00;
+    static final int CHUNK_UNCOMPRESSED = 0x01;
+    static final int CHUNK_PADDING = 0xfe;
+    static final int MAX_CHUNK_UNCOMPRESSED_SIZE = 65536;
+
+    private SnappyDecompressor() {
+    }
+
+    static int getUncompressedLength(byte[] compressed, int compressedOffset) {
+        return readUncompressedLength(compressed, compressedOffset, compressed.length)[0];
+    }
+
+    static byte[] uncompress(final byte[] compressed, final int compressedOffset, final int compressedSize) {
+        checkPositionIndexes(compressedOffset, compressedOffset + compressedSize, compressed.length);
+        int[] varInt = readUncompressedLength(compressed, compressedOffset, compressedOffset + compressedSize);
+        // a copy tag of 3 bytes emits at most 64 bytes, a larger recorded length must be corrupt
+        if (varInt[0] > (long) (compressedSize - varInt[1]) * 64 / 3) {
+            throw new CorruptionException(compressedOffset, "Recorded length " + varInt[0] + " is too large for " + compressedSize + " compressed bytes");
+        }
+        byte[] uncompressed = new byte[varInt[0]];
+        uncompress(compressed, compressedOffset, compressedSize, uncompressed, 0);
+        return uncompressed;
+    }
+
+    static int uncompress(
+            final byte[] compressed,
+            final int compressedOffset,
+            final int compressedSize,
+            final byte[] uncompressed,
+            final int uncompressedOffset) {
+        int compressedLimit = compressedOffset + compressedSize;
+        checkPositionIndexes(compressedOffset, compressedLimit, compressed.length);
+
+        // Read the uncompressed length from the front of the compressed input
+        int[] varInt = readUncompressedLength(compressed, compressedOffset, compressedLimit);
+        int expectedLength = varInt[0];
+        int ipIndex = compressedOffset + varInt[1];
+
+        checkPositionIndexes(uncompressedOffset, uncompressedOffset + expectedLength, uncompressed.length);
+        int opLimit = uncompressedOffset + expectedLength;
+        int opIndex = decompressAllTags(compressed, ipIndex, compressedLimit, uncompressed, uncompressedOffset, opLimit);
+
+        if (opIndex != opLimit) {
+            throw new CorruptionException("Recorded length is " + expectedLength + " bytes but actual length after decompression is " + (opIndex - uncompressedOffset) + " bytes");
+        }
+        return expectedLength;
+    }
+
+    /**
+     * uncompress the data written in snappy framing format, checksums are verified.
+     */
+    static byte[] uncompressFramed(final byte[] framed, final int offset, final int length) {
+        checkPositionIndexes(offset, offset + length, framed.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length * 2);
+        int index = offset;
+        int limit = offset + length;
+        boolean identified = false;
+        while (index < limit) {
+            if (index + 4 > limit) {
+                throw new CorruptionException(index, "Truncated chunk header");
+            }
+            int chunkType = framed[index] & 0xFF;
+            int chunkLength = (framed[index + 1] & 0xFF) | (framed[index + 2] & 0xFF) << 8 | (framed[index + 3] & 0xFF) << 16;
+            index += 4;
+            if (index + chunkLength > limit) {
+                throw new CorruptionException(index, "Truncated chunk");
+            }
+            if (chunkType == CHUNK_STREAM_IDENTIFIER) {
+                if (chunkLength != STREAM_IDENTIFIER.length
+                        || !equals(framed, index, STREAM_IDENTIFIER, chunkLength)) {
+                    throw new CorruptionException(index, "Invalid stream identifier");
+                }
+                identified = true;
+            } else if (!identified) {
+                throw new CorruptionException(index, "Missing stream identifier");
+            } else if (chunkType == CHUNK_COMPRESSED || chunkType == CHUNK_UNCOMPRESSED) {
+                if (chunkLength < 4) {
+                    throw new CorruptionException(index, "Chunk is too short");
+                }
+                int expectedCrc = loadInt(framed, index);
+                byte[] data;
+                int dataOffset;
+                int dataLength;
+                if (chunkType == CHUNK_COMPRESSED) {
+                    if (readUncompressedLength(framed, index + 4, index + chunkLength)[0] > MAX_CHUNK_UNCOMPRESSED_SIZE) {
+                        throw new CorruptionException(index, "Chunk is too large");
+                    }
+                    data = uncompress(framed, index + 4, chunkLength - 4);
+                    dataOffset = 0;
+                    dataLength = data.length;
+                } else {
+                    data = framed;
+                    dataOffset = index + 4;
+                    dataLength = chunkLength - 4;
+                }
+                if (dataLength > MAX_CHUNK_UNCOMPRESSED_SIZE) {
+                    throw new CorruptionException(index, "Chunk is too large");
+                }
+                if (Crc32C.maskedChecksum(data, dataOffset, dataLength) != expectedCrc) {
+                    throw new CorruptionException(index, "Checksum mismatch");
+                }
+                out.write(data, dataOffset, dataLength);
+            } else if (chunkType < 0x80) {
+                // reserved unskippable chunks
+                throw new CorruptionException(index, "Unsupported chunk type " + chunkType);
+            }
+            // reserved skippable chunks and padding are ignored
+            index += chunkLength;
+        }
+        return out.toByteArray();
+    }
+
+    private static int decompressAllTags(
+            final byte[] input,
+            int ipIndex,
+            final int ipLimit,
+            final byte[] output,
+            int opIndex,
+            final int opLimit) {
+        final int outputOffset = opIndex;
+        while (ipIndex < ipLimit) {
+            int tag = loadByte(input, ipIndex++);
+            int type = tag & 0x03;
+            int length;
+            if (type == LITERAL) {
+                length = tag >>> 2;
+                if (length >= 60) {
+                    // the length is stored in the following 1-4 bytes
+                    int bytes = length - 59;
+                    if (ipIndex + bytes > ipLimit) {
+                        throw new CorruptionException(ipIndex, "Truncated literal length");
+                    }
+                    length = 0;
+                    for (int i = 0; i < bytes; i++) {
+                        length |= loadByte(input, ipIndex + i) << (8 * i);
+                    }
+                    ipIndex += bytes;
+                }
+                length += 1;
+                if (length <= 0 || ipIndex + length > ipLimit || opIndex + length > opLimit) {
+                    throw new CorruptionException(ipIndex, "Invalid literal length " + length);
+                }
+                System.arraycopy(input, ipIndex, output, opIndex, length);
+                ipIndex += length;
+                opIndex += length;
+                continue;
+            }
+
+            int offset;
+            if (type == COPY_1_BYTE_OFFSET) {
+                if (ipIndex + 1 > ipLimit) {
+                    throw new CorruptionException(ipIndex, "Truncated copy");
+                }
+                length = 4 + ((tag >>> 2) & 0x07);
+                offset = ((tag & 0xE0) << 3) | loadByte(input, ipIndex);
+                ipIndex += 1;
+            } else if (type == COPY_2_BYTE_OFFSET) {
+                if (ipIndex + 2 > ipLimit) {
+                    throw new CorruptionException(ipIndex, "Truncated copy");
+                }
+                length = 1 + (tag >>> 2);
+                offset = loadByte(input, ipIndex) | loadByte(input, ipIndex + 1) << 8;
+                ipIndex += 2;
+            } else {
+                if (ipIndex + 4 > ipLimit) {
+                    throw new CorruptionException(ipIndex, "Truncated copy");
+                }
+                length = 1 + (tag >>> 2);
+                offset = loadInt(input, ipIndex);
+                ipIndex += 4;
+            }
+            if (offset <= 0 || offset > opIndex - outputOffset || opIndex + length > opLimit) {
+                throw new CorruptionException(ipIndex, "Invalid copy offset " + offset + " for length " + length);
+            }
+            // the source and destination may overlap, so copy byte by byte
+            int srcIndex = opIndex - offset;
+            for (int i = 0; i < length; i++) {
+                output[opIndex++] = output[srcIndex++];
+            }
+        }
+        return opIndex;
+    }
+
+    /**
+     * @return [uncompressed length, bytes of the varint]
+     */
+    private static int[] readUncompressedLength(byte[] compressed, int compressedOffset, int compressedLimit) {
+        int result = 0;
+        int bytesRead = 0;
+        while (true) {
+            if (compressedOffset + bytesRead >= compressedLimit) {
+                throw new CorruptionException(compressedOffset, "Truncated uncompressed length");
+            }
+            int b = compressed[compressedOffset + bytesRead] & 0xFF;
+            result |= (b & 0x7F) << (7 * bytesRead);
+            bytesRead++;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            if (bytesRead >= 5) {
+                throw new CorruptionException(compressedOffset, "Last byte of uncompressed length is malformed");
+            }
+        }
+        if (result < 0) {
+            throw new CorruptionException(compressedOffset, "Negative uncompressed length");
+        }
+        return new int[]{result, bytesRead};
+    }
+
+    private static int loadByte(byte[] data, int index) {
+        return data[index] & 0xFF;
+    }
+
+    private static int loadInt(byte[] data, int index) {
+        return (data[index] & 0xFF)
+                | (data[index + 1] & 0xFF) << 8
+                | (data[index + 2] & 0xFF) << 16
+                | (data[index + 3] & 0xFF) << 24;
+    }
+
+    private static boolean equals(byte[] left, int leftIndex, byte[] right, int length) {
+        for (int i = 0; i < length; i++) {
+            if (left[leftIndex + i] != right[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkPositionIndexes(int start, int end, int size) {
+        if (start < 0 || end < start || end > size) {
+            throw new IndexOutOfBoundsException("start index (" + start + "), end index (" + end + ") out of bounds for size " + size);
+        }
+    }
+}
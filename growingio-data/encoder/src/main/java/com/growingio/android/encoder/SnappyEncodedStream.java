@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.growingio.android.sdk.track.middleware.http.EventStream;
+import com.growingio.android.snappy.Snappy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * write data with snappy compression and xor encryption to the connection block by block,
+ * the output is the same as {@code XORUtils.encrypt(Snappy.compress(data), key)}.
+ * raw snappy format is the uncompressed length in varint followed by the compressed fragments,
+ * and each fragment is compressed independently.
+ */
+class SnappyEncodedStream extends EventStream {
+    // same as the block size of SnappyCompressor, DO NOT CHANGE IT.
+    private static final int BLOCK_SIZE = 1 << 15;
+
+    private final byte[] data;
+    private final int key;
+
+    SnappyEncodedStream(byte[] data, int key) {
+        this.data = data;
+        this.key = key;
+    }
+
+    @Override
+    protected long onWrite(OutputStream out) throws IOException {
+        // the block buffer is recycled by thread, so there is almost no garbage when uploading.
+        byte[] block = OutputBufferRecycler.alloc(Snappy.maxCompressedLength(Math.min(data.length, BLOCK_SIZE)));
+        try {
+            int headerSize = writeUncompressedLength(block, data.length);
+            XorCipher.encrypt(block, 0, headerSize, key);
+            out.write(block, 0, headerSize);
+            long written = headerSize;
+
+            for (int read = 0; read < data.length; read += BLOCK_SIZE) {
+                int length = Math.min(data.length - read, BLOCK_SIZE);
+                // compress one fragment, the leading varint of fragment length is skipped.
+                int size = Snappy.compress(data, read, length, block, 0);
+                int offset = varIntLength(length);
+                XorCipher.encrypt(block, offset, size - offset, key);
+                out.write(block, offset, size - offset);
+                written += size - offset;
+            }
+            out.flush();
+            return written;
+        } finally {
+            OutputBufferRecycler.release(block);
+        }
+    }
+
+    private static int writeUncompressedLength(byte[] buffer, int length) {
+        int index = 0;
+        while ((length & ~0x7F) != 0) {
+            buffer[index++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        buffer[index++] = (byte) length;
+        return index;
+    }
+
+    private static int varIntLength(int length) {
+        int size = 1;
+        while ((length & ~0x7F) != 0) {
+            length >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+/**
+ * 与 snappy 中 XORUtils.encrypt(byte[], int) 结果一致，但直接修改原数据，避免复制
+ */
+final class XorCipher {
+    private XorCipher() {
+    }
+
+    /**
+     * XOR异或算法加密，直接修改原数据
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 加密长度
+     * @param key    密钥
+     */
+    static void encrypt(byte[] data, int offset, int length, int key) {
+        if (data == null || length <= 0) {
+            return;
+        }
+        if (offset < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + " out of bounds for size " + data.length);
+        }
+        byte k = (byte) key;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 8 <= end; i += 8) {
+            data[i] ^= k;
+            data[i + 1] ^= k;
+            data[i + 2] ^= k;
+            data[i + 3] ^= k;
+            data[i + 4] ^= k;
+            data[i + 5] ^= k;
+            data[i + 6] ^= k;
+            data[i + 7] ^= k;
+        }
+        for (; i < end; i++) {
+            data[i] ^= k;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.events.AutotrackEventType;
+import com.growingio.android.sdk.track.events.CustomEvent;
+import com.growingio.android.sdk.track.events.PageEvent;
+import com.growingio.android.sdk.track.events.ViewElementEvent;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.providers.EventBuilderProvider;
+
+import org.json.JSONArray;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * measure the compression ratio and speed of the encoder codec per event type,
+ * and check the round trip of the encoded data.
+ */
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class CodecBenchmarkTest {
+    private static final int EVENT_COUNT = 100;
+    private static final int ROUNDS = 20;
+
+    @Before
+    public void setup() {
+        // run with ./gradlew test -Pbenchmark
+        Assume.assumeTrue(Boolean.getBoolean("growingio.benchmark"));
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        List<BaseEvent> customEvents = new ArrayList<>();
+        List<BaseEvent> pageEvents = new ArrayList<>();
+        List<BaseEvent> clickEvents = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            customEvents.add(new CustomEvent.Builder().setEventName("benchmark_" + i).build());
+            pageEvents.add(new PageEvent.Builder()
+                    .setPath("/MainActivity/Fragment" + i)
+                    .setTitle("benchmark")
+                    .setTimestamp(System.currentTimeMillis())
+                    .build());
+            clickEvents.add(new ViewElementEvent.Builder(AutotrackEventType.VIEW_CLICK)
+                    .setPath("/MainActivity")
+                    .setXpath("/MainWindow/LinearLayout/FrameLayout/RecyclerView/TextView")
+                    .setXIndex("/0/content/0/list/" + i)
+                    .setIndex(i)
+                    .setTextValue("item " + i)
+                    .build());
+        }
+        EncoderCodec[] codecs = {new SnappyCodec(), new DeflateDictionaryCodec()};
+        for (EncoderCodec codec : codecs) {
+            report(codec, "CUSTOM", measure(codec, toJson(customEvents)));
+            report(codec, "PAGE", measure(codec, toJson(pageEvents)));
+            report(codec, "VIEW_CLICK", measure(codec, toJson(clickEvents)));
+        }
+    }
+
+    private static byte[] toJson(List<BaseEvent> events) {
+        JSONArray array = new JSONArray();
+        for (BaseEvent event : events) {
+            array.put(EventBuilderProvider.toJson(event));
+        }
+        return array.toString().getBytes();
+    }
+
+    private static long[] measure(EncoderCodec codec, byte[] data) throws IOException {
+        int key = 0x5A;
+        byte[] encoded = null;
+        long encodeTime = 0L;
+        long decodeTime = 0L;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            codec.encode(data, key).writeTo(out);
+            encoded = out.toByteArray();
+            encodeTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            byte[] decoded = codec.decode(encoded, key);
+            decodeTime += System.nanoTime() - start;
+            Truth.assertThat(decoded).isEqualTo(data);
+        }
+        return new long[]{data.length, encoded.length, encodeTime / ROUNDS, decodeTime / ROUNDS};
+    }
+
+    private static void report(EncoderCodec codec, String eventType, long[] result) {
+        Truth.assertThat(result[1]).isLessThan(result[0]);
+        System.out.printf("%s %s: %d -> %d bytes, ratio %.2f, encode %d us, decode %d us%n",
+                codec.getClass().getSimpleName(), eventType, result[0], result[1], (double) result[1] / result[0], result[2] / 1000, result[3] / 1000);
+    }
+}
@@ -29,6 +29,10 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
 @Config(manifest = Config.NONE)
 @RunWith(RobolectricTestRunner.class)
 public class EncoderTest {
@@ -48,9 +52,74 @@ public class EncoderTest {
         Truth.assertThat(dataFetcher.getDataClass()).isAssignableTo(EventEncoder.class);
         EventEncoder data = dataFetcher.executeData();
         EventUrl eurl = data.getEventUrl();
+        Truth.assertThat(eurl.getBodyStream()).isNotNull();
         byte[] compressData = Snappy.compress("cpacm".getBytes());
         compressData = XORUtils.encrypt(compressData, (int) (eventUrl.getTime() & 0xFF));
         Truth.assertThat(eurl.getRequestBody()).isEqualTo(compressData);
     }
 
+    @Test
+    public void encoderLargeData() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("{\"eventName\":\"cpacm").append(i).append("\"}");
+        }
+        byte[] body = sb.toString().getBytes();
+        EventUrl eventUrl = new EventUrl("https://localhost", 10000L)
+                .setBodyData(body);
+        EventEncoder data = new EncoderDataFetcher(new EventEncoder(eventUrl)).executeData();
+        byte[] compressData = Snappy.compress(body);
+        compressData = XORUtils.encrypt(compressData, (int) (eventUrl.getTime() & 0xFF));
+        Truth.assertThat(data.getEventUrl().getRequestBody()).isEqualTo(compressData);
+        Truth.assertThat(data.getEventUrl().getBodyStream().getContentWritten()).isEqualTo((long) compressData.length);
+    }
+
+    @Test
+    public void encoderVerify() {
+        byte[] body = "cpacm verify cpacm verify".getBytes();
+        EventUrl eventUrl = new EventUrl("https://localhost", 10000L)
+                .setBodyData(body);
+        EncoderDataLoader.Factory factory = new EncoderDataLoader.Factory(new EncoderConfig().setVerifyEnabled(true));
+        EventEncoder data = factory.build().buildLoadData(new EventEncoder(eventUrl)).fetcher.executeData();
+        Truth.assertThat(data.getEventUrl().getHeaders().get("X-Compress-Codec")).isEqualTo("2");
+
+        byte[] encoded = data.getEventUrl().getRequestBody();
+        XorCipher.encrypt(encoded, 0, encoded.length, (int) (eventUrl.getTime() & 0xFF));
+        Truth.assertThat(SnappyDecompressor.uncompress(encoded, 0, encoded.length)).isEqualTo(body);
+
+        Truth.assertThat(EncoderDataFetcher.verify(new SnappyCodec(), new SnappyEncodedStream(body, 1), body, 2)).isFalse();
+    }
+
+    @Test
+    public void encoderDeflateDictionary() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            sb.append("{\"deviceId\":\"7a2f\",\"eventType\":\"CUSTOM\",\"platform\":\"Android\",\"eventName\":\"cpacm")
+                    .append(i).append("\"},");
+        }
+        byte[] body = sb.append("]").toString().getBytes();
+        EventUrl eventUrl = new EventUrl("https://localhost", 10000L)
+                .setBodyData(body);
+        EncoderConfig config = new EncoderConfig().setCodec(new DeflateDictionaryCodec()).setVerifyEnabled(true);
+        EventEncoder data = new EncoderDataFetcher(new EventEncoder(eventUrl), config).executeData();
+        Truth.assertThat(data.getEventUrl().getHeaders().get("X-Compress-Codec")).isEqualTo(DeflateDictionaryCodec.CODEC_ID);
+
+        int key = (int) (eventUrl.getTime() & 0xFF);
+        byte[] encoded = data.getEventUrl().getRequestBody();
+        Truth.assertThat(config.getCodec().decode(encoded, key)).isEqualTo(body);
+        Truth.assertThat(encoded.length).isLessThan(new SnappyCodec().encode(body, key).toByteArray().length);
+
+        // the dictionary is required to decode
+        byte[] decrypted = encoded.clone();
+        XorCipher.encrypt(decrypted, 0, decrypted.length, key);
+        Inflater inflater = new Inflater();
+        inflater.setInput(decrypted);
+        try {
+            Truth.assertThat(inflater.inflate(new byte[body.length])).isEqualTo(0);
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        Truth.assertThat(inflater.needsDictionary()).isTrue();
+        inflater.end();
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.encoder;
+
+import com.growingio.android.snappy.Snappy;
+import com.growingio.android.snappy.XORUtils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SnappyDecompressorTest {
+
+    @Test
+    public void encryptInPlaceTest() {
+        byte[] data = "this is xor encrypt test data".getBytes();
+        byte[] expected = XORUtils.encrypt(data, 0x5A);
+        XorCipher.encrypt(data, 0, data.length, 0x5A);
+        assertThat(data).isEqualTo(expected);
+
+        byte[] partData = "cpacm_xor".getBytes();
+        XorCipher.encrypt(partData, 2, 3, 0x5A);
+        XorCipher.encrypt(partData, 2, 3, 0x5A);
+        assertThat(new String(partData)).isEqualTo("cpacm_xor");
+    }
+
+    @Test
+    public void bufferRecyclerTest() {
+        byte[] buffer = OutputBufferRecycler.alloc(100);
+        assertThat(buffer.length).isAtLeast(100);
+        OutputBufferRecycler.release(buffer);
+        assertThat(OutputBufferRecycler.alloc(200)).isSameInstanceAs(buffer);
+        assertThat(OutputBufferRecycler.alloc(200)).isNotSameInstanceAs(buffer);
+
+        byte[] large = OutputBufferRecycler.alloc(20000);
+        assertThat(large.length).isAtLeast(20000);
+        OutputBufferRecycler.release(large);
+        assertThat(OutputBufferRecycler.alloc(10000)).isNotSameInstanceAs(large);
+        assertThat(OutputBufferRecycler.alloc(20000)).isSameInstanceAs(large);
+
+        byte[] data = "cpacm cpacm cpacm cpacm cpacm".getBytes();
+        byte[] compressedOut = OutputBufferRecycler.alloc(Snappy.maxCompressedLength(data.length));
+        int size = Snappy.compress(data, 0, data.length, compressedOut, 0);
+        assertThat(Arrays.copyOf(compressedOut, size)).isEqualTo(Snappy.compress(data));
+        OutputBufferRecycler.release(compressedOut);
+    }
+
+    @Test
+    public void uncompressTest() {
+        String content = "this is snappy uncompress test data: cpacm cpacm cpacm\n";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append(content).append(i);
+        }
+        byte[] data = sb.toString().getBytes();
+        byte[] compressed = Snappy.compress(data);
+        assertThat(SnappyDecompressor.getUncompressedLength(compressed, 0)).isEqualTo(data.length);
+        assertThat(SnappyDecompressor.uncompress(compressed, 0, compressed.length)).isEqualTo(data);
+
+        byte[] uncompressed = new byte[data.length + 10];
+        int length = SnappyDecompressor.uncompress(compressed, 0, compressed.length, uncompressed, 10);
+        assertThat(length).isEqualTo(data.length);
+        assertThat(Arrays.copyOfRange(uncompressed, 10, uncompressed.length)).isEqualTo(data);
+
+        byte[] empty = Snappy.compress(new byte[0]);
+        assertThat(SnappyDecompressor.uncompress(empty, 0, empty.length)).hasLength(0);
+
+        try {
+            SnappyDecompressor.uncompress(compressed, 0, compressed.length / 2);
+            assertThat(true).isFalse();
+        } catch (CorruptionException e) {
+            assertThat(e).hasMessageThat().isNotEmpty();
+        }
+    }
+
+    @Test
+    public void uncompressFramedTest() {
+        byte[] data = "cpacm framed cpacm framed cpacm framed".getBytes();
+        byte[] compressed = Snappy.compress(data);
+        byte[] framed = new byte[10 + 8 + compressed.length + 8 + data.length];
+        int index = writeChunkHeader(framed, 0, SnappyDecompressor.CHUNK_STREAM_IDENTIFIER, 6);
+        System.arraycopy(SnappyDecompressor.STREAM_IDENTIFIER, 0, framed, index, 6);
+        index += 6;
+        index = writeChunkHeader(framed, index, SnappyDecompressor.CHUNK_COMPRESSED, compressed.length + 4);
+        index = writeInt(framed, index, Crc32C.maskedChecksum(data, 0, data.length));
+        System.arraycopy(compressed, 0, framed, index, compressed.length);
+        index += compressed.length;
+        index = writeChunkHeader(framed, index, SnappyDecompressor.CHUNK_UNCOMPRESSED, data.length + 4);
+        index = writeInt(framed, index, Crc32C.maskedChecksum(data, 0, data.length));
+        System.arraycopy(data, 0, framed, index, data.length);
+
+        byte[] expected = new byte[data.length * 2];
+        System.arraycopy(data, 0, expected, 0, data.length);
+        System.arraycopy(data, 0, expected, data.length, data.length);
+        assertThat(SnappyDecompressor.uncompressFramed(framed, 0, framed.length)).isEqualTo(expected);
+
+        framed[framed.length - 1] ^= 1;
+        try {
+            SnappyDecompressor.uncompressFramed(framed, 0, framed.length);
+            assertThat(true).isFalse();
+        } catch (CorruptionException e) {
+            assertThat(e).hasMessageThat().contains("Checksum mismatch");
+        }
+        assertThat(Crc32C.checksum("123456789".getBytes(), 0, 9)).isEqualTo(0xE3069283);
+    }
+
+    @Test
+    public void uncompressOversizeLengthTest() {
+        // recorded length is about 2GB
+        byte[] corrupt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x00, 0x01};
+        try {
+            SnappyDecompressor.uncompress(corrupt, 0, corrupt.length);
+            assertThat(true).isFalse();
+        } catch (CorruptionException e) {
+            assertThat(e).hasMessageThat().contains("too large");
+        }
+
+        byte[] data = new byte[SnappyDecompressor.MAX_CHUNK_UNCOMPRESSED_SIZE + 1];
+        byte[] compressed = Snappy.compress(data);
+        byte[] framed = new byte[10 + 8 + compressed.length];
+        int index = writeChunkHeader(framed, 0, SnappyDecompressor.CHUNK_STREAM_IDENTIFIER, 6);
+        System.arraycopy(SnappyDecompressor.STREAM_IDENTIFIER, 0, framed, index, 6);
+        index += 6;
+        index = writeChunkHeader(framed, index, SnappyDecompressor.CHUNK_COMPRESSED, compressed.length + 4);
+        index = writeInt(framed, index, Crc32C.maskedChecksum(data, 0, data.length));
+        System.arraycopy(compressed, 0, framed, index, compressed.length);
+        try {
+            SnappyDecompressor.uncompressFramed(framed, 0, framed.length);
+            assertThat(true).isFalse();
+        } catch (CorruptionException e) {
+            assertThat(e).hasMessageThat().contains("Chunk is too large");
+        }
+    }
+
+    private static int writeChunkHeader(byte[] out, int index, int type, int length) {
+        out[index] = (byte) type;
+        out[index + 1] = (byte) length;
+        out[index + 2] = (byte) (length >>> 8);
+        out[index + 3] = (byte) (length >>> 16);
+        return index + 4;
+    }
+
+    private static int writeInt(byte[] out, int index, int value) {
+        out[index] = (byte) value;
+        out[index + 1] = (byte) (value >>> 8);
+        out[index + 2] = (byte) (value >>> 16);
+        out[index + 3] = (byte) (value >>> 24);
+        return index + 4;
+    }
+}
@@ -25,9 +25,12 @@ import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.middleware.format.FormatDataFetcher;
 import com.growingio.android.sdk.track.providers.EventBuilderProvider;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,11 +40,26 @@ import java.util.List;
  */
 public class JsonDataFetcher implements FormatDataFetcher<EventByteArray> {
     private static final String TAG = "JsonDataFetcher";
+    static final String MEDIA_TYPE_BATCH = "application/json; format=batch";
+
+    // invariant fields of BaseEvent which could be moved to the envelope
+    private static final String[] ENVELOPE_KEYS = {
+            "deviceId", "userId", "userKey", "sessionId", "dataSourceId", "platform", "platformVersion",
+            "domain", "urlScheme", "appState", "networkState", "appChannel", "screenHeight", "screenWidth",
+            "deviceBrand", "deviceModel", "deviceType", "appName", "appVersion", "language", "sdkVersion",
+            "timezoneOffset",
+    };
 
     private final EventFormatData eventData;
+    private final boolean batchFormatEnabled;
 
     public JsonDataFetcher(EventFormatData eventData) {
+        this(eventData, null);
+    }
+
+    public JsonDataFetcher(EventFormatData eventData, JsonConfig config) {
         this.eventData = eventData;
+        this.batchFormatEnabled = config != null && config.isBatchFormatEnabled();
     }
 
     @Override
@@ -64,19 +82,76 @@ public class JsonDataFetcher implements FormatDataFetcher<EventByteArray> {
     @Override
     public EventByteArray format(GEvent gEvent) {
         if (gEvent instanceof BaseEvent) {
-            JSONObject eventJson = EventBuilderProvider.toJson((BaseEvent) gEvent);
-            return new EventByteArray(eventJson.toString().getBytes(), "application/json");
+            return new EventByteArray(EventBuilderProvider.toJsonBytes((BaseEvent) gEvent), "application/json");
         }
         return new EventByteArray(null);
     }
 
     @Override
     public EventByteArray merge(List<byte[]> events) {
-        String data = marshall(events);
+        String mediaType = "application/json";
+        String data = null;
+        if (batchFormatEnabled) {
+            data = marshallBatch(events);
+            if (data != null) mediaType = MEDIA_TYPE_BATCH;
+        }
+        if (data == null) {
+            data = marshall(events);
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            return new EventByteArray(data.getBytes(StandardCharsets.UTF_8), "application/json");
+            return new EventByteArray(data.getBytes(StandardCharsets.UTF_8), mediaType);
         } else {
-            return new EventByteArray(data.getBytes(), "application/json");
+            return new EventByteArray(data.getBytes(), mediaType);
+        }
+    }
+
+    /**
+     * the fields with the same value in all events are moved to the envelope,
+     * return null to fallback to json array when events can't be merged.
+     */
+    private String marshallBatch(List<byte[]> events) {
+        if (events == null || events.isEmpty()) {
+            return null;
+        }
+        try {
+            List<JSONObject> values = new ArrayList<>(events.size());
+            for (byte[] data : events) {
+                if (data.length > 0 && data[0] == '{' && data[data.length - 1] == '}') {
+                    values.add(new JSONObject(new String(data)));
+                } else {
+                    Logger.e(TAG, "Events in the database are not in the JSON format");
+                }
+            }
+            if (values.isEmpty()) {
+                return null;
+            }
+            JSONObject first = values.get(0);
+            JSONObject envelope = new JSONObject();
+            for (String key : ENVELOPE_KEYS) {
+                Object value = first.opt(key);
+                if (value == null) continue;
+                boolean same = true;
+                for (int i = 1; i < values.size() && same; i++) {
+                    same = value.equals(values.get(i).opt(key));
+                }
+                if (same) {
+                    envelope.put(key, value);
+                    for (JSONObject event : values) {
+                        event.remove(key);
+                    }
+                }
+            }
+            JSONArray array = new JSONArray();
+            for (JSONObject event : values) {
+                array.put(event);
+            }
+            JSONObject batch = new JSONObject();
+            batch.put("envelope", envelope);
+            batch.put("values", array);
+            return batch.toString();
+        } catch (JSONException e) {
+            Logger.e(TAG, e, "merge events as batch failed");
+            return null;
         }
     }
 
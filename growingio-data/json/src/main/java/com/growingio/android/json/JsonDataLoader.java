@@ -27,15 +27,31 @@ import com.growingio.android.sdk.track.modelloader.ModelLoaderFactory;
  */
 public class JsonDataLoader implements ModelLoader<EventFormatData, EventByteArray> {
 
+    private final JsonConfig config;
+
+    public JsonDataLoader(JsonConfig config) {
+        this.config = config;
+    }
+
     @Override
     public LoadData<EventByteArray> buildLoadData(EventFormatData eventData) {
-        return new LoadData<>(new JsonDataFetcher(eventData));
+        return new LoadData<>(new JsonDataFetcher(eventData, config));
     }
 
     public static class Factory implements ModelLoaderFactory<EventFormatData, EventByteArray> {
+        private final JsonConfig config;
+
+        public Factory() {
+            this(new JsonConfig());
+        }
+
+        public Factory(JsonConfig config) {
+            this.config = config;
+        }
+
         @Override
         public ModelLoader<EventFormatData, EventByteArray> build() {
-            return new JsonDataLoader();
+            return new JsonDataLoader(config);
         }
     }
 }
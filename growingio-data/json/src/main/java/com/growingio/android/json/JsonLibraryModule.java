@@ -27,10 +27,14 @@ import com.growingio.sdk.annotation.GIOLibraryModule;
  *
  * @author cpacm 5/19/21
  */
-@GIOLibraryModule
+@GIOLibraryModule(config = JsonConfig.class)
 public class JsonLibraryModule extends LibraryGioModule {
     @Override
     public void registerComponents(TrackerContext context) {
-        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new JsonDataLoader.Factory());
+        JsonConfig config = context.getConfigurationProvider().getConfiguration(JsonConfig.class);
+        if (config == null) {
+            config = new JsonConfig();
+        }
+        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new JsonDataLoader.Factory(config));
     }
 }
@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 import com.google.common.truth.Truth;
+import com.growingio.android.json.JsonConfig;
 import com.growingio.android.json.JsonDataFetcher;
 import com.growingio.android.sdk.track.events.CustomEvent;
 import com.growingio.android.sdk.track.middleware.format.EventFormatData;
@@ -88,4 +89,32 @@ public class JsonDataTest {
 
     }
 
+    @Test
+    public void dataMergeBatch() throws JSONException {
+        ArrayList<byte[]> arrayList = new ArrayList<>();
+        CustomEvent customEvent = new CustomEvent.Builder()
+                .setEventName("merge")
+                .build();
+        CustomEvent customEvent2 = new CustomEvent.Builder()
+                .setEventName("cpacm")
+                .build();
+        arrayList.add(EventBuilderProvider.toJson(customEvent).toString().getBytes());
+        arrayList.add(EventBuilderProvider.toJson(customEvent2).toString().getBytes());
+
+        EventFormatData eventData = EventFormatData.merge(arrayList);
+        DataFetcher<EventByteArray> dataFetcher = new JsonDataFetcher(eventData, new JsonConfig().setBatchFormatEnabled(true));
+        EventByteArray data = dataFetcher.executeData();
+        Truth.assertThat(data.getMediaType()).isEqualTo("application/json; format=batch");
+
+        JSONObject batch = new JSONObject(new String(data.getBodyData()));
+        JSONObject envelope = batch.getJSONObject("envelope");
+        JSONArray values = batch.getJSONArray("values");
+        Truth.assertThat(values.length()).isEqualTo(2);
+        Truth.assertThat(envelope.optString("platform")).isEqualTo(customEvent.getPlatform());
+        Truth.assertThat(envelope.has("eventName")).isFalse();
+        Truth.assertThat(values.getJSONObject(0).has("platform")).isFalse();
+        Truth.assertThat(values.getJSONObject(0).optString("eventName")).isEqualTo("merge");
+        Truth.assertThat(values.getJSONObject(1).optString("eventName")).isEqualTo("cpacm");
+    }
 }
+
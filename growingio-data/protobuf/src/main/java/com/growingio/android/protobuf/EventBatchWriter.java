@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * write serialized EventV3Dto list as EventV3Batch.
+ * the invariant fields are compared and moved to envelope in wire format, no event need to be parsed.
+ */
+final class EventBatchWriter {
+
+    private EventBatchWriter() {
+    }
+
+    private static final int[] ENVELOPE_FIELDS = {
+            EventV3Protocol.EventV3Dto.DEVICE_ID_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.USER_ID_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.SESSION_ID_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.DATA_SOURCE_ID_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.PLATFORM_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.DOMAIN_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.SCREEN_HEIGHT_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.SCREEN_WIDTH_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.LANGUAGE_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.SDK_VERSION_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.APP_VERSION_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.URL_SCHEME_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.APP_STATE_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.NETWORK_STATE_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.APP_CHANNEL_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.PLATFORM_VERSION_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.DEVICE_BRAND_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.DEVICE_MODEL_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.DEVICE_TYPE_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.APP_NAME_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.USER_KEY_FIELD_NUMBER,
+            EventV3Protocol.EventV3Dto.TIMEZONE_OFFSET_FIELD_NUMBER,
+    };
+
+    private static final int[] FIELD_SLOTS = new int[64];
+
+    private static final int ABSENT = -1;
+    private static final int DUPLICATED = -2;
+
+    static {
+        Arrays.fill(FIELD_SLOTS, ABSENT);
+        for (int i = 0; i < ENVELOPE_FIELDS.length; i++) {
+            FIELD_SLOTS[ENVELOPE_FIELDS[i]] = i;
+        }
+    }
+
+    static byte[] write(List<byte[]> values) throws IOException {
+        int count = values.size();
+        int slots = ENVELOPE_FIELDS.length;
+        int[][] spans = new int[count][];
+        for (int i = 0; i < count; i++) {
+            spans[i] = scan(values.get(i));
+        }
+
+        // a field is moved to envelope only when it has the same bytes in all events
+        byte[] first = values.get(0);
+        boolean[] hoisted = new boolean[slots];
+        int envelopeSize = 0;
+        for (int s = 0; s < slots; s++) {
+            int start = spans[0][s * 2];
+            if (start < 0) continue;
+            int length = spans[0][s * 2 + 1] - start;
+            boolean same = true;
+            for (int i = 1; i < count && same; i++) {
+                int other = spans[i][s * 2];
+                same = other >= 0 && spans[i][s * 2 + 1] - other == length
+                        && rangeEquals(first, start, values.get(i), other, length);
+            }
+            if (same) {
+                hoisted[s] = true;
+                envelopeSize += length;
+            }
+        }
+
+        // hoisted fields have the same length in every event
+        int size = 0;
+        if (envelopeSize > 0) {
+            size += CodedOutputStream.computeTagSize(EventV3Protocol.EventV3Batch.ENVELOPE_FIELD_NUMBER)
+                    + CodedOutputStream.computeUInt32SizeNoTag(envelopeSize) + envelopeSize;
+        }
+        for (byte[] value : values) {
+            int valueSize = value.length - envelopeSize;
+            size += CodedOutputStream.computeTagSize(EventV3Protocol.EventV3Batch.VALUES_FIELD_NUMBER)
+                    + CodedOutputStream.computeUInt32SizeNoTag(valueSize) + valueSize;
+        }
+
+        byte[] result = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(result);
+        if (envelopeSize > 0) {
+            output.writeTag(EventV3Protocol.EventV3Batch.ENVELOPE_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(envelopeSize);
+            for (int s = 0; s < slots; s++) {
+                if (hoisted[s]) {
+                    output.writeRawBytes(first, spans[0][s * 2], spans[0][s * 2 + 1] - spans[0][s * 2]);
+                }
+            }
+        }
+        int[] skips = new int[slots];
+        for (int i = 0; i < count; i++) {
+            byte[] value = values.get(i);
+            output.writeTag(EventV3Protocol.EventV3Batch.VALUES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(value.length - envelopeSize);
+            int skipCount = 0;
+            for (int s = 0; s < slots; s++) {
+                if (hoisted[s]) skips[skipCount++] = s;
+            }
+            sortByStart(skips, skipCount, spans[i]);
+            int position = 0;
+            for (int k = 0; k < skipCount; k++) {
+                int start = spans[i][skips[k] * 2];
+                output.writeRawBytes(value, position, start - position);
+                position = spans[i][skips[k] * 2 + 1];
+            }
+            output.writeRawBytes(value, position, value.length - position);
+        }
+        output.checkNoSpaceLeft();
+        return result;
+    }
+
+    /**
+     * find the [start, end) of each envelope field in the serialized event.
+     */
+    private static int[] scan(byte[] value) throws IOException {
+        int[] span = new int[ENVELOPE_FIELDS.length * 2];
+        Arrays.fill(span, ABSENT);
+        CodedInputStream input = CodedInputStream.newInstance(value);
+        while (true) {
+            int start = input.getTotalBytesRead();
+            int tag = input.readTag();
+            if (tag == 0) break;
+            int field = WireFormat.getTagFieldNumber(tag);
+            input.skipField(tag);
+            int slot = field < FIELD_SLOTS.length ? FIELD_SLOTS[field] : ABSENT;
+            if (slot == ABSENT) continue;
+            if (span[slot * 2] == ABSENT) {
+                span[slot * 2] = start;
+                span[slot * 2 + 1] = input.getTotalBytesRead();
+            } else {
+                // repeated occurrence would be overridden by the envelope, keep it in the event
+                span[slot * 2] = DUPLICATED;
+            }
+        }
+        return span;
+    }
+
+    private static void sortByStart(int[] slots, int count, int[] span) {
+        for (int i = 1; i < count; i++) {
+            int slot = slots[i];
+            int j = i - 1;
+            while (j >= 0 && span[slots[j] * 2] > span[slot * 2]) {
+                slots[j + 1] = slots[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+        }
+    }
+
+    private static boolean rangeEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) return false;
+        }
+        return true;
+    }
+}
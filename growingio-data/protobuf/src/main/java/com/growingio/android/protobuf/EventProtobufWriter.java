@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.growingio.android.protobuf.EventV3Protocol.EventV3Dto;
+import com.growingio.android.sdk.track.events.ActivateEvent;
+import com.growingio.android.sdk.track.events.CustomEvent;
+import com.growingio.android.sdk.track.events.PageEvent;
+import com.growingio.android.sdk.track.events.PageLevelCustomEvent;
+import com.growingio.android.sdk.track.events.ViewElementEvent;
+import com.growingio.android.sdk.track.events.VisitEvent;
+import com.growingio.android.sdk.track.events.base.BaseAttributesEvent;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.events.hybrid.HybridCustomEvent;
+import com.growingio.android.sdk.track.events.hybrid.HybridPageEvent;
+import com.growingio.android.sdk.track.events.hybrid.HybridViewElementEvent;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * write BaseEvent as EventV3Dto in wire format without building the message.
+ * the fields are visited twice in field number order: the first pass computes the exact size,
+ * the second pass writes into the result array. proto3 default values are skipped as the lite runtime does.
+ */
+final class EventProtobufWriter {
+
+    private EventProtobufWriter() {
+    }
+
+    static byte[] write(BaseEvent event, int eventType) {
+        try {
+            SizeCounter counter = new SizeCounter();
+            visit(event, eventType, counter);
+            byte[] result = new byte[counter.size];
+            CodedOutputStream output = CodedOutputStream.newInstance(result);
+            visit(event, eventType, new StreamWriter(output));
+            output.checkNoSpaceLeft();
+            return result;
+        } catch (IOException e) {
+            // the size is computed from the same fields, should never happen
+            throw new IllegalStateException("Serializing event to a byte array threw an IOException", e);
+        }
+    }
+
+    private static void visit(BaseEvent event, int eventType, FieldVisitor out) throws IOException {
+        ViewElementEvent vEvent = event instanceof ViewElementEvent ? (ViewElementEvent) event : null;
+        PageEvent pageEvent = event instanceof PageEvent ? (PageEvent) event : null;
+        PageLevelCustomEvent plEvent = event instanceof PageLevelCustomEvent ? (PageLevelCustomEvent) event : null;
+        VisitEvent visitEvent = event instanceof VisitEvent ? (VisitEvent) event : null;
+        ActivateEvent activateEvent = event instanceof ActivateEvent ? (ActivateEvent) event : null;
+
+        out.string(EventV3Dto.DEVICE_ID_FIELD_NUMBER, event.getDeviceId());
+        out.string(EventV3Dto.USER_ID_FIELD_NUMBER, event.getUserId());
+        out.string(EventV3Dto.SESSION_ID_FIELD_NUMBER, event.getSessionId());
+        out.string(EventV3Dto.DATA_SOURCE_ID_FIELD_NUMBER, event.getDataSourceId());
+        out.int32(EventV3Dto.EVENT_TYPE_FIELD_NUMBER, eventType);
+        out.string(EventV3Dto.PLATFORM_FIELD_NUMBER, event.getPlatform());
+        out.int64(EventV3Dto.TIMESTAMP_FIELD_NUMBER, event.getTimestamp());
+        out.string(EventV3Dto.DOMAIN_FIELD_NUMBER, event.getDomain());
+
+        if (vEvent != null) {
+            out.string(EventV3Dto.PATH_FIELD_NUMBER, vEvent.getPath());
+        } else if (pageEvent != null) {
+            out.string(EventV3Dto.PATH_FIELD_NUMBER, pageEvent.getPath());
+        } else if (plEvent != null) {
+            out.string(EventV3Dto.PATH_FIELD_NUMBER, plEvent.getPath());
+        }
+        if (event instanceof HybridCustomEvent) {
+            out.string(EventV3Dto.QUERY_FIELD_NUMBER, ((HybridCustomEvent) event).getQuery());
+        } else if (event instanceof HybridPageEvent) {
+            out.string(EventV3Dto.QUERY_FIELD_NUMBER, ((HybridPageEvent) event).getQuery());
+        } else if (event instanceof HybridViewElementEvent) {
+            out.string(EventV3Dto.QUERY_FIELD_NUMBER, ((HybridViewElementEvent) event).getQuery());
+        }
+        if (pageEvent != null) {
+            out.string(EventV3Dto.TITLE_FIELD_NUMBER, pageEvent.getTitle());
+            out.string(EventV3Dto.REFERRAL_PAGE_FIELD_NUMBER, pageEvent.getReferralPage());
+        }
+
+        out.int32(EventV3Dto.EVENT_SEQUENCE_ID_FIELD_NUMBER, (int) event.getEventSequenceId());
+        out.int32(EventV3Dto.SCREEN_HEIGHT_FIELD_NUMBER, event.getScreenHeight());
+        out.int32(EventV3Dto.SCREEN_WIDTH_FIELD_NUMBER, event.getScreenWidth());
+        out.string(EventV3Dto.LANGUAGE_FIELD_NUMBER, event.getLanguage());
+        out.string(EventV3Dto.SDK_VERSION_FIELD_NUMBER, event.getSdkVersion());
+        out.string(EventV3Dto.APP_VERSION_FIELD_NUMBER, event.getAppVersion());
+
+        if (visitEvent != null) {
+            out.map(EventV3Dto.EXTRA_SDK_FIELD_NUMBER, visitEvent.getExtraSdk());
+        }
+        if (event instanceof CustomEvent) {
+            out.string(EventV3Dto.EVENT_NAME_FIELD_NUMBER, ((CustomEvent) event).getEventName());
+        } else if (activateEvent != null) {
+            out.string(EventV3Dto.EVENT_NAME_FIELD_NUMBER, activateEvent.getEventName());
+        }
+        if (vEvent != null && vEvent.getPageShowTimestamp() > 0) {
+            out.int64(EventV3Dto.PAGE_SHOW_TIMESTAMP_FIELD_NUMBER, vEvent.getPageShowTimestamp());
+        } else if (plEvent != null && plEvent.getPageShowTimestamp() > 0) {
+            out.int64(EventV3Dto.PAGE_SHOW_TIMESTAMP_FIELD_NUMBER, plEvent.getPageShowTimestamp());
+        }
+        if (event instanceof BaseAttributesEvent) {
+            out.map(EventV3Dto.ATTRIBUTES_FIELD_NUMBER, ((BaseAttributesEvent) event).getAttributes());
+        }
+        if (event instanceof HybridPageEvent) {
+            out.string(EventV3Dto.PROTOCOL_TYPE_FIELD_NUMBER, ((HybridPageEvent) event).getProtocolType());
+        }
+        if (vEvent != null) {
+            out.string(EventV3Dto.TEXT_VALUE_FIELD_NUMBER, vEvent.getTextValue());
+            out.string(EventV3Dto.XPATH_FIELD_NUMBER, vEvent.getXpath());
+            if (vEvent.getIndex() >= 0) {
+                out.int32(EventV3Dto.INDEX_FIELD_NUMBER, vEvent.getIndex());
+            }
+        }
+        if (event instanceof HybridViewElementEvent) {
+            out.string(EventV3Dto.HYPERLINK_FIELD_NUMBER, ((HybridViewElementEvent) event).getHyperlink());
+        }
+
+        out.string(EventV3Dto.URL_SCHEME_FIELD_NUMBER, event.getUrlScheme());
+        out.string(EventV3Dto.APP_STATE_FIELD_NUMBER, event.getAppState());
+        out.string(EventV3Dto.NETWORK_STATE_FIELD_NUMBER, event.getNetworkState());
+        out.string(EventV3Dto.APP_CHANNEL_FIELD_NUMBER, event.getAppChannel());
+        out.string(EventV3Dto.PLATFORM_VERSION_FIELD_NUMBER, event.getPlatformVersion());
+        out.string(EventV3Dto.DEVICE_BRAND_FIELD_NUMBER, event.getDeviceBrand());
+        out.string(EventV3Dto.DEVICE_MODEL_FIELD_NUMBER, event.getDeviceModel());
+        out.string(EventV3Dto.DEVICE_TYPE_FIELD_NUMBER, event.getDeviceType());
+        out.string(EventV3Dto.APP_NAME_FIELD_NUMBER, event.getAppName());
+        out.float64(EventV3Dto.LATITUDE_FIELD_NUMBER, event.getLatitude());
+        out.float64(EventV3Dto.LONGITUDE_FIELD_NUMBER, event.getLongitude());
+
+        if (visitEvent != null) {
+            out.string(EventV3Dto.IMEI_FIELD_NUMBER, visitEvent.getImei());
+            out.string(EventV3Dto.ANDROID_ID_FIELD_NUMBER, visitEvent.getAndroidId());
+            out.string(EventV3Dto.OAID_FIELD_NUMBER, visitEvent.getOaid());
+            out.string(EventV3Dto.GOOGLE_ADVERTISING_ID_FIELD_NUMBER, visitEvent.getGoogleAdvertisingId());
+        } else if (activateEvent != null) {
+            out.string(EventV3Dto.IMEI_FIELD_NUMBER, activateEvent.getImei());
+            out.string(EventV3Dto.ANDROID_ID_FIELD_NUMBER, activateEvent.getAndroidId());
+            out.string(EventV3Dto.OAID_FIELD_NUMBER, activateEvent.getOaid());
+            out.string(EventV3Dto.GOOGLE_ADVERTISING_ID_FIELD_NUMBER, activateEvent.getGoogleId());
+        }
+        if (pageEvent != null) {
+            out.string(EventV3Dto.ORIENTATION_FIELD_NUMBER, pageEvent.getOrientation());
+        }
+
+        out.string(EventV3Dto.USER_KEY_FIELD_NUMBER, event.getUserKey());
+        // xIndex isEqualWith xContent
+        if (vEvent != null) {
+            out.string(EventV3Dto.XCONTENT_FIELD_NUMBER, vEvent.getXIndex());
+        }
+        out.string(EventV3Dto.TIMEZONE_OFFSET_FIELD_NUMBER, event.getTimezoneOffset());
+    }
+
+    private abstract static class FieldVisitor {
+
+        final void string(int field, String value) throws IOException {
+            if (value != null && !value.isEmpty()) {
+                onString(field, value);
+            }
+        }
+
+        final void int32(int field, int value) throws IOException {
+            if (value != 0) {
+                onInt32(field, value);
+            }
+        }
+
+        final void int64(int field, long value) throws IOException {
+            if (value != 0L) {
+                onInt64(field, value);
+            }
+        }
+
+        final void float64(int field, double value) throws IOException {
+            if (Double.doubleToRawLongBits(value) != 0L) {
+                onFloat64(field, value);
+            }
+        }
+
+        /**
+         * map entry is a message of key = 1 and value = 2, both are always written.
+         */
+        final void map(int field, Map<String, String> map) throws IOException {
+            if (map == null || map.isEmpty()) return;
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (key == null || value == null) continue;
+                int entrySize = CodedOutputStream.computeStringSize(1, key) + CodedOutputStream.computeStringSize(2, value);
+                onMapEntry(field, key, value, entrySize);
+            }
+        }
+
+        abstract void onString(int field, String value) throws IOException;
+
+        abstract void onInt32(int field, int value) throws IOException;
+
+        abstract void onInt64(int field, long value) throws IOException;
+
+        abstract void onFloat64(int field, double value) throws IOException;
+
+        abstract void onMapEntry(int field, String key, String value, int entrySize) throws IOException;
+    }
+
+    private static final class SizeCounter extends FieldVisitor {
+        int size;
+
+        @Override
+        void onString(int field, String value) {
+            size += CodedOutputStream.computeStringSize(field, value);
+        }
+
+        @Override
+        void onInt32(int field, int value) {
+            size += CodedOutputStream.computeInt32Size(field, value);
+        }
+
+        @Override
+        void onInt64(int field, long value) {
+            size += CodedOutputStream.computeInt64Size(field, value);
+        }
+
+        @Override
+        void onFloat64(int field, double value) {
+            size += CodedOutputStream.computeDoubleSize(field, value);
+        }
+
+        @Override
+        void onMapEntry(int field, String key, String value, int entrySize) {
+            size += CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(entrySize) + entrySize;
+        }
+    }
+
+    private static final class StreamWriter extends FieldVisitor {
+        private final CodedOutputStream output;
+
+        StreamWriter(CodedOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        void onString(int field, String value) throws IOException {
+            output.writeString(field, value);
+        }
+
+        @Override
+        void onInt32(int field, int value) throws IOException {
+            output.writeInt32(field, value);
+        }
+
+        @Override
+        void onInt64(int field, long value) throws IOException {
+            output.writeInt64(field, value);
+        }
+
+        @Override
+        void onFloat64(int field, double value) throws IOException {
+            output.writeDouble(field, value);
+        }
+
+        @Override
+        void onMapEntry(int field, String key, String value, int entrySize) throws IOException {
+            output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(entrySize);
+            output.writeString(1, key);
+            output.writeString(2, value);
+        }
+    }
+}
@@ -59,6 +59,19 @@ class EventProtocolTransfer {
         } catch (InvalidProtocolBufferException e) {
             Logger.w("EventProtocolTransfer", "Events in the database are not in the protobuf format");
         }
+        byte[] data = covertJsonToBytes(byteArray);
+        if (data == null) return null;
+        try {
+            return EventV3Protocol.EventV3Dto.parseFrom(data);
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+
+    /**
+     * legacy json rows are written through the same streaming path as new events.
+     */
+    public static byte[] covertJsonToBytes(byte[] byteArray) {
         try {
             String data = new String(byteArray);
             if (data.startsWith("{") && data.endsWith("}")) { //ensure json format
@@ -66,7 +79,7 @@ class EventProtocolTransfer {
                 BaseEvent.BaseBuilder builder = generateEventBuilder(json);
                 EventBuilderProvider.parseFrom(builder, json);
                 if (builder != null) {
-                    return protocol(builder.build());
+                    return protocolByte(builder.build());
                 }
                 return null;
             }
@@ -160,129 +173,10 @@ class EventProtocolTransfer {
 
 
     public static byte[] protocolByte(GEvent gEvent) {
-        EventV3Protocol.EventV3Dto eventBuilder = protocol(gEvent);
-        return eventBuilder.toByteArray();
-
-    }
-
-    private static EventV3Protocol.EventV3Dto protocol(GEvent gEvent) {
-        EventV3Protocol.EventV3Dto.Builder eventBuilder = EventV3Protocol.EventV3Dto.newBuilder();
         if (gEvent instanceof BaseEvent) {
             BaseEvent baseEvent = (BaseEvent) gEvent;
-            eventBuilder.setDeviceId(baseEvent.getDeviceId()); //1
-            eventBuilder.setUserId(baseEvent.getUserId()); //2
-//            if (extraParams != null && extraParams.containsKey("gioId")) {
-//                eventBuilder.setGioId(extraParams.get("gioId")); //3
-//            }
-            eventBuilder.setSessionId(baseEvent.getSessionId()); //4
-            eventBuilder.setDataSourceId(baseEvent.getDataSourceId()); //5
-            eventBuilder.setEventType(protocolType(baseEvent.getEventType())); //6
-            eventBuilder.setPlatform(baseEvent.getPlatform()); //7
-            eventBuilder.setTimestamp(baseEvent.getTimestamp()); //8
-            eventBuilder.setDomain(baseEvent.getDomain()); //9
-
-//            eventBuilder.setGlobalSequenceId(baseEvent.getGlobalSequenceId()); //14
-            eventBuilder.setEventSequenceId((int) baseEvent.getEventSequenceId()); //15
-            eventBuilder.setScreenHeight(baseEvent.getScreenHeight()); //16
-            eventBuilder.setScreenWidth(baseEvent.getScreenWidth()); //17
-            eventBuilder.setLanguage(baseEvent.getLanguage()); //18
-            eventBuilder.setSdkVersion(baseEvent.getSdkVersion()); //19
-            eventBuilder.setAppVersion(baseEvent.getAppVersion()); //20
-
-            eventBuilder.setUrlScheme(baseEvent.getUrlScheme()); //31
-            eventBuilder.setAppState(baseEvent.getAppState()); //32
-            eventBuilder.setNetworkState(baseEvent.getNetworkState()); //33
-            eventBuilder.setAppChannel(baseEvent.getAppChannel()); //34
-            eventBuilder.setPlatformVersion(baseEvent.getPlatformVersion()); //36
-            eventBuilder.setDeviceBrand(baseEvent.getDeviceBrand()); //37
-            eventBuilder.setDeviceModel(baseEvent.getDeviceModel()); //38
-            eventBuilder.setDeviceType(baseEvent.getDeviceType()); //39
-            eventBuilder.setAppName(baseEvent.getAppName()); //42
-            eventBuilder.setLatitude(baseEvent.getLatitude()); //44
-            eventBuilder.setLongitude(baseEvent.getLongitude()); //45
-
-            eventBuilder.setUserKey(baseEvent.getUserKey()); //55
-            eventBuilder.setTimezoneOffset(baseEvent.getTimezoneOffset()); //57
-        }
-
-        if (gEvent instanceof BaseAttributesEvent) {
-            BaseAttributesEvent attrEvent = (BaseAttributesEvent) gEvent;
-            if (attrEvent.getAttributes() != null) {
-                eventBuilder.putAllAttributes(attrEvent.getAttributes()); //24
-            }
+            return EventProtobufWriter.write(baseEvent, protocolType(baseEvent.getEventType()).getNumber());
         }
-        if (gEvent instanceof ViewElementEvent) {
-            ViewElementEvent vEvent = (ViewElementEvent) gEvent;
-            eventBuilder.setPath(vEvent.getPath()); //10
-            eventBuilder.setTextValue(vEvent.getTextValue()); //27
-            eventBuilder.setXpath(vEvent.getXpath()); //28
-            if (vEvent.getIndex() >= 0) {
-                eventBuilder.setIndex(vEvent.getIndex()); //29
-            }
-            if (vEvent.getPageShowTimestamp() > 0) {
-                eventBuilder.setPageShowTimestamp(vEvent.getPageShowTimestamp());//23
-            }
-            if (vEvent.getXIndex() != null) {
-                eventBuilder.setXcontent(vEvent.getXIndex()); //56 --xIndex isEqualWith xContent
-            }
-        }
-        if (gEvent instanceof PageEvent) {
-            PageEvent pageEvent = (PageEvent) gEvent;
-            eventBuilder.setPath(pageEvent.getPath()); //10
-            eventBuilder.setTitle(pageEvent.getTitle()); //12
-            eventBuilder.setReferralPage(pageEvent.getReferralPage()); //13
-            eventBuilder.setOrientation(pageEvent.getOrientation()); //52
-        }
-        if (gEvent instanceof CustomEvent) {
-            CustomEvent customEvent = (CustomEvent) gEvent;
-            eventBuilder.setEventName(customEvent.getEventName()); //22
-        }
-        if (gEvent instanceof PageLevelCustomEvent) {
-            PageLevelCustomEvent plEvent = (PageLevelCustomEvent) gEvent;
-            eventBuilder.setPath(plEvent.getPath()); //10
-            if (plEvent.getPageShowTimestamp() > 0) {
-                eventBuilder.setPageShowTimestamp(plEvent.getPageShowTimestamp());//23
-            }
-        }
-        if (gEvent instanceof VisitEvent) {
-            VisitEvent visitEvent = (VisitEvent) gEvent;
-            if (visitEvent.getExtraSdk() != null) {
-                eventBuilder.putAllExtraSdk(visitEvent.getExtraSdk()); //21
-            }
-            eventBuilder.setImei(visitEvent.getImei()); //46
-            eventBuilder.setAndroidId(visitEvent.getAndroidId()); //47
-            eventBuilder.setOaid(visitEvent.getOaid()); //48
-            eventBuilder.setGoogleAdvertisingId(visitEvent.getGoogleAdvertisingId()); //49
-        }
-
-        // deal with hybrid event
-        if (gEvent instanceof HybridCustomEvent) {
-            HybridCustomEvent hcEvent = (HybridCustomEvent) gEvent;
-            eventBuilder.setQuery(hcEvent.getQuery()); //11
-        }
-        if (gEvent instanceof HybridPageEvent) {
-            HybridPageEvent hpEvent = (HybridPageEvent) gEvent;
-            eventBuilder.setQuery(hpEvent.getQuery()); //11
-            eventBuilder.setProtocolType(hpEvent.getProtocolType()); //26
-        }
-        if (gEvent instanceof HybridViewElementEvent) {
-            HybridViewElementEvent hvEvent = (HybridViewElementEvent) gEvent;
-            eventBuilder.setHyperlink(hvEvent.getHyperlink()); //30
-            eventBuilder.setQuery(hvEvent.getQuery()); //11
-        }
-
-        // deal with advert events
-        if (gEvent instanceof ActivateEvent) {
-            ActivateEvent activateEvent = (ActivateEvent) gEvent;
-            eventBuilder.setEventName(activateEvent.getEventName()); //22
-            eventBuilder.setImei(activateEvent.getImei()); //46
-            eventBuilder.setAndroidId(activateEvent.getAndroidId()); //47
-            eventBuilder.setGoogleAdvertisingId(activateEvent.getGoogleId()); //49
-            eventBuilder.setOaid(activateEvent.getOaid()); //48
-        }
-
-        return eventBuilder.build();
+        return new byte[0];
     }
 }
-
-
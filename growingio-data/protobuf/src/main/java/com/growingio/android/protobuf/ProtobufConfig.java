@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.protobuf;
+
+import com.growingio.android.sdk.Configurable;
+
+public class ProtobufConfig implements Configurable {
+
+    private boolean batchFormatEnabled = false;
+
+    /**
+     * merge events as EventV3Batch, the fields shared by all events are sent only once.
+     * make sure the collector supports the batch format before enabling it.
+     */
+    public ProtobufConfig setBatchFormatEnabled(boolean enabled) {
+        this.batchFormatEnabled = enabled;
+        return this;
+    }
+
+    public boolean isBatchFormatEnabled() {
+        return batchFormatEnabled;
+    }
+}
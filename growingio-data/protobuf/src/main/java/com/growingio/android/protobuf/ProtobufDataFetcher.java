@@ -15,13 +15,17 @@
  */
 package com.growingio.android.protobuf;
 
-
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.middleware.format.EventByteArray;
 import com.growingio.android.sdk.track.middleware.format.EventFormatData;
 import com.growingio.android.sdk.track.middleware.format.FormatDataFetcher;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -31,11 +35,18 @@ import java.util.List;
  */
 public class ProtobufDataFetcher implements FormatDataFetcher<EventByteArray> {
     private static final String TAG = "ProtobufDataFetcher";
+    static final String MEDIA_TYPE_BATCH = "application/protobuf; format=batch";
 
     private final EventFormatData eventData;
+    private final boolean batchFormatEnabled;
 
     public ProtobufDataFetcher(EventFormatData eventData) {
+        this(eventData, null);
+    }
+
+    public ProtobufDataFetcher(EventFormatData eventData, ProtobufConfig config) {
         this.eventData = eventData;
+        this.batchFormatEnabled = config != null && config.isBatchFormatEnabled();
     }
 
     @Override
@@ -63,20 +74,114 @@ public class ProtobufDataFetcher implements FormatDataFetcher<EventByteArray> {
 
     @Override
     public EventByteArray merge(List<byte[]> events) {
+        if (batchFormatEnabled) {
+            byte[] data = marshallBatch(events);
+            if (data != null) {
+                return new EventByteArray(data, MEDIA_TYPE_BATCH);
+            }
+        }
         byte[] data = marshall(events);
         return new EventByteArray(data, "application/protobuf");
     }
 
+    /**
+     * the invariant fields of events are moved to the envelope of EventV3Batch,
+     * return null to fallback to EventV3List when events can't be merged.
+     */
+    private byte[] marshallBatch(List<byte[]> events) {
+        if (events == null || events.isEmpty()) {
+            return null;
+        }
+        List<byte[]> values = new ArrayList<>(events.size());
+        for (byte[] data : events) {
+            data = checkEventBytes(data);
+            if (data != null) {
+                values.add(data);
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        try {
+            return EventBatchWriter.write(values);
+        } catch (IOException e) {
+            Logger.e(TAG, e, "merge events as batch failed");
+            return null;
+        }
+    }
+
+    /**
+     * stored events are already serialized EventV3Dto, so the EventV3List can be written directly
+     * with the field tag and length prefix of each event, only legacy json rows need to be parsed.
+     */
     private byte[] marshall(List<byte[]> events) {
         if (events == null || events.isEmpty()) {
             return new byte[]{};
         }
-        EventV3Protocol.EventV3List.Builder listBuilder = EventV3Protocol.EventV3List.newBuilder();
-        for (byte[] data : events) {
-            EventV3Protocol.EventV3Dto event = EventProtocolTransfer.covertToProtobuf(data);
-            if (event != null) listBuilder.addValues(event);
+        byte[][] values = new byte[events.size()][];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            byte[] data = checkEventBytes(events.get(i));
+            if (data != null) {
+                values[i] = data;
+                size += CodedOutputStream.computeByteArraySize(EventV3Protocol.EventV3List.VALUES_FIELD_NUMBER, data);
+            }
+        }
+        byte[] result = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(result);
+        try {
+            for (byte[] value : values) {
+                if (value != null) output.writeByteArray(EventV3Protocol.EventV3List.VALUES_FIELD_NUMBER, value);
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            Logger.e(TAG, e, "merge events failed");
+            return new byte[]{};
+        }
+        return result;
+    }
+
+    /**
+     * legacy json rows are converted to protobuf, rows with a broken wire structure are dropped,
+     * otherwise one corrupt row would make the whole request rejected by the collector.
+     */
+    private byte[] checkEventBytes(byte[] data) {
+        if (data == null) return null;
+        if (isJsonFormat(data)) {
+            return EventProtocolTransfer.covertJsonToBytes(data);
         }
-        return listBuilder.build().toByteArray();
+        if (!isValidWireFormat(data)) {
+            Logger.e(TAG, "drop invalid event data, length:" + data.length);
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * walk the field tags and lengths without parsing the message, EventV3Dto has no group field.
+     */
+    static boolean isValidWireFormat(byte[] data) {
+        CodedInputStream input = CodedInputStream.newInstance(data);
+        try {
+            while (true) {
+                int tag = input.readTag();
+                if (tag == 0) return true;
+                int wireType = WireFormat.getTagWireType(tag);
+                if (wireType == WireFormat.WIRETYPE_START_GROUP || wireType == WireFormat.WIRETYPE_END_GROUP) {
+                    return false;
+                }
+                input.skipField(tag);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * a serialized EventV3Dto never starts with '{', which is the start group tag of field 15.
+     */
+    private boolean isJsonFormat(byte[] data) {
+        return data.length > 1 && data[0] == '{' && data[data.length - 1] == '}';
     }
 
     private void assertCondition(boolean condition, String msg) throws IllegalArgumentException {
@@ -27,15 +27,31 @@ import com.growingio.android.sdk.track.modelloader.ModelLoaderFactory;
  */
 public class ProtobufDataLoader implements ModelLoader<EventFormatData, EventByteArray> {
 
+    private final ProtobufConfig config;
+
+    public ProtobufDataLoader(ProtobufConfig config) {
+        this.config = config;
+    }
+
     @Override
     public LoadData<EventByteArray> buildLoadData(EventFormatData eventData) {
-        return new LoadData<>(new ProtobufDataFetcher(eventData));
+        return new LoadData<>(new ProtobufDataFetcher(eventData, config));
     }
 
     public static class Factory implements ModelLoaderFactory<EventFormatData, EventByteArray> {
+        private final ProtobufConfig config;
+
+        public Factory() {
+            this(new ProtobufConfig());
+        }
+
+        public Factory(ProtobufConfig config) {
+            this.config = config;
+        }
+
         @Override
         public ModelLoader<EventFormatData, EventByteArray> build() {
-            return new ProtobufDataLoader();
+            return new ProtobufDataLoader(config);
         }
     }
 }
@@ -27,10 +27,14 @@ import com.growingio.sdk.annotation.GIOLibraryModule;
  *
  * @author cpacm 5/19/21
  */
-@GIOLibraryModule
+@GIOLibraryModule(config = ProtobufConfig.class)
 public class ProtobufLibraryModule extends LibraryGioModule {
     @Override
     public void registerComponents(TrackerContext context) {
-        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
+        ProtobufConfig config = context.getConfigurationProvider().getConfiguration(ProtobufConfig.class);
+        if (config == null) {
+            config = new ProtobufConfig();
+        }
+        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory(config));
     }
 }
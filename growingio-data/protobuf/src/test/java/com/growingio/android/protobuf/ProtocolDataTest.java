@@ -20,6 +20,7 @@ package com.growingio.android.protobuf;
 import com.google.common.truth.Truth;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.growingio.android.sdk.track.events.CustomEvent;
+import com.growingio.android.sdk.track.providers.EventBuilderProvider;
 import com.growingio.android.sdk.track.middleware.format.EventByteArray;
 import com.growingio.android.sdk.track.middleware.format.EventFormatData;
 import com.growingio.android.sdk.track.modelloader.DataFetcher;
@@ -85,4 +86,93 @@ public class ProtocolDataTest {
 
     }
 
+    @Test
+    public void dataMergeWithLegacyJson() throws InvalidProtocolBufferException {
+        ArrayList<byte[]> arrayList = new ArrayList<>();
+        CustomEvent customEvent = new CustomEvent.Builder()
+                .setEventName("protobuf")
+                .build();
+        CustomEvent jsonEvent = new CustomEvent.Builder()
+                .setEventName("json")
+                .build();
+        arrayList.add(EventProtocolTransfer.protocolByte(customEvent));
+        arrayList.add(EventBuilderProvider.toJson(jsonEvent).toString().getBytes());
+        arrayList.add(EventProtocolTransfer.protocolByte(customEvent));
+
+        EventByteArray data = new ProtobufDataFetcher(EventFormatData.merge(arrayList)).executeData();
+        EventV3Protocol.EventV3List list = EventV3Protocol.EventV3List.parseFrom(data.getBodyData());
+        Truth.assertThat(list.getValuesCount()).isEqualTo(3);
+        Truth.assertThat(list.getValues(0).getEventName()).isEqualTo("protobuf");
+        Truth.assertThat(list.getValues(1).getEventName()).isEqualTo("json");
+        Truth.assertThat(list.getValues(2).getEventName()).isEqualTo("protobuf");
+
+        EventV3Protocol.EventV3List.Builder listBuilder = EventV3Protocol.EventV3List.newBuilder();
+        for (byte[] bytes : arrayList) {
+            listBuilder.addValues(EventProtocolTransfer.covertToProtobuf(bytes));
+        }
+        Truth.assertThat(data.getBodyData()).isEqualTo(listBuilder.build().toByteArray());
+    }
+
+    @Test
+    public void dataMergeBatch() throws InvalidProtocolBufferException {
+        ArrayList<byte[]> arrayList = new ArrayList<>();
+        CustomEvent customEvent = new CustomEvent.Builder()
+                .setEventName("batch")
+                .build();
+        arrayList.add(EventProtocolTransfer.protocolByte(customEvent));
+        arrayList.add(EventV3Protocol.EventV3Dto.newBuilder()
+                .setDeviceId(customEvent.getDeviceId())
+                .setPlatform(customEvent.getPlatform())
+                .setSessionId("session")
+                .setEventName("cpacm")
+                .build().toByteArray());
+        arrayList.add(EventBuilderProvider.toJson(customEvent).toString().getBytes());
+
+        EventFormatData eventData = EventFormatData.merge(arrayList);
+        ProtobufConfig config = new ProtobufConfig().setBatchFormatEnabled(true);
+        EventByteArray data = new ProtobufDataLoader.Factory(config).build().buildLoadData(eventData).fetcher.executeData();
+        Truth.assertThat(data.getMediaType()).isEqualTo(ProtobufDataFetcher.MEDIA_TYPE_BATCH);
+
+        EventV3Protocol.EventV3Batch batch = EventV3Protocol.EventV3Batch.parseFrom(data.getBodyData());
+        Truth.assertThat(batch.getValuesCount()).isEqualTo(3);
+        Truth.assertThat(batch.getEnvelope().getPlatform()).isEqualTo(customEvent.getPlatform());
+        Truth.assertThat(batch.getValues(0).getPlatform()).isEmpty();
+        Truth.assertThat(batch.getEnvelope().getEventName()).isEmpty();
+
+        for (int i = 0; i < arrayList.size(); i++) {
+            EventV3Protocol.EventV3Dto restored = batch.getEnvelope().toBuilder().mergeFrom(batch.getValues(i)).build();
+            Truth.assertThat(restored).isEqualTo(EventProtocolTransfer.covertToProtobuf(arrayList.get(i)));
+        }
+        Truth.assertThat(data.getBodyData().length).isLessThan(new ProtobufDataFetcher(eventData).executeData().getBodyData().length);
+    }
+
+    @Test
+    public void dataMergeSkipCorruptRows() throws InvalidProtocolBufferException {
+        CustomEvent customEvent = new CustomEvent.Builder()
+                .setEventName("valid")
+                .build();
+        byte[] valid = EventProtocolTransfer.protocolByte(customEvent);
+        // field 2 declares 5 bytes but only 1 byte left
+        byte[] truncated = new byte[]{0x12, 0x05, 'a'};
+
+        ArrayList<byte[]> arrayList = new ArrayList<>();
+        arrayList.add(valid);
+        arrayList.add(truncated);
+        arrayList.add(new byte[]{(byte) 0xFF, (byte) 0xFF, 0x01});
+        arrayList.add(new byte[]{0x0B, 0x0C});
+        arrayList.add(valid);
+
+        Truth.assertThat(ProtobufDataFetcher.isValidWireFormat(valid)).isTrue();
+        Truth.assertThat(ProtobufDataFetcher.isValidWireFormat(truncated)).isFalse();
+
+        EventByteArray data = new ProtobufDataFetcher(EventFormatData.merge(arrayList)).executeData();
+        EventV3Protocol.EventV3List list = EventV3Protocol.EventV3List.parseFrom(data.getBodyData());
+        Truth.assertThat(list.getValuesCount()).isEqualTo(2);
+        Truth.assertThat(list.getValues(1).getEventName()).isEqualTo("valid");
+
+        ProtobufConfig config = new ProtobufConfig().setBatchFormatEnabled(true);
+        EventByteArray batchData = new ProtobufDataFetcher(EventFormatData.merge(arrayList), config).executeData();
+        EventV3Protocol.EventV3Batch batch = EventV3Protocol.EventV3Batch.parseFrom(batchData.getBodyData());
+        Truth.assertThat(batch.getValuesCount()).isEqualTo(2);
+    }
 }
@@ -25,6 +25,7 @@ import com.growingio.android.sdk.track.events.LoginUserAttributesEvent;
 import com.growingio.android.sdk.track.events.PageEvent;
 import com.growingio.android.sdk.track.events.PageLevelCustomEvent;
 import com.growingio.android.sdk.track.events.ViewElementEvent;
+import com.growingio.android.sdk.track.events.VisitEvent;
 import com.growingio.android.sdk.track.events.VisitorAttributesEvent;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.events.hybrid.HybridCustomEvent;
@@ -121,6 +122,40 @@ public class ProtocolTest {
 
     }
 
+    @Test
+    public void streamWriterTest() throws InvalidProtocolBufferException {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("name", "中文");
+        HybridViewElementEvent.Builder builder = new HybridViewElementEvent.Builder("VIEW_CLICK")
+                .setHyperlink("www.growingio.com")
+                .setQuery("a=1");
+        builder.setXpath("/a/b").setIndex(2).setTextValue("text").setPath("/page").setPageShowTimestamp(1000L);
+        builder.setAttributes(attributes);
+        HybridViewElementEvent hvEvent = builder.build();
+
+        byte[] data = EventProtocolTransfer.protocolByte(hvEvent);
+        EventV3Protocol.EventV3Dto dto = EventV3Protocol.EventV3Dto.parseFrom(data);
+        Truth.assertThat(dto.getEventType()).isEqualTo(EventV3Protocol.EventType.VIEW_CLICK);
+        Truth.assertThat(dto.getHyperlink()).isEqualTo("www.growingio.com");
+        Truth.assertThat(dto.getQuery()).isEqualTo("a=1");
+        Truth.assertThat(dto.getXpath()).isEqualTo("/a/b");
+        Truth.assertThat(dto.getIndex()).isEqualTo(2);
+        Truth.assertThat(dto.getPath()).isEqualTo("/page");
+        Truth.assertThat(dto.getPageShowTimestamp()).isEqualTo(1000L);
+        Truth.assertThat(dto.getAttributesMap()).containsExactlyEntriesIn(attributes);
+        // fields are written in field number order, same as the lite runtime
+        Truth.assertThat(dto.toByteArray()).isEqualTo(data);
+
+        Map<String, String> extraSdk = new HashMap<>();
+        extraSdk.put("sdk", "1.0");
+        VisitEvent visitEvent = new VisitEvent.Builder().setExtraSdk(extraSdk).build();
+        data = EventProtocolTransfer.protocolByte(visitEvent);
+        dto = EventV3Protocol.EventV3Dto.parseFrom(data);
+        Truth.assertThat(dto.getEventType()).isEqualTo(EventV3Protocol.EventType.VISIT);
+        Truth.assertThat(dto.getExtraSdkMap()).containsExactlyEntriesIn(extraSdk);
+        Truth.assertThat(dto.toByteArray()).isEqualTo(data);
+    }
+
     private EventV3Protocol.EventV3Dto protocol(GEvent gEvent) throws InvalidProtocolBufferException {
         byte[] data = EventProtocolTransfer.protocolByte(gEvent);
         return EventV3Protocol.EventV3Dto.parseFrom(data);
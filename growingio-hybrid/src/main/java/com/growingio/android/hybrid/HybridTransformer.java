@@ -18,6 +18,10 @@ package com.growingio.android.hybrid;
 
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 
+import java.util.List;
+
 public interface HybridTransformer {
     BaseEvent.BaseBuilder<?> transform(String hybridEvent);
+
+    List<BaseEvent.BaseBuilder<?>> transformEvents(String hybridEvents);
 }
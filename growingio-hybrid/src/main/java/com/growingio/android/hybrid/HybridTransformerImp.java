@@ -27,48 +27,80 @@ import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.providers.EventBuilderProvider;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class HybridTransformerImp implements HybridTransformer {
     private static final String TAG = "HybridTransformerImp";
 
     @Override
     public BaseEvent.BaseBuilder<?> transform(String hybridEvent) {
         try {
-            JSONObject eventJson = new JSONObject(hybridEvent);
-            String type = eventJson.getString(BaseEvent.EVENT_TYPE);
-            if (AutotrackEventType.PAGE.equals(type)) {
-                HybridPageEvent.Builder builder = new HybridPageEvent.Builder();
-                EventBuilderProvider.parseFrom(builder, eventJson);
-                return builder;
-            } else if (AutotrackEventType.VIEW_CLICK.equals(type) ||
-                    AutotrackEventType.VIEW_CHANGE.equals(type) ||
-                    TrackEventType.FORM_SUBMIT.equals(type)
-            ) {
-                return transformViewElementEventBuilder(type, eventJson);
-            } else if (TrackEventType.CUSTOM.equals(type)) {
-                HybridCustomEvent.Builder builder = new HybridCustomEvent.Builder();
-                EventBuilderProvider.parseFrom(builder, eventJson);
-                return builder;
-            } else if (TrackEventType.LOGIN_USER_ATTRIBUTES.equals(type)) {
-                LoginUserAttributesEvent.Builder builder = new LoginUserAttributesEvent.Builder();
-                EventBuilderProvider.parseFrom(builder, eventJson);
-                return builder;
-
-            } else if (TrackEventType.VISITOR_ATTRIBUTES.equals(type)) {
-                VisitorAttributesEvent.Builder builder = new VisitorAttributesEvent.Builder();
-                EventBuilderProvider.parseFrom(builder, eventJson);
-                return builder;
+            return transform(new JSONObject(hybridEvent));
+        } catch (JSONException e) {
+            Logger.e(TAG, e.getMessage(), e);
+        }
+        return null;
+    }
 
-            } else if (TrackEventType.CONVERSION_VARIABLES.equals(type)) {
-                ConversionVariablesEvent.Builder builder = new ConversionVariablesEvent.Builder();
-                EventBuilderProvider.parseFrom(builder, eventJson);
-                return builder;
+    /**
+     * H5 批量上报的事件数组，无法解析的事件会被跳过
+     */
+    @Override
+    public List<BaseEvent.BaseBuilder<?>> transformEvents(String hybridEvents) {
+        List<BaseEvent.BaseBuilder<?>> builders = new ArrayList<>();
+        try {
+            JSONArray events = new JSONArray(hybridEvents);
+            for (int i = 0; i < events.length(); i++) {
+                JSONObject eventJson = events.optJSONObject(i);
+                if (eventJson == null) continue;
+                try {
+                    BaseEvent.BaseBuilder<?> builder = transform(eventJson);
+                    if (builder != null) builders.add(builder);
+                } catch (JSONException e) {
+                    Logger.e(TAG, e.getMessage(), e);
+                }
             }
         } catch (JSONException e) {
             Logger.e(TAG, e.getMessage(), e);
         }
+        return builders;
+    }
+
+    public BaseEvent.BaseBuilder<?> transform(JSONObject eventJson) throws JSONException {
+        String type = eventJson.getString(BaseEvent.EVENT_TYPE);
+        if (AutotrackEventType.PAGE.equals(type)) {
+            HybridPageEvent.Builder builder = new HybridPageEvent.Builder();
+            EventBuilderProvider.parseFrom(builder, eventJson);
+            return builder;
+        } else if (AutotrackEventType.VIEW_CLICK.equals(type) ||
+                AutotrackEventType.VIEW_CHANGE.equals(type) ||
+                TrackEventType.FORM_SUBMIT.equals(type)
+        ) {
+            return transformViewElementEventBuilder(type, eventJson);
+        } else if (TrackEventType.CUSTOM.equals(type)) {
+            HybridCustomEvent.Builder builder = new HybridCustomEvent.Builder();
+            EventBuilderProvider.parseFrom(builder, eventJson);
+            return builder;
+        } else if (TrackEventType.LOGIN_USER_ATTRIBUTES.equals(type)) {
+            LoginUserAttributesEvent.Builder builder = new LoginUserAttributesEvent.Builder();
+            EventBuilderProvider.parseFrom(builder, eventJson);
+            return builder;
+
+        } else if (TrackEventType.VISITOR_ATTRIBUTES.equals(type)) {
+            VisitorAttributesEvent.Builder builder = new VisitorAttributesEvent.Builder();
+            EventBuilderProvider.parseFrom(builder, eventJson);
+            return builder;
+
+        } else if (TrackEventType.CONVERSION_VARIABLES.equals(type)) {
+            ConversionVariablesEvent.Builder builder = new ConversionVariablesEvent.Builder();
+            EventBuilderProvider.parseFrom(builder, eventJson);
+            return builder;
+        }
         return null;
     }
 
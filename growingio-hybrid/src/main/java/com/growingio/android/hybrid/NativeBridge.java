@@ -16,6 +16,7 @@
 package com.growingio.android.hybrid;
 
 import com.growingio.android.sdk.track.TrackMainThread;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.providers.UserInfoProvider;
 
 class NativeBridge {
@@ -31,6 +32,15 @@ class NativeBridge {
         TrackMainThread.trackMain().postEventToTrackMain(mHybridTransformer.transform(event));
     }
 
+    /**
+     * 批量事件和单个事件一样在 bridge 线程中解析，每个事件单独进入 track 线程的事件队列，受队列容量和丢弃策略限制
+     */
+    void dispatchEvents(String events) {
+        for (BaseEvent.BaseBuilder<?> builder : mHybridTransformer.transformEvents(events)) {
+            TrackMainThread.trackMain().postEventToTrackMain(builder);
+        }
+    }
+
     void setNativeUserId(String userId) {
         TrackMainThread.trackMain().postActionToTrackMain(new Runnable() {
             @Override
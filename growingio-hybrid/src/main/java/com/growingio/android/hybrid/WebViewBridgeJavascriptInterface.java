@@ -53,13 +53,26 @@ class WebViewBridgeJavascriptInterface {
     @JavascriptInterface
     @com.uc.webview.export.JavascriptInterface
     public void dispatchEvent(String event) {
-        Logger.printJson(TAG, "dispatchEvent: ", event);
+        Logger.d(TAG, "dispatchEvent: %s", event);
         if (TextUtils.isEmpty(event)) {
             return;
         }
         mNativeBridge.dispatchEvent(event);
     }
 
+    /**
+     * H5 按帧合并后批量上报的事件，参数为事件的 JSON 数组
+     */
+    @JavascriptInterface
+    @com.uc.webview.export.JavascriptInterface
+    public void dispatchEvents(String events) {
+        if (TextUtils.isEmpty(events)) {
+            return;
+        }
+        Logger.d(TAG, "dispatchEvents: %s", events);
+        mNativeBridge.dispatchEvents(events);
+    }
+
     @JavascriptInterface
     @com.uc.webview.export.JavascriptInterface
     public void setNativeUserId(String userId) {
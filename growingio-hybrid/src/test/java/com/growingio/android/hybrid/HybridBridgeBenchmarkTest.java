@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.hybrid;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * compare the bridge calls and parse time of single dispatchEvent and batched dispatchEvents
+ * for an event-heavy H5 page, the parsed events are checked in HybridTest.
+ */
+@Config(manifest = Config.NONE, sdk = 23)
+@RunWith(RobolectricTestRunner.class)
+public class HybridBridgeBenchmarkTest {
+    private static final int EVENT_COUNT = 600;
+    // H5 端按帧合并，60fps 下每帧约 10 个事件
+    private static final int EVENTS_PER_FRAME = 10;
+    private static final int ROUNDS = 10;
+
+    @Before
+    public void setup() {
+        // run with ./gradlew test -Pbenchmark
+        Assume.assumeTrue(Boolean.getBoolean("growingio.benchmark"));
+    }
+
+    @Test
+    public void benchmark() {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            if (i % 3 == 0) {
+                events.add("{\"eventType\":\"CUSTOM\",\"domain\":\"growingio.com\",\"path\":\"/spa/list\",\"query\":\"page=" + i + "\",\"eventName\":\"scroll_" + i + "\",\"pageShowTimestamp\":1234567890,\"attributes\":{\"index\":\"" + i + "\",\"name\":\"苹果\"}}");
+            } else if (i % 3 == 1) {
+                events.add("{\"eventType\":\"VIEW_CLICK\",\"hyperlink\":\"www.growingio.com\",\"domain\":\"growingio.com\",\"query\":\"page=" + i + "\",\"index\":" + i + ",\"textValue\":\"item " + i + "\",\"xpath\":\"/div/ul/li/a\",\"xcontent\":\"/0/1/" + i + "/0\",\"path\":\"/spa/list\",\"pageShowTimestamp\":1234567890}");
+            } else {
+                events.add("{\"eventType\":\"PAGE\",\"domain\":\"growingio.com\",\"protocolType\":\"https\",\"query\":\"page=" + i + "\",\"path\":\"/spa/detail/" + i + "\",\"referralPage\":\"/spa/list\",\"timestamp\":123456789,\"title\":\"detail\"}");
+            }
+        }
+        List<String> frames = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i += EVENTS_PER_FRAME) {
+            StringBuilder frame = new StringBuilder("[");
+            for (int j = i; j < Math.min(i + EVENTS_PER_FRAME, EVENT_COUNT); j++) {
+                if (j > i) frame.append(',');
+                frame.append(events.get(j));
+            }
+            frames.add(frame.append(']').toString());
+        }
+
+        HybridTransformerImp transformer = new HybridTransformerImp();
+        List<BaseEvent> singleEvents = new ArrayList<>();
+        List<BaseEvent> batchEvents = new ArrayList<>();
+        int singleCalls = 0;
+        int batchCalls = 0;
+        long singleTime = 0L;
+        long batchTime = 0L;
+        for (int round = 0; round < ROUNDS; round++) {
+            singleEvents.clear();
+            batchEvents.clear();
+
+            long start = System.nanoTime();
+            for (String event : events) {
+                singleCalls++;
+                singleEvents.add(transformer.transform(event).build());
+            }
+            singleTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String frame : frames) {
+                batchCalls++;
+                for (BaseEvent.BaseBuilder<?> builder : transformer.transformEvents(frame)) {
+                    batchEvents.add(builder.build());
+                }
+            }
+            batchTime += System.nanoTime() - start;
+        }
+
+        Truth.assertThat(batchEvents.size()).isEqualTo(EVENT_COUNT);
+        Truth.assertThat(singleEvents.size()).isEqualTo(EVENT_COUNT);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Truth.assertThat(batchEvents.get(i).getEventType()).isEqualTo(singleEvents.get(i).getEventType());
+        }
+        Truth.assertThat(batchCalls).isEqualTo(singleCalls / EVENTS_PER_FRAME);
+        // one JSONArray per frame costs no more than parsing the events one by one
+        Truth.assertThat(batchTime).isAtMost(singleTime * 2);
+
+        System.out.printf("dispatchEvent: %d events, %d bridge calls, parse %d us%n",
+                EVENT_COUNT, singleCalls / ROUNDS, singleTime / ROUNDS / 1000);
+        System.out.printf("dispatchEvents: %d events, %d bridge calls, parse %d us%n",
+                EVENT_COUNT, batchCalls / ROUNDS, batchTime / ROUNDS / 1000);
+    }
+}
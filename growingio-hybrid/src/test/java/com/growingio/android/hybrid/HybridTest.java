@@ -32,6 +32,7 @@ import com.growingio.android.sdk.track.events.hybrid.HybridViewElementEvent;
 import com.growingio.android.sdk.track.events.ConversionVariablesEvent;
 import com.growingio.android.sdk.track.events.LoginUserAttributesEvent;
 import com.growingio.android.sdk.track.events.VisitorAttributesEvent;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.listener.Callback;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 import com.growingio.android.sdk.track.providers.EventBuilderProvider;
@@ -47,6 +48,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Config(manifest = Config.NONE, sdk = 23)
@@ -108,6 +110,29 @@ public class HybridTest {
         Truth.assertThat(pageEvent.getQuery()).isEqualTo("something");
     }
 
+    @Test
+    public void transformEventsTest() {
+        HybridTransformerImp hybridTransformerImp = new HybridTransformerImp();
+
+        String customJson = "{\"eventType\":\"CUSTOM\",\"query\":\"something\",\"domain\":\"growingio.com\",\"path\":\"/webview/button/\",\"eventName\":\"test event\",\"pageShowTimestamp\":12345678,\"attributes\":{\"grow_index\":\"苹果\",\"grow_click\":14}}";
+        String pageJson = "{\"eventType\":\"PAGE\",\"domain\":\"growingio.com\",\"protocolType\":\"webview\",\"query\":\"something\",\"path\":\"urlscheme\",\"referralPage\":\"/home/product/\",\"timestamp\":123456789,\"title\":\"this is a test page.\"}";
+        // the invalid events in the batch are skipped
+        List<BaseEvent.BaseBuilder<?>> builders = hybridTransformerImp.transformEvents("[" + customJson + ",1,{}," + pageJson + "]");
+        Truth.assertThat(builders).hasSize(2);
+
+        HybridCustomEvent customEvent = (HybridCustomEvent) builders.get(0).build();
+        HybridCustomEvent singleCustomEvent = (HybridCustomEvent) hybridTransformerImp.transform(customJson).build();
+        Truth.assertThat(customEvent.getEventName()).isEqualTo(singleCustomEvent.getEventName());
+        Truth.assertThat(customEvent.getQuery()).isEqualTo(singleCustomEvent.getQuery());
+        Truth.assertThat(customEvent.getAttributes()).isEqualTo(singleCustomEvent.getAttributes());
+
+        HybridPageEvent pageEvent = (HybridPageEvent) builders.get(1).build();
+        Truth.assertThat(pageEvent.getProtocolType()).isEqualTo("webview");
+        Truth.assertThat(pageEvent.getPath()).isEqualTo("urlscheme");
+
+        Truth.assertThat(hybridTransformerImp.transformEvents("cpacm")).isEmpty();
+    }
+
     @Test
     public void providerTest() {
         RobolectricActivity activity = Robolectric.buildActivity(RobolectricActivity.class).create().get();
@@ -16,6 +16,7 @@
 package com.growingio.android.okhttp3;
 
 import com.growingio.android.sdk.track.middleware.http.EventResponse;
+import com.growingio.android.sdk.track.middleware.http.EventStream;
 import com.growingio.android.sdk.track.middleware.http.EventUrl;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.http.HttpDataFetcher;
@@ -33,6 +34,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSink;
 
 /**
  * <p>
@@ -67,7 +69,9 @@ public class OkHttpDataFetcher implements HttpDataFetcher<EventResponse>, Callba
             String key = headerEntry.getKey();
             requestBuilder.addHeader(key, headerEntry.getValue());
         }
-        if (eventUrl.getRequestBody() != null) {
+        if (eventUrl.getBodyStream() != null) {
+            requestBuilder.post(new StreamRequestBody(MediaType.parse(eventUrl.getMediaType()), eventUrl.getBodyStream()));
+        } else if (eventUrl.getRequestBody() != null) {
             requestBuilder.post(RequestBody.create(MediaType.parse(eventUrl.getMediaType()), eventUrl.getRequestBody()));
         } else if (eventUrl.getRequestMethod() == EventUrl.POST) {
             RequestBody requestBody = RequestBody.create(MediaType.parse(eventUrl.getMediaType()), new byte[0]);
@@ -164,4 +168,32 @@ public class OkHttpDataFetcher implements HttpDataFetcher<EventResponse>, Callba
             cleanup();
         }
     }
+
+    /**
+     * write the body stream to the sink directly, the request is sent with chunked encoding when the length is unknown.
+     */
+    private static final class StreamRequestBody extends RequestBody {
+        private final MediaType contentType;
+        private final EventStream bodyStream;
+
+        StreamRequestBody(MediaType contentType, EventStream bodyStream) {
+            this.contentType = contentType;
+            this.bodyStream = bodyStream;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bodyStream.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            bodyStream.writeTo(sink.outputStream());
+        }
+    }
 }
@@ -18,6 +18,7 @@ package com.growingio.android.okhttp3;
 
 import com.google.common.truth.Truth;
 import com.growingio.android.sdk.track.middleware.http.EventResponse;
+import com.growingio.android.sdk.track.middleware.http.EventStream;
 import com.growingio.android.sdk.track.middleware.http.EventUrl;
 import com.growingio.android.sdk.track.middleware.http.HttpDataFetcher;
 import com.growingio.android.sdk.track.modelloader.LoadDataFetcher;
@@ -32,6 +33,7 @@ import org.junit.runners.JUnit4;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.concurrent.TimeUnit;
 
@@ -132,4 +134,24 @@ public class Okhttp3Test extends MockServer {
             }
         });
     }
+
+    @Test
+    public void sendStreamTest() {
+        TrackerRegistry trackerRegistry = new TrackerRegistry();
+        trackerRegistry.register(EventUrl.class, EventResponse.class, new OkHttpDataLoader.Factory(new OkHttpConfig()));
+
+        ModelLoader<EventUrl, EventResponse> modelLoader = trackerRegistry.getModelLoader(EventUrl.class, EventResponse.class);
+        EventStream bodyStream = new EventStream() {
+            @Override
+            protected long onWrite(OutputStream out) throws IOException {
+                byte[] data = "cpacm".getBytes();
+                out.write(data);
+                return data.length;
+            }
+        };
+        EventUrl eventUrl = initEventUrl("http://localhost:8910/").setBodyStream(bodyStream);
+        EventResponse response = modelLoader.buildLoadData(eventUrl).fetcher.executeData();
+        assertThat(response.isSucceeded()).isTrue();
+        assertThat(bodyStream.getContentWritten()).isEqualTo(5L);
+    }
 }
@@ -20,6 +20,7 @@ import static com.growingio.android.urlconnection.UrlConnectionConfig.DEFAULT_UR
 import android.text.TextUtils;
 
 import com.growingio.android.sdk.track.middleware.http.EventResponse;
+import com.growingio.android.sdk.track.middleware.http.EventStream;
 import com.growingio.android.sdk.track.middleware.http.EventUrl;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.http.HttpDataFetcher;
@@ -75,7 +76,7 @@ public class UrlConnectionFetcher implements HttpDataFetcher<EventResponse> {
         try {
             Map<String, String> headers = eventUrl.getHeaders();
             headers.put("content-type", eventUrl.getMediaType());
-            EventResponse result = loadDataWithRedirects(new URL(eventUrl.toUrl()), 0, null, headers, eventUrl.getRequestBody());
+            EventResponse result = loadDataWithRedirects(new URL(eventUrl.toUrl()), 0, null, headers, getRequestData());
             callback.onDataReady(result);
         } catch (HttpException httpException) {
             if (httpException.getStatusCode() == INVALID_STATUS_CODE) {
@@ -166,7 +167,8 @@ public class UrlConnectionFetcher implements HttpDataFetcher<EventResponse> {
             for (Map.Entry<String, String> headerEntry : headers.entrySet()) {
                 urlConnection.addRequestProperty(headerEntry.getKey(), headerEntry.getValue());
             }
-            if (data != null || eventUrl.getRequestMethod() == EventUrl.POST) {
+            EventStream bodyStream = eventUrl.getBodyStream();
+            if (data != null || bodyStream != null || eventUrl.getRequestMethod() == EventUrl.POST) {
                 urlConnection.setRequestMethod("POST");
             } else if (eventUrl.getRequestMethod() == EventUrl.HEAD) {
                 urlConnection.setRequestMethod("HEAD");
@@ -183,8 +185,21 @@ public class UrlConnectionFetcher implements HttpDataFetcher<EventResponse> {
             urlConnection.setReadTimeout(callTimeout);
             urlConnection.setUseCaches(false);
             urlConnection.setDoInput(true);
-            if (data != null) {
+            if (bodyStream != null) {
                 urlConnection.setDoOutput(true);
+                long contentLength = bodyStream.contentLength();
+                if (contentLength >= 0) {
+                    urlConnection.setFixedLengthStreamingMode((int) contentLength);
+                } else {
+                    urlConnection.setChunkedStreamingMode(0);
+                }
+                OutputStream out = urlConnection.getOutputStream();
+                bodyStream.writeTo(out);
+                out.close();
+            } else if (data != null) {
+                urlConnection.setDoOutput(true);
+                // avoid HttpURLConnection buffering the whole body again
+                urlConnection.setFixedLengthStreamingMode(data.length);
                 OutputStream out = urlConnection.getOutputStream();
                 out.write(data);
                 out.flush();
@@ -199,6 +214,16 @@ public class UrlConnectionFetcher implements HttpDataFetcher<EventResponse> {
         return urlConnection;
     }
 
+    /**
+     * body stream is written to the connection directly, so don't convert it to byte array.
+     */
+    private byte[] getRequestData() {
+        if (eventUrl.getBodyStream() != null) {
+            return null;
+        }
+        return eventUrl.getRequestBody();
+    }
+
     // Referencing constants is less clear than a simple static method.
     private static boolean isHttpOk(int statusCode) {
         return statusCode / 100 == 2;
@@ -243,7 +268,7 @@ public class UrlConnectionFetcher implements HttpDataFetcher<EventResponse> {
         try {
             Map<String, String> headers = eventUrl.getHeaders();
             headers.put("content-type", eventUrl.getMediaType());
-            return loadDataWithRedirects(new URL(eventUrl.toUrl()), 0, null, headers, eventUrl.getRequestBody());
+            return loadDataWithRedirects(new URL(eventUrl.toUrl()), 0, null, headers, getRequestData());
         } catch (HttpException httpException) {
             if (httpException.getStatusCode() == INVALID_STATUS_CODE) {
                 return new EventResponse(0);
@@ -17,12 +17,16 @@ package com.growingio.android.sdk;
 
 import android.text.TextUtils;
 
+import com.growingio.android.sdk.track.EventIngestQueue;
 import com.growingio.android.sdk.track.events.EventFilterInterceptor;
+import com.growingio.android.sdk.track.middleware.UploadBatchSizeListener;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class CoreConfiguration implements Configurable {
+    public static final int DEFAULT_EVENT_QUEUE_CAPACITY = 1000;
+
     private String mProjectId;
     private String mUrlScheme;
     private String mDataSourceId;
@@ -37,6 +41,7 @@ public class CoreConfiguration implements Configurable {
     private boolean mRequireAppProcessesEnabled = false;
     private String mDataCollectionServerHost = "https://napi.growingio.com";
     private EventFilterInterceptor mEventFilterInterceptor;
+    private UploadBatchSizeListener mUploadBatchSizeListener;
     private final List<LibraryGioModule> mComponents = new ArrayList<>();
     private boolean mIdMappingEnabled = false;
 
@@ -44,6 +49,11 @@ public class CoreConfiguration implements Configurable {
     private boolean mAndroidIdEnabled = false;
 
     private int mDataValidityPeriod = 7;
+    private int mMaxConcurrentRequests = 1;
+    private int mEventSequenceIdBlockSize = 1;
+    private boolean mEventSequenceIdReclaimEnabled = true;
+    private int mEventQueueCapacity = DEFAULT_EVENT_QUEUE_CAPACITY;
+    private int mEventQueueOverflowPolicy = EventIngestQueue.OVERFLOW_DROP_OLDEST;
 
     public CoreConfiguration(String accountId, String urlScheme) {
         mProjectId = accountId;
@@ -227,4 +237,96 @@ public class CoreConfiguration implements Configurable {
     public boolean isCustomEventWithPath() {
         return mCustomEventWithPath;
     }
+
+    public int getMaxConcurrentRequests() {
+        return mMaxConcurrentRequests;
+    }
+
+    /**
+     * Sets the max number of upload requests in flight at the same time. From 1 to 5.
+     * If greater than 1, the next batch is prepared while the former ones are uploading,
+     * which drains a large backlog of events much faster on high latency networks.
+     * <p> Default: 1, upload batches one by one.
+     */
+    public CoreConfiguration setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.mMaxConcurrentRequests = Math.max(1, Math.min(5, maxConcurrentRequests));
+        return this;
+    }
+
+    public int getEventSequenceIdBlockSize() {
+        return mEventSequenceIdBlockSize;
+    }
+
+    /**
+     * Sets how many event sequence ids a process reserves from the shared file at once. From 1 to 1000.
+     * If greater than 1, ids are allocated in process without the file lock, but events of different
+     * processes are no longer numbered in time order.
+     * <p> Default: 1, lock the shared file for every id.
+     */
+    public CoreConfiguration setEventSequenceIdBlockSize(int blockSize) {
+        this.mEventSequenceIdBlockSize = Math.max(1, Math.min(1000, blockSize));
+        return this;
+    }
+
+    public boolean isEventSequenceIdReclaimEnabled() {
+        return mEventSequenceIdReclaimEnabled;
+    }
+
+    /**
+     * Whether to return the unused reserved sequence ids when the app goes background or the sdk shuts down.
+     * If false, or another process has reserved after this one, the unused ids are left as gaps.
+     * <p> Default: true.
+     */
+    public CoreConfiguration setEventSequenceIdReclaimEnabled(boolean enabled) {
+        this.mEventSequenceIdReclaimEnabled = enabled;
+        return this;
+    }
+
+    public int getEventQueueCapacity() {
+        return mEventQueueCapacity;
+    }
+
+    /**
+     * Sets how many events can wait in the track thread queue. From 100 to 10000.
+     * VISIT, ACTIVATE events and internal actions are never dropped and not limited by it.
+     * <p> Default: 1000.
+     */
+    public CoreConfiguration setEventQueueCapacity(int capacity) {
+        this.mEventQueueCapacity = Math.max(100, Math.min(10000, capacity));
+        return this;
+    }
+
+    @EventIngestQueue.OverflowPolicy
+    public int getEventQueueOverflowPolicy() {
+        return mEventQueueOverflowPolicy;
+    }
+
+    /**
+     * Sets what to do when the track thread queue is full.
+     * {@link EventIngestQueue#OVERFLOW_DROP_OLDEST} drops the oldest event that is not sent instantly,
+     * {@link EventIngestQueue#OVERFLOW_BLOCK} blocks the caller for a while and drops the new event if the queue is still full,
+     * {@link EventIngestQueue#OVERFLOW_SPILL} moves new events to the event cache, which is written to file if
+     * {@link com.growingio.android.sdk.track.TrackMainThread#setPreInitCacheConfig} enables it, and replays them after the queued ones.
+     * <p> Default: {@link EventIngestQueue#OVERFLOW_DROP_OLDEST}.
+     */
+    public CoreConfiguration setEventQueueOverflowPolicy(@EventIngestQueue.OverflowPolicy int policy) {
+        if (policy >= EventIngestQueue.OVERFLOW_DROP_OLDEST && policy <= EventIngestQueue.OVERFLOW_SPILL) {
+            this.mEventQueueOverflowPolicy = policy;
+        }
+        return this;
+    }
+
+    public UploadBatchSizeListener getUploadBatchSizeListener() {
+        return mUploadBatchSizeListener;
+    }
+
+    /**
+     * Sets the listener notified when the upload batch size is adjusted.
+     * Batches are sized in bytes by the measured upload bandwidth, compression ratio, 413 responses and the memory class.
+     * <p> Default: null.
+     */
+    public CoreConfiguration setUploadBatchSizeListener(UploadBatchSizeListener listener) {
+        this.mUploadBatchSizeListener = listener;
+        return this;
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TrackMainThread 的事件入队队列，多个线程写入，只由 track 线程批量消费。
+ * <p>
+ * 容量只约束可丢弃的事件，action 与即时发送的事件(VISIT/ACTIVATE)不会被丢弃，以保证执行顺序与会话数据。
+ */
+public final class EventIngestQueue {
+    // 队列满时丢弃最早入队的非即时事件
+    public static final int OVERFLOW_DROP_OLDEST = 1;
+    // 队列满时阻塞写入线程，超时仍无空位则丢弃新事件
+    public static final int OVERFLOW_BLOCK = 2;
+    // 队列满时新的非即时事件写入缓存文件，队列中已有任务执行完后再按顺序回放
+    public static final int OVERFLOW_SPILL = 3;
+
+    static final long BLOCK_TIMEOUT_MS = 100L;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Item> items = new ArrayDeque<>();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile int depth;
+    private int capacity;
+    private int overflowPolicy;
+    private boolean scheduled;
+    // OVERFLOW_SPILL 下已有溢出的事件等待回放
+    private boolean spillPending;
+    // 已决定写入缓存、尚未写入的事件，按到达顺序在锁外写入
+    private final ArrayDeque<Spill> spilled = new ArrayDeque<>();
+    // 串行写入缓存，保证写入顺序与到达顺序一致
+    private final Object spillLock = new Object();
+
+    public EventIngestQueue(int capacity, @OverflowPolicy int overflowPolicy) {
+        setup(capacity, overflowPolicy);
+    }
+
+    void setup(int capacity, @OverflowPolicy int overflowPolicy) {
+        lock.lock();
+        try {
+            this.capacity = Math.max(1, capacity);
+            this.overflowPolicy = overflowPolicy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @param task      待执行的任务
+     * @param droppable 队列满时是否允许丢弃
+     * @return true 表示队列由空转为非空，调用方需要调度一次消费
+     */
+    public boolean offer(Runnable task, boolean droppable) {
+        lock.lock();
+        try {
+            if (droppable && items.size() >= capacity && !makeRoom()) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            return add(task, droppable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * OVERFLOW_SPILL 策略下写入可丢弃事件。队列已满或仍有溢出的事件等待回放时，由 spill 写入缓存。
+     * 在锁内决定是否溢出并记录顺序，缓存的写入在锁外按到达顺序进行，不阻塞其他线程入队。
+     *
+     * @param spill      将事件写入缓存
+     * @param replayTask 开始溢出时以不可丢弃的方式入队，执行时需调用 {@link #finishSpill}
+     * @return 同 {@link #offer}
+     */
+    public boolean offerOrSpill(Runnable task, Spill spill, Runnable replayTask) {
+        boolean schedule = false;
+        lock.lock();
+        try {
+            if (!spillPending && items.size() < capacity) {
+                return add(task, true);
+            }
+            spilled.add(spill);
+            if (!spillPending) {
+                spillPending = true;
+                schedule = add(replayTask, false);
+            }
+        } finally {
+            lock.unlock();
+        }
+        synchronized (spillLock) {
+            Spill next;
+            while ((next = pollSpilled()) != null) {
+                runSpill(next);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * 回放任务中调用，结束溢出状态并由 drain 取出缓存，之后到达的事件重新进入队列
+     */
+    public void finishSpill(Runnable drain) {
+        synchronized (spillLock) {
+            List<Spill> remaining;
+            lock.lock();
+            try {
+                spillPending = false;
+                remaining = new ArrayList<>(spilled);
+                spilled.clear();
+            } finally {
+                lock.unlock();
+            }
+            // 结束溢出前到达的事件先写入缓存，之后到达的事件属于下一次回放
+            for (Spill spill : remaining) {
+                runSpill(spill);
+            }
+            drain.run();
+        }
+    }
+
+    private Spill pollSpilled() {
+        lock.lock();
+        try {
+            return spilled.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runSpill(Spill spill) {
+        if (!spill.spill()) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private boolean add(Runnable task, boolean droppable) {
+        items.add(new Item(task, droppable));
+        depth = items.size();
+        if (scheduled) return false;
+        scheduled = true;
+        return true;
+    }
+
+    private boolean makeRoom() {
+        if (overflowPolicy == OVERFLOW_BLOCK) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MS);
+            try {
+                while (items.size() >= capacity && nanos > 0L) {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return items.size() < capacity;
+        }
+        Iterator<Item> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().droppable) {
+                iterator.remove();
+                droppedCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取出最多 maxBatch 个任务
+     *
+     * @return true 表示队列中仍有任务，调用方需要再调度一次消费
+     */
+    public boolean drainTo(Collection<Runnable> out, int maxBatch) {
+        lock.lock();
+        try {
+            int count = 0;
+            while (count < maxBatch && !items.isEmpty()) {
+                out.add(items.poll().task);
+                count++;
+            }
+            depth = items.size();
+            if (count > 0) notFull.signalAll();
+            scheduled = !items.isEmpty();
+            return scheduled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前队列中等待执行的任务数
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * 因队列已满被丢弃的事件总数，包括 OVERFLOW_SPILL 下缓存已满丢弃的事件
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static final class Item {
+        final Runnable task;
+        final boolean droppable;
+
+        Item(Runnable task, boolean droppable) {
+            this.task = task;
+            this.droppable = droppable;
+        }
+    }
+
+    /**
+     * OVERFLOW_SPILL 下将事件写入缓存
+     */
+    public interface Spill {
+        /**
+         * @return false 表示缓存已满，有事件被丢弃
+         */
+        boolean spill();
+    }
+
+    @IntDef({OVERFLOW_DROP_OLDEST, OVERFLOW_BLOCK, OVERFLOW_SPILL})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface OverflowPolicy {
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track;
+
+import android.content.Context;
+
+import com.growingio.android.sdk.track.events.CustomEvent;
+import com.growingio.android.sdk.track.events.TrackEventType;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.log.Logger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SDK 初始化前(或关闭数据采集时)产生的事件，以及事件队列溢出的事件的缓存。
+ * <p>
+ * 内存中保留最新的事件，超出容量时最早的事件追加写入 mmap 文件，文件在进程被杀后仍然保留，下次释放缓存时按顺序回放。
+ * 目前只有 CustomEvent 可以写入文件，其他事件超出容量时直接丢弃。
+ */
+final class PreInitEventCache {
+    private static final String TAG = "PreInitEventCache";
+
+    static final String SPILL_FILE_NAME = "growing3_preinit_events";
+    static final int DEFAULT_MEMORY_CAPACITY = 200;
+
+    private static final int MAGIC = 0x47494F45;
+    // magic + 写入位置
+    private static final int HEADER_SIZE = 8;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String KEY_EVENT_TYPE = "eventType";
+    private static final String KEY_EVENT_NAME = "eventName";
+    private static final String KEY_ATTRIBUTES = "attributes";
+
+    private final ArrayDeque<BaseEvent.BaseBuilder<?>> memory = new ArrayDeque<>();
+    private int memoryCapacity = DEFAULT_MEMORY_CAPACITY;
+    private int spillSize;
+    private Context context;
+
+    private RandomAccessFile spillFile;
+    private FileLock spillLock;
+    private MappedByteBuffer spillBuffer;
+    private boolean spillUnavailable;
+    private long droppedCount;
+
+    /**
+     * @param memoryCapacity 内存中缓存的事件数
+     * @param spillSizeKb    溢出文件大小，0 表示不写入文件
+     */
+    synchronized void config(Context context, int memoryCapacity, int spillSizeKb) {
+        if (context != null) this.context = context.getApplicationContext();
+        this.memoryCapacity = Math.max(1, memoryCapacity);
+        this.spillSize = Math.max(0, spillSizeKb) * 1024;
+        while (memory.size() > this.memoryCapacity) {
+            spill(memory.poll());
+        }
+    }
+
+    synchronized void attach(Context context) {
+        if (this.context == null && context != null) this.context = context.getApplicationContext();
+    }
+
+    /**
+     * @return false 表示缓存已满，有事件被丢弃
+     */
+    synchronized boolean add(BaseEvent.BaseBuilder<?> eventBuilder) {
+        boolean kept = true;
+        if (memory.size() >= memoryCapacity) {
+            kept = spill(memory.poll());
+        }
+        memory.add(eventBuilder);
+        return kept;
+    }
+
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 按产生顺序取出所有缓存事件：文件中的事件早于内存中的事件
+     */
+    synchronized List<BaseEvent.BaseBuilder<?>> drain() {
+        List<BaseEvent.BaseBuilder<?>> builders = new ArrayList<>();
+        if (openSpill()) {
+            int end = Math.min(spillBuffer.getInt(4), spillBuffer.capacity());
+            int position = HEADER_SIZE;
+            while (position + 4 <= end) {
+                int length = spillBuffer.getInt(position);
+                if (length <= 0 || position + 4 + length > end) {
+                    Logger.e(TAG, "spill file is broken at " + position);
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = spillBuffer.get(position + 4 + i);
+                }
+                BaseEvent.BaseBuilder<?> builder = decode(new String(bytes, UTF_8));
+                if (builder != null) builders.add(builder);
+                position += 4 + length;
+            }
+            spillBuffer.putInt(4, HEADER_SIZE);
+        }
+        builders.addAll(memory);
+        memory.clear();
+        return builders;
+    }
+
+    synchronized void clear() {
+        memory.clear();
+        if (spillBuffer != null) spillBuffer.putInt(4, HEADER_SIZE);
+    }
+
+    private boolean spill(BaseEvent.BaseBuilder<?> eventBuilder) {
+        if (eventBuilder == null) return true;
+        String encoded = spillSize > 0 ? encode(eventBuilder) : null;
+        if (encoded != null && openSpill()) {
+            byte[] bytes = encoded.getBytes(UTF_8);
+            int position = spillBuffer.getInt(4);
+            int limit = Math.min(spillSize, spillBuffer.capacity());
+            if (position + 4 + bytes.length <= limit) {
+                spillBuffer.putInt(position, bytes.length);
+                for (int i = 0; i < bytes.length; i++) {
+                    spillBuffer.put(position + 4 + i, bytes[i]);
+                }
+                // 记录写入完成后再移动写入位置
+                spillBuffer.putInt(4, position + 4 + bytes.length);
+                return true;
+            }
+        }
+        droppedCount++;
+        Logger.w(TAG, "pre-init cache is full, drop event: " + eventBuilder.getEventType());
+        return false;
+    }
+
+    private File getSpillFile() {
+        if (context == null) return null;
+        return new File(context.getFilesDir(), SPILL_FILE_NAME);
+    }
+
+    private boolean openSpill() {
+        if (spillBuffer != null) return true;
+        if (spillUnavailable) return false;
+        File file = getSpillFile();
+        if (file == null) return false;
+        if (spillSize <= 0 && (!file.exists() || file.length() <= HEADER_SIZE)) return false;
+        try {
+            spillFile = new RandomAccessFile(file, "rw");
+            FileChannel channel = spillFile.getChannel();
+            // 多进程时只有一个进程持有缓存文件
+            spillLock = channel.tryLock();
+            if (spillLock == null) {
+                Logger.w(TAG, "spill file is used by another process");
+                closeSpill(true);
+                return false;
+            }
+            long size = Math.max(spillSize, channel.size());
+            if (size <= HEADER_SIZE) {
+                closeSpill(false);
+                return false;
+            }
+            spillBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (spillBuffer.getInt(0) != MAGIC) {
+                spillBuffer.putInt(4, HEADER_SIZE);
+                spillBuffer.putInt(0, MAGIC);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Logger.e(TAG, e, "open spill file failed");
+            closeSpill(true);
+            return false;
+        }
+    }
+
+    /**
+     * 释放缓存文件，文件中未回放的事件仍然保留
+     */
+    synchronized void close() {
+        closeSpill(false);
+    }
+
+    private void closeSpill(boolean unavailable) {
+        spillUnavailable = unavailable;
+        spillBuffer = null;
+        try {
+            if (spillLock != null) spillLock.release();
+            if (spillFile != null) spillFile.close();
+        } catch (IOException ignored) {
+        }
+        spillLock = null;
+        spillFile = null;
+    }
+
+    static String encode(BaseEvent.BaseBuilder<?> eventBuilder) {
+        if (eventBuilder.getClass() != CustomEvent.Builder.class) return null;
+        CustomEvent.Builder builder = (CustomEvent.Builder) eventBuilder;
+        try {
+            JSONObject json = new JSONObject();
+            json.put(KEY_EVENT_TYPE, builder.getEventType());
+            json.put(KEY_EVENT_NAME, builder.getEventName());
+            Map<String, String> attributes = builder.getAttributes();
+            if (attributes != null) {
+                JSONObject attributesJson = new JSONObject();
+                for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                    if (entry.getKey() != null && entry.getValue() != null) {
+                        attributesJson.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                json.put(KEY_ATTRIBUTES, attributesJson);
+            }
+            return json.toString();
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    static BaseEvent.BaseBuilder<?> decode(String encoded) {
+        try {
+            JSONObject json = new JSONObject(encoded);
+            if (!TrackEventType.CUSTOM.equals(json.optString(KEY_EVENT_TYPE))) return null;
+            CustomEvent.Builder builder = new CustomEvent.Builder();
+            builder.setEventName(json.optString(KEY_EVENT_NAME, null));
+            JSONObject attributes = json.optJSONObject(KEY_ATTRIBUTES);
+            if (attributes != null) {
+                Map<String, String> map = new HashMap<>();
+                Iterator<String> keys = attributes.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    map.put(key, attributes.optString(key));
+                }
+                builder.setAttributes(map);
+            }
+            return builder;
+        } catch (JSONException e) {
+            Logger.e(TAG, e, "decode cached event failed");
+            return null;
+        }
+    }
+}
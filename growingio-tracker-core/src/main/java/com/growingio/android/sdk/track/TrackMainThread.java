@@ -23,25 +23,35 @@ import android.os.Looper;
 
 import com.growingio.android.sdk.CoreConfiguration;
 import com.growingio.android.sdk.TrackerContext;
-import com.growingio.android.sdk.track.log.CircularFifoQueue;
 import com.growingio.android.sdk.track.providers.ActivityStateProvider;
 import com.growingio.android.sdk.track.providers.PersistentDataProvider;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
+import com.growingio.android.sdk.track.listener.IActivityLifecycle;
 import com.growingio.android.sdk.track.listener.TrackThread;
+import com.growingio.android.sdk.track.listener.event.ActivityLifecycleEvent;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.EventSender;
 import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.providers.EventBuilderProvider;
 import com.growingio.android.sdk.track.providers.SessionProvider;
 import com.growingio.android.sdk.track.middleware.EventHttpSender;
+import com.growingio.android.sdk.track.events.TrackEventType;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * GrowingIO主线程
  */
 public final class TrackMainThread {
     private static final String TAG = "TrackMainThread";
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private final PreInitEventCache caches;
 
-    private final CircularFifoQueue<BaseEvent.BaseBuilder<?>> caches;
+    private final EventIngestQueue ingestQueue;
+    private final List<Runnable> drainBatch = new ArrayList<>(DRAIN_BATCH_SIZE);
+    private final List<BaseEvent.BaseBuilder<?>> spillReplayBatch = new ArrayList<>();
 
     private final Handler mainHandler;
     private final Handler uiHandler;
@@ -54,8 +64,18 @@ public final class TrackMainThread {
     private ActivityStateProvider activityStateProvider;
     private Context context;
 
+    // app may be killed in background, so the pending events should be written to database in time.
+    private final IActivityLifecycle commitLifecycle = event -> {
+        if (event.eventType == ActivityLifecycleEvent.EVENT_TYPE.ON_STOPPED) {
+            postActionToTrackMain(() -> {
+                if (eventSender != null) eventSender.commitPendingEvents();
+            });
+        }
+    };
+
     private TrackMainThread() {
-        caches = new CircularFifoQueue<>(200);
+        caches = new PreInitEventCache();
+        ingestQueue = new EventIngestQueue(CoreConfiguration.DEFAULT_EVENT_QUEUE_CAPACITY, EventIngestQueue.OVERFLOW_DROP_OLDEST);
         HandlerThread handlerThread = new HandlerThread(TAG);
         handlerThread.start();
         mainHandler = new Handler(handlerThread.getLooper());
@@ -69,22 +89,31 @@ public final class TrackMainThread {
         this.persistentDataProvider = context.getProvider(PersistentDataProvider.class);
         this.sessionProvider = context.getProvider(SessionProvider.class);
         this.activityStateProvider = context.getActivityStateProvider();
+        caches.attach(this.context);
+        ingestQueue.setup(coreConfiguration.getEventQueueCapacity(), coreConfiguration.getEventQueueOverflowPolicy());
         int uploadInterval = coreConfiguration.isDebugEnabled() ? 0 : coreConfiguration.getDataUploadInterval();
         eventSender = new EventSender(
                 this.context,
                 context.getRegistry(),
                 new EventHttpSender(context),
                 uploadInterval,
-                coreConfiguration.getCellularDataLimit());
+                coreConfiguration.getCellularDataLimit(),
+                coreConfiguration.getMaxConcurrentRequests());
+        eventSender.setUploadBatchSizeListener(coreConfiguration.getUploadBatchSizeListener());
+        this.activityStateProvider.registerActivityLifecycleListener(commitLifecycle);
     }
 
     public void shutdown() {
         caches.clear();
+        caches.close();
         this.context = null;
         this.coreConfiguration = null;
         this.eventBuilderProvider = null;
         this.persistentDataProvider = null;
         this.sessionProvider = null;
+        if (this.activityStateProvider != null) {
+            this.activityStateProvider.unregisterActivityLifecycleListener(commitLifecycle);
+        }
         this.activityStateProvider = null;
         this.eventSender.shutdown();
         this.eventSender = null;
@@ -115,25 +144,82 @@ public final class TrackMainThread {
     }
 
     public void postEventToTrackMain(final BaseEvent.BaseBuilder<?> eventBuilder) {
-        postActionToTrackMain(() -> {
-            if (eventBuilder == null) {
-                return;
-            }
-
+        if (eventBuilder == null) {
+            return;
+        }
+        Runnable task = () -> {
             if (coreConfiguration != null && coreConfiguration.isDataCollectionEnabled()) {
                 onGenerateGEvent(eventBuilder);
             }
-        });
+        };
+        if (mainHandler.getLooper() == Looper.myLooper()) {
+            task.run();
+            return;
+        }
+        boolean droppable = !isInstantEvent(eventBuilder);
+        if (droppable && ingestQueue.getOverflowPolicy() == EventIngestQueue.OVERFLOW_SPILL) {
+            // 溢出的事件与初始化前的事件共用缓存，回放前到达的事件都写入缓存，保持到达顺序
+            if (ingestQueue.offerOrSpill(task, () -> caches.add(eventBuilder), spillReplayTask)) {
+                mainHandler.post(drainTask);
+            }
+            return;
+        }
+        enqueue(task, droppable);
     }
 
-    public void releaseCaches() {
-        if (!caches.isEmpty() && coreConfiguration != null && coreConfiguration.isDataCollectionEnabled()) {
-            for (BaseEvent.BaseBuilder<?> eventBuilder : caches) {
-                TrackMainThread.trackMain().postEventToTrackMain(eventBuilder);
+    private final Runnable spillReplayTask = new Runnable() {
+        @Override
+        public void run() {
+            ingestQueue.finishSpill(() -> {
+                if (coreConfiguration != null && coreConfiguration.isDataCollectionEnabled()) {
+                    spillReplayBatch.addAll(caches.drain());
+                }
+            });
+            try {
+                for (BaseEvent.BaseBuilder<?> eventBuilder : spillReplayBatch) {
+                    onGenerateGEvent(eventBuilder);
+                }
+            } finally {
+                spillReplayBatch.clear();
             }
-            Logger.d(TAG, "release cache events after sdk init: count-" + caches.size());
-            caches.clear();
         }
+    };
+
+    // 与 GEvent#getSendPolicy 中即时发送的事件保持一致，这些事件不会因队列已满而被丢弃
+    private static boolean isInstantEvent(BaseEvent.BaseBuilder<?> eventBuilder) {
+        String eventType = eventBuilder.getEventType();
+        return TrackEventType.VISIT.equals(eventType) || TrackEventType.ACTIVATE.equals(eventType);
+    }
+
+    /**
+     * 配置 SDK 初始化前的事件缓存，需要在初始化之前调用，适用于延迟初始化 SDK 的应用
+     *
+     * @param memoryCapacity 内存中缓存的事件数，默认 200
+     * @param spillSizeKb    内存缓存已满时，较早的事件写入文件，文件大小上限，单位 KB，默认 0 即不写入文件直接丢弃
+     */
+    public void setPreInitCacheConfig(Context context, int memoryCapacity, int spillSizeKb) {
+        caches.config(context, memoryCapacity, spillSizeKb);
+    }
+
+    /**
+     * 事件缓存已满而被丢弃的事件数
+     */
+    public long getPreInitDroppedEventCount() {
+        return caches.getDroppedCount();
+    }
+
+    public void releaseCaches() {
+        if (coreConfiguration == null || !coreConfiguration.isDataCollectionEnabled()) return;
+        // 在 track 线程中一次性回放，文件中的事件也在 track 线程中读取
+        postActionToTrackMain(() -> {
+            if (coreConfiguration == null || !coreConfiguration.isDataCollectionEnabled()) return;
+            List<BaseEvent.BaseBuilder<?>> builders = caches.drain();
+            if (builders.isEmpty()) return;
+            for (BaseEvent.BaseBuilder<?> eventBuilder : builders) {
+                onGenerateGEvent(eventBuilder);
+            }
+            Logger.d(TAG, "release cache events after sdk init: count-" + builders.size());
+        });
     }
 
     public void cacheEventToTrackMain(BaseEvent.BaseBuilder<?> eventBuilder) {
@@ -164,7 +250,44 @@ public final class TrackMainThread {
             runnable.run();
             return;
         }
-        mainHandler.post(runnable);
+        enqueue(runnable, false);
+    }
+
+    // action 与事件共用一个队列，保证两者按提交顺序执行
+    private void enqueue(Runnable task, boolean droppable) {
+        if (ingestQueue.offer(task, droppable)) {
+            mainHandler.post(drainTask);
+        }
+    }
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            boolean hasMore = ingestQueue.drainTo(drainBatch, DRAIN_BATCH_SIZE);
+            try {
+                for (Runnable task : drainBatch) {
+                    task.run();
+                }
+            } finally {
+                drainBatch.clear();
+                // 让出 Looper，使延时消息可以穿插执行
+                if (hasMore) mainHandler.post(this);
+            }
+        }
+    };
+
+    /**
+     * 等待 track 线程处理的事件与任务数
+     */
+    public int getEventQueueDepth() {
+        return ingestQueue.getDepth();
+    }
+
+    /**
+     * 因队列已满被丢弃的事件总数，包括 OVERFLOW_SPILL 下溢出缓存已满丢弃的事件
+     */
+    public long getDroppedEventCount() {
+        return ingestQueue.getDroppedCount();
     }
 
     private void onGenerateGEvent(BaseEvent.BaseBuilder<?> gEvent) {
@@ -19,23 +19,17 @@ import androidx.annotation.FloatRange;
 import androidx.annotation.IntRange;
 import androidx.annotation.Nullable;
 
-import com.growingio.android.sdk.track.SDKConfig;
 import com.growingio.android.sdk.TrackerContext;
 import com.growingio.android.sdk.track.events.helper.DefaultEventFilterInterceptor;
 import com.growingio.android.sdk.track.providers.PersistentDataProvider;
 import com.growingio.android.sdk.track.listener.TrackThread;
 import com.growingio.android.sdk.track.middleware.GEvent;
 import com.growingio.android.sdk.track.providers.ActivityStateProvider;
-import com.growingio.android.sdk.track.providers.AppInfoProvider;
-import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 import com.growingio.android.sdk.track.providers.DeviceInfoProvider;
-import com.growingio.android.sdk.track.providers.UserInfoProvider;
+import com.growingio.android.sdk.track.providers.EventContextProvider;
 import com.growingio.android.sdk.track.utils.ConstantPool;
-import com.growingio.android.sdk.track.utils.NetworkUtil;
 import com.growingio.sdk.annotation.json.JsonSerializer;
 
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 @JsonSerializer(builder = "BaseBuilder")
@@ -280,32 +274,16 @@ public abstract class BaseEvent extends GEvent {
             platform = ConstantPool.ANDROID;
         }
 
-        protected Map<String, Boolean> mFilterField = new HashMap<>();
+        protected int mFilterMask = BaseField.FLAG_ALL;
+        protected EventContextProvider.EventContext mEventContext;
 
         @TrackThread
         public void filterFieldProperty(Map<String, Boolean> filterField) {
-            if (filterField == null) mFilterField.clear();
-            else {
-                mFilterField = filterField;
-            }
+            mFilterMask = BaseField.toFilterMask(filterField);
         }
 
         public Map<String, Boolean> getFilterMap() {
-            mFilterField.put(BaseField.APP_STATE, true);
-            mFilterField.put(BaseField.NETWORK_STATE, true);
-            mFilterField.put(BaseField.SCREEN_HEIGHT, true);
-            mFilterField.put(BaseField.SCREEN_WIDTH, true);
-            mFilterField.put(BaseField.DEVICE_BRAND, true);
-            mFilterField.put(BaseField.DEVICE_MODEL, true);
-            mFilterField.put(BaseField.DEVICE_TYPE, true);
-            mFilterField.put(BaseField.APP_CHANNEL, true);
-            mFilterField.put(BaseField.APP_NAME, true);
-            mFilterField.put(BaseField.APP_VERSION, true);
-            mFilterField.put(BaseField.LANGUAGE, true);
-            mFilterField.put(BaseField.LATITUDE, true);
-            mFilterField.put(BaseField.LONGITUDE, true);
-            mFilterField.put(BaseField.SDK_VERSION, true);
-            return mFilterField;
+            return BaseField.newFilterMap();
         }
 
         private boolean isEventSequenceIdType(String type) {
@@ -322,55 +300,51 @@ public abstract class BaseEvent extends GEvent {
             if (eventType == null) eventType = getEventType();
 
             ActivityStateProvider activityStateProvider = context.getActivityStateProvider();
-            appState = activityStateProvider.getForegroundActivity() != null ? APP_STATE_FOREGROUND : APP_STATE_BACKGROUND;
-            // filter field area
-            if (!getFieldDefault(BaseField.APP_STATE)) {
-                appState = null;
-            }
+            appState = isFieldEnabled(BaseField.FLAG_APP_STATE)
+                    ? (activityStateProvider.getForegroundActivity() != null ? APP_STATE_FOREGROUND : APP_STATE_BACKGROUND) : null;
 
-            PersistentDataProvider persistentDataProvider = context.getProvider(PersistentDataProvider.class);
-            sessionId = persistentDataProvider.getSessionId();
             if (isEventSequenceIdType(eventType)) {
+                PersistentDataProvider persistentDataProvider = context.getProvider(PersistentDataProvider.class);
                 eventSequenceId = persistentDataProvider.getGlobalEventSequenceIdAndIncrement();
             } else {
                 eventSequenceId = 0L;
             }
 
-            UserInfoProvider userInfoProvider = context.getUserInfoProvider();
-            userKey = userInfoProvider.getLoginUserKey();
-            userId = userInfoProvider.getLoginUserId();
-
-            ConfigurationProvider configurationProvider = context.getConfigurationProvider();
-            urlScheme = configurationProvider.core().getUrlScheme();
-            dataSourceId = configurationProvider.core().getDataSourceId();
-            appChannel = getFieldDefault(BaseField.APP_CHANNEL) ? configurationProvider.core().getChannel() : null;
-
+            EventContextProvider eventContextProvider = context.getProvider(EventContextProvider.class);
+            EventContextProvider.EventContext eventContext = eventContextProvider.getEventContext();
+            mEventContext = eventContext;
+            sessionId = eventContext.getSessionId();
+            userKey = eventContext.getUserKey();
+            userId = eventContext.getUserId();
+            urlScheme = eventContext.getUrlScheme();
+            dataSourceId = eventContext.getDataSourceId();
+            appChannel = isFieldEnabled(BaseField.FLAG_APP_CHANNEL) ? eventContext.getAppChannel() : null;
+
+            platformVersion = eventContext.getPlatformVersion();
+            platform = eventContext.getPlatform();
+            deviceId = eventContext.getDeviceId();
+            screenHeight = isFieldEnabled(BaseField.FLAG_SCREEN_HEIGHT) ? eventContext.getScreenHeight() : 0;
+            screenWidth = isFieldEnabled(BaseField.FLAG_SCREEN_WIDTH) ? eventContext.getScreenWidth() : 0;
+            deviceBrand = isFieldEnabled(BaseField.FLAG_DEVICE_BRAND) ? eventContext.getDeviceBrand() : null;
+            deviceModel = isFieldEnabled(BaseField.FLAG_DEVICE_MODEL) ? eventContext.getDeviceModel() : null;
+            deviceType = isFieldEnabled(BaseField.FLAG_DEVICE_TYPE) ? eventContext.getDeviceType() : null;
+
+            // location is set by user in track thread
             DeviceInfoProvider deviceInfo = context.getDeviceInfoProvider();
-            deviceInfo.updateFoldScreenSize();
-
-            platformVersion = deviceInfo.getPlatformVersion();
-            platform = deviceInfo.getPlatform();
-            deviceId = deviceInfo.getDeviceId();
-            screenHeight = getFieldDefault(BaseField.SCREEN_HEIGHT) ? deviceInfo.getScreenHeight() : 0;
-            screenWidth = getFieldDefault(BaseField.SCREEN_WIDTH) ? deviceInfo.getScreenWidth() : 0;
-            deviceBrand = getFieldDefault(BaseField.DEVICE_BRAND) ? deviceInfo.getDeviceBrand() : null;
-            deviceModel = getFieldDefault(BaseField.DEVICE_MODEL) ? deviceInfo.getDeviceModel() : null;
-            deviceType = getFieldDefault(BaseField.DEVICE_TYPE) ? deviceInfo.getDeviceType() : null;
-            latitude = getFieldDefault(BaseField.LATITUDE) ? deviceInfo.getLatitude() : 0;
-            longitude = getFieldDefault(BaseField.LONGITUDE) ? deviceInfo.getLongitude() : 0;
-
-            AppInfoProvider appInfo = context.getProvider(AppInfoProvider.class);
-            appName = getFieldDefault(BaseField.APP_NAME) ? appInfo.getAppName() : null;
-            appVersion = getFieldDefault(BaseField.APP_VERSION) ? appInfo.getAppVersion() : null;
+            latitude = isFieldEnabled(BaseField.FLAG_LATITUDE) ? deviceInfo.getLatitude() : 0;
+            longitude = isFieldEnabled(BaseField.FLAG_LONGITUDE) ? deviceInfo.getLongitude() : 0;
+
+            appName = isFieldEnabled(BaseField.FLAG_APP_NAME) ? eventContext.getAppName() : null;
+            appVersion = isFieldEnabled(BaseField.FLAG_APP_VERSION) ? eventContext.getAppVersion() : null;
             if (domain == null || domain.isEmpty()) {
                 // default is packageName
-                domain = appInfo.getPackageName();
+                domain = eventContext.getPackageName();
             }
 
             timestamp = (timestamp != 0) ? timestamp : System.currentTimeMillis();
-            networkState = getFieldDefault(BaseField.NETWORK_STATE) ? NetworkUtil.getActiveNetworkState(context).getNetworkName() : null;
-            sdkVersion = getFieldDefault(BaseField.SDK_VERSION) ? SDKConfig.SDK_VERSION : null;
-            language = getFieldDefault(BaseField.LANGUAGE) ? Locale.getDefault().getLanguage() : null;
+            networkState = isFieldEnabled(BaseField.FLAG_NETWORK_STATE) ? eventContext.getNetworkState() : null;
+            sdkVersion = isFieldEnabled(BaseField.FLAG_SDK_VERSION) ? eventContext.getSdkVersion() : null;
+            language = isFieldEnabled(BaseField.FLAG_LANGUAGE) ? eventContext.getLanguage() : null;
         }
 
         /**
@@ -379,15 +353,21 @@ public abstract class BaseEvent extends GEvent {
          */
         @TrackThread
         public void readNewPropertyInTrackThread(TrackerContext context) {
-            DeviceInfoProvider deviceInfo = context.getDeviceInfoProvider();
-            timezoneOffset = getFieldDefault(BaseField.TIMEZONE_OFFSET) ? String.valueOf(deviceInfo.getTimezoneOffset()) : null;
+            if (!isFieldEnabled(BaseField.FLAG_TIMEZONE_OFFSET)) {
+                timezoneOffset = null;
+            } else if (mEventContext != null) {
+                timezoneOffset = mEventContext.getTimezoneOffset();
+            } else {
+                timezoneOffset = String.valueOf(context.getDeviceInfoProvider().getTimezoneOffset());
+            }
         }
 
         protected Boolean getFieldDefault(String key) {
-            if (mFilterField.containsKey(key)) {
-                return mFilterField.get(key);
-            }
-            return true;
+            return isFieldEnabled(BaseField.flagOf(key));
+        }
+
+        protected boolean isFieldEnabled(int flag) {
+            return (mFilterMask & flag) == flag;
         }
 
         public String getEventType() {
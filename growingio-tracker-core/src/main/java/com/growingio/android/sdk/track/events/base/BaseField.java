@@ -15,6 +15,9 @@
  */
 package com.growingio.android.sdk.track.events.base;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * <p>
  *
@@ -41,4 +44,96 @@ public final class BaseField {
     public final static String LONGITUDE = "longitude";
     public final static String SDK_VERSION = "sdkVersion";
     public final static String TIMEZONE_OFFSET = "timezoneOffset";
+
+    // 字段过滤位，builder 中以 int 掩码代替 Map<String, Boolean>
+    static final int FLAG_APP_STATE = 1;
+    static final int FLAG_NETWORK_STATE = 1 << 1;
+    static final int FLAG_APP_CHANNEL = 1 << 2;
+    static final int FLAG_SCREEN_HEIGHT = 1 << 3;
+    static final int FLAG_SCREEN_WIDTH = 1 << 4;
+    static final int FLAG_DEVICE_BRAND = 1 << 5;
+    static final int FLAG_DEVICE_MODEL = 1 << 6;
+    static final int FLAG_DEVICE_TYPE = 1 << 7;
+    static final int FLAG_APP_NAME = 1 << 8;
+    static final int FLAG_APP_VERSION = 1 << 9;
+    static final int FLAG_LANGUAGE = 1 << 10;
+    static final int FLAG_LATITUDE = 1 << 11;
+    static final int FLAG_LONGITUDE = 1 << 12;
+    static final int FLAG_SDK_VERSION = 1 << 13;
+    static final int FLAG_TIMEZONE_OFFSET = 1 << 14;
+    static final int FLAG_ALL = (1 << 15) - 1;
+
+    /**
+     * @return the flag of the field, or 0 if the field can't be filtered.
+     */
+    static int flagOf(String field) {
+        if (field == null) return 0;
+        switch (field) {
+            case APP_STATE:
+                return FLAG_APP_STATE;
+            case NETWORK_STATE:
+                return FLAG_NETWORK_STATE;
+            case APP_CHANNEL:
+                return FLAG_APP_CHANNEL;
+            case SCREEN_HEIGHT:
+                return FLAG_SCREEN_HEIGHT;
+            case SCREEN_WIDTH:
+                return FLAG_SCREEN_WIDTH;
+            case DEVICE_BRAND:
+                return FLAG_DEVICE_BRAND;
+            case DEVICE_MODEL:
+                return FLAG_DEVICE_MODEL;
+            case DEVICE_TYPE:
+                return FLAG_DEVICE_TYPE;
+            case APP_NAME:
+                return FLAG_APP_NAME;
+            case APP_VERSION:
+                return FLAG_APP_VERSION;
+            case LANGUAGE:
+                return FLAG_LANGUAGE;
+            case LATITUDE:
+                return FLAG_LATITUDE;
+            case LONGITUDE:
+                return FLAG_LONGITUDE;
+            case SDK_VERSION:
+                return FLAG_SDK_VERSION;
+            case TIMEZONE_OFFSET:
+                return FLAG_TIMEZONE_OFFSET;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * convert the result of EventFilterInterceptor#filterEventField to mask, missing field means pass.
+     */
+    static int toFilterMask(Map<String, Boolean> filterField) {
+        int mask = FLAG_ALL;
+        if (filterField == null || filterField.isEmpty()) return mask;
+        for (Map.Entry<String, Boolean> entry : filterField.entrySet()) {
+            if (Boolean.FALSE.equals(entry.getValue())) {
+                mask &= ~flagOf(entry.getKey());
+            }
+        }
+        return mask;
+    }
+
+    static Map<String, Boolean> newFilterMap() {
+        Map<String, Boolean> filterMap = new HashMap<>();
+        filterMap.put(APP_STATE, true);
+        filterMap.put(NETWORK_STATE, true);
+        filterMap.put(SCREEN_HEIGHT, true);
+        filterMap.put(SCREEN_WIDTH, true);
+        filterMap.put(DEVICE_BRAND, true);
+        filterMap.put(DEVICE_MODEL, true);
+        filterMap.put(DEVICE_TYPE, true);
+        filterMap.put(APP_CHANNEL, true);
+        filterMap.put(APP_NAME, true);
+        filterMap.put(APP_VERSION, true);
+        filterMap.put(LANGUAGE, true);
+        filterMap.put(LATITUDE, true);
+        filterMap.put(LONGITUDE, true);
+        filterMap.put(SDK_VERSION, true);
+        return filterMap;
+    }
 }
@@ -25,5 +25,10 @@ import org.json.JSONObject;
 public interface JsonSerializable<T, R> {
     void toJson(JSONObject jsonObject, T event);
 
+    /**
+     * 直接写入字段，不包含对象的起止符
+     */
+    void writeJson(JsonStreamWriter writer, T event);
+
     void parseFrom(R builder, JSONObject json);
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.events.helper;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * <p>
+ * 直接输出 UTF-8 JSON 的写入器，供注解生成的 JsonSerializable#writeJson 使用，不再为每个事件创建 JSONObject。
+ * 字段名在生成代码中通过 {@link #name(String)} 预先编码，输出与 org.json 的格式保持一致。非线程安全，可通过 {@link #reset()} 复用。
+ */
+public final class JsonStreamWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+
+    private byte[] buffer;
+    private int size;
+    // 当前对象中是否还未写入字段
+    private boolean first = true;
+
+    public JsonStreamWriter() {
+        this(1024);
+    }
+
+    public JsonStreamWriter(int initialCapacity) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * 预先编码字段名，返回 "name": 的 UTF-8 字节
+     */
+    public static byte[] name(String name) {
+        JsonStreamWriter writer = new JsonStreamWriter(name.length() * 6 + 3);
+        writer.writeString(name);
+        writer.writeByte(':');
+        return writer.toByteArray();
+    }
+
+    public JsonStreamWriter reset() {
+        size = 0;
+        first = true;
+        return this;
+    }
+
+    public void beginObject() {
+        writeByte('{');
+        first = true;
+    }
+
+    public void endObject() {
+        writeByte('}');
+        first = false;
+    }
+
+    public void value(byte[] name, String value) {
+        if (value == null) return;
+        writeName(name);
+        writeString(value);
+    }
+
+    public void value(byte[] name, long value) {
+        writeName(name);
+        writeAscii(Long.toString(value));
+    }
+
+    /**
+     * 与 org.json 一致：整数值不输出小数部分，NaN 与无穷大无法表示，直接忽略
+     */
+    public void value(byte[] name, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return;
+        writeName(name);
+        long longValue = (long) value;
+        if (value == 0d && 1 / value < 0) {
+            writeAscii("-0");
+        } else if (value == (double) longValue) {
+            writeAscii(Long.toString(longValue));
+        } else {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    public void value(byte[] name, boolean value) {
+        writeName(name);
+        writeBytes(value ? TRUE : FALSE);
+    }
+
+    /**
+     * @param skipNullValue 为 true 时忽略 key 或 value 为 null 的项，否则 value 输出为 null
+     */
+    public void value(byte[] name, Map<String, String> map, boolean skipNullValue) {
+        if (map == null) return;
+        writeName(name);
+        beginObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null || (value == null && skipNullValue)) continue;
+            if (!first) writeByte(',');
+            first = false;
+            writeString(key);
+            writeByte(':');
+            if (value == null) {
+                writeBytes(NULL);
+            } else {
+                writeString(value);
+            }
+        }
+        endObject();
+    }
+
+    /**
+     * 其他类型的字段按字符串输出
+     */
+    public void value(byte[] name, Object value) {
+        if (value == null) return;
+        if (value instanceof Boolean) {
+            value(name, ((Boolean) value).booleanValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            value(name, ((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            value(name, ((Number) value).longValue());
+        } else {
+            value(name, value.toString());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeName(byte[] name) {
+        if (!first) writeByte(',');
+        first = false;
+        writeBytes(name);
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeAscii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * 转义规则与 org.json 的 JSONStringer 相同
+     */
+    private void writeString(String value) {
+        int length = value.length();
+        // 单个字符最多输出 6 字节(\\uXXXX)
+        ensureCapacity(length * 6 + 2);
+        byte[] buf = buffer;
+        int pos = size;
+        buf[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    buf[pos++] = '\\';
+                    buf[pos++] = (byte) c;
+                    break;
+                case '\t':
+                    buf[pos++] = '\\';
+                    buf[pos++] = 't';
+                    break;
+                case '\b':
+                    buf[pos++] = '\\';
+                    buf[pos++] = 'b';
+                    break;
+                case '\n':
+                    buf[pos++] = '\\';
+                    buf[pos++] = 'n';
+                    break;
+                case '\r':
+                    buf[pos++] = '\\';
+                    buf[pos++] = 'r';
+                    break;
+                case '\f':
+                    buf[pos++] = '\\';
+                    buf[pos++] = 'f';
+                    break;
+                default:
+                    if (c <= 0x1F) {
+                        buf[pos++] = '\\';
+                        buf[pos++] = 'u';
+                        buf[pos++] = HEX[(c >> 12) & 0xF];
+                        buf[pos++] = HEX[(c >> 8) & 0xF];
+                        buf[pos++] = HEX[(c >> 4) & 0xF];
+                        buf[pos++] = HEX[c & 0xF];
+                    } else if (c < 0x80) {
+                        buf[pos++] = (byte) c;
+                    } else if (c < 0x800) {
+                        buf[pos++] = (byte) (0xC0 | (c >> 6));
+                        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        char low = i + 1 < length ? value.charAt(i + 1) : 0;
+                        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                            int codePoint = Character.toCodePoint(c, low);
+                            buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                            buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                            buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                            buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                            i++;
+                        } else {
+                            // 与 String#getBytes 一致，单独的代理字符替换为 '?'
+                            buf[pos++] = '?';
+                        }
+                    } else {
+                        buf[pos++] = (byte) (0xE0 | (c >> 12));
+                        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                    }
+                    break;
+            }
+        }
+        buf[pos++] = '"';
+        size = pos;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = size + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
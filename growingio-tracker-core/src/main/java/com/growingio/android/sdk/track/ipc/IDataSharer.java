@@ -52,6 +52,13 @@ public interface IDataSharer {
 
     long getAndAddLong(String key, long delta, long startValue);
 
+    /**
+     * set the value to update only if the current value equals to expect.
+     *
+     * @return false if the value has been changed or doesn't exist.
+     */
+    boolean compareAndSetLong(String key, long expect, long update);
+
     int getAndIncrementInt(String key, int startValue);
 
     int getAndAddInt(String key, int delta, int startValue);
@@ -61,4 +68,25 @@ public interface IDataSharer {
     int getAndDelInt(String key, int delta, int startValue);
 
     void release();
+
+    /**
+     * listen to the value changes of key, whether written by this process or other processes.
+     * sharers that can't watch changes ignore it, callers should read the value again when needed.
+     */
+    default void registerDataChangedListener(String key, OnDataChangedListener listener) {
+    }
+
+    default void unregisterDataChangedListener(String key, OnDataChangedListener listener) {
+    }
+
+    /**
+     * notify the listeners if the watched values have been changed by other processes since last check.
+     * writes of this process are notified immediately.
+     */
+    default void checkDataChanged() {
+    }
+
+    interface OnDataChangedListener {
+        void onDataChanged(String key);
+    }
 }
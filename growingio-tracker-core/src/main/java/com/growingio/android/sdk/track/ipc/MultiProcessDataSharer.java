@@ -27,9 +27,11 @@ import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 public class MultiProcessDataSharer implements IDataSharer {
@@ -43,8 +45,12 @@ public class MultiProcessDataSharer implements IDataSharer {
     private MappedByteBuffer mMappedByteBuffer;
     private RandomAccessFile randomAccessFile;
     private FileChannel mFileChannel;
-    private final Map<String, SharedEntry> mSharedEntries = new HashMap<>();
-    private int mCurrentPosition = 0;
+    // 读取无需加锁，使用 ConcurrentHashMap
+    private final Map<String, SharedEntry> mSharedEntries = new ConcurrentHashMap<>();
+    private volatile int mCurrentPosition = 0;
+
+    private final Object mWatcherLock = new Object();
+    private final Map<String, Watcher> mWatchers = new ConcurrentHashMap<>();
 
     public MultiProcessDataSharer(Context context, String name, int maxSize) {
         mContext = context;
@@ -100,7 +106,8 @@ public class MultiProcessDataSharer implements IDataSharer {
                 randomAccessFile = new RandomAccessFile(file, "rw");
                 mFileChannel = randomAccessFile.getChannel();
                 mMappedByteBuffer = mFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) mMaxSize * SharedEntry.MAX_SIZE);
-                incrementLoadFromDisk();
+                // the legacy entries are stamped with checksum while loading
+                lockedRun(this::incrementLoadFromDisk);
             } catch (IOException e) {
                 Logger.e(TAG, e);
             }
@@ -133,11 +140,13 @@ public class MultiProcessDataSharer implements IDataSharer {
     }
 
     // 位置校验，在SharedEntry构造函数中，如果该位置没值或值非法则会抛出异常
+    // 在文件锁内调用
     private void incrementLoadFromDisk() {
         int surplus = mMaxSize - mSharedEntries.size();
         for (int i = 0; i < surplus; i++) {
             try {
                 SharedEntry sharedEntry = new SharedEntry(mMappedByteBuffer, mCurrentPosition);
+                sharedEntry.stampLegacyChecksum(mMappedByteBuffer);
                 mSharedEntries.put(sharedEntry.getKey(), sharedEntry);
                 mCurrentPosition = mCurrentPosition + SharedEntry.MAX_SIZE;
             } catch (IllegalArgumentException e) {
@@ -207,59 +216,60 @@ public class MultiProcessDataSharer implements IDataSharer {
         }
     }
 
-    @Nullable
-    @Override
-    public String getString(String key, @Nullable String defValue) {
+    /**
+     * 无锁读取：entry 已加载时通过 sequence 校验读取，失败时再加锁读取。
+     */
+    private Object readValue(String key) {
+        if (mLoaded && mMappedByteBuffer != null && mFileChannel != null && mFileChannel.isOpen()) {
+            SharedEntry entry = mSharedEntries.get(key);
+            if (entry != null) {
+                Object value = entry.getValueOptimistic(mMappedByteBuffer);
+                if (value != SharedEntry.READ_FAILED) {
+                    return value;
+                }
+            }
+        }
         synchronized (this) {
             awaitLoadedLocked();
-            String value = (String) getValue(key);
-            return value != null ? value : defValue;
+            return getValue(key);
         }
     }
 
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        String value = (String) readValue(key);
+        return value != null ? value : defValue;
+    }
+
     @Override
     public int getInt(String key, int defValue) {
-        synchronized (this) {
-            awaitLoadedLocked();
-            Integer value = (Integer) getValue(key);
-            return value != null ? value : defValue;
-        }
+        Integer value = (Integer) readValue(key);
+        return value != null ? value : defValue;
     }
 
     @Override
     public long getLong(String key, long defValue) {
-        synchronized (this) {
-            awaitLoadedLocked();
-            Long value = (Long) getValue(key);
-            return value != null ? value : defValue;
-        }
+        Long value = (Long) readValue(key);
+        return value != null ? value : defValue;
     }
 
     @Override
     public float getFloat(String key, float defValue) {
-        synchronized (this) {
-            awaitLoadedLocked();
-            Float value = (Float) getValue(key);
-            return value != null ? value : defValue;
-        }
+        Float value = (Float) readValue(key);
+        return value != null ? value : defValue;
     }
 
     @Override
     public boolean getBoolean(String key, boolean defValue) {
-        synchronized (this) {
-            awaitLoadedLocked();
-            Boolean value = (Boolean) getValue(key);
-            return value != null ? value : defValue;
-        }
+        Boolean value = (Boolean) readValue(key);
+        return value != null ? value : defValue;
     }
 
     @Override
     public List<Integer> getIntArray(String key, List<Integer> defValue) {
-        synchronized (this) {
-            awaitLoadedLocked();
-            List<Integer> value = (List<Integer>) getValue(key);
-            return value != null ? value : defValue;
-        }
+        List<Integer> value = (List<Integer>) readValue(key);
+        return value != null ? value : defValue;
     }
 
     @Override
@@ -268,6 +278,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_STRING, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -294,6 +305,7 @@ public class MultiProcessDataSharer implements IDataSharer {
                 }
             });
         }
+        checkDataChanged();
     }
 
     @Override
@@ -302,6 +314,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_INT, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -310,6 +323,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_LONG, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -318,6 +332,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_FLOAT, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -326,6 +341,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_BOOLEAN, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -334,6 +350,7 @@ public class MultiProcessDataSharer implements IDataSharer {
             awaitLoadedLocked();
             putValue(key, SharedEntry.VALUE_TYPE_INT_ARRAY, value);
         }
+        checkDataChanged();
     }
 
     @Override
@@ -343,6 +360,12 @@ public class MultiProcessDataSharer implements IDataSharer {
 
     @Override
     public long getAndAddLong(String key, long delta, long startValue) {
+        long result = getAndAddLongLocked(key, delta, startValue);
+        checkDataChanged();
+        return result;
+    }
+
+    private long getAndAddLongLocked(String key, long delta, long startValue) {
         synchronized (this) {
             awaitLoadedLocked();
             final long[] result = new long[1];
@@ -359,13 +382,58 @@ public class MultiProcessDataSharer implements IDataSharer {
                 Logger.v(TAG, "getAndAddLong:  update key=" + key + " result = " + result[0]);
                 return result[0];
             } else {
-                putValue(key, SharedEntry.VALUE_TYPE_LONG, startValue);
-                Logger.v(TAG, "getAndAddLong: insert key=" + key + " with " + startValue);
-                return startValue;
+                // the key may have been created by another process, load it before insert
+                lockedRun(new Runnable() {
+                    @Override
+                    public void run() {
+                        incrementLoadFromDisk();
+                        SharedEntry loaded = mSharedEntries.get(key);
+                        if (loaded != null) {
+                            Long value = (Long) loaded.getValue(mMappedByteBuffer);
+                            result[0] = (value != null ? value : startValue) + delta;
+                            loaded.putLong(mMappedByteBuffer, result[0]);
+                        } else {
+                            loaded = new SharedEntry(mMappedByteBuffer, mCurrentPosition, key);
+                            mSharedEntries.put(key, loaded);
+                            loaded.putObject(mMappedByteBuffer, SharedEntry.VALUE_TYPE_LONG, startValue);
+                            result[0] = startValue;
+                        }
+                    }
+                });
+                Logger.v(TAG, "getAndAddLong: insert key=" + key + " result = " + result[0]);
+                return result[0];
             }
         }
     }
 
+    @Override
+    public boolean compareAndSetLong(String key, long expect, long update) {
+        boolean result = compareAndSetLongLocked(key, expect, update);
+        checkDataChanged();
+        return result;
+    }
+
+    private boolean compareAndSetLongLocked(String key, long expect, long update) {
+        synchronized (this) {
+            awaitLoadedLocked();
+            final boolean[] result = new boolean[1];
+            SharedEntry entry = mSharedEntries.get(key);
+            if (entry == null) return false;
+            lockedRun(new Runnable() {
+                @Override
+                public void run() {
+                    Long value = (Long) entry.getValue(mMappedByteBuffer);
+                    if (value != null && value == expect) {
+                        entry.putLong(mMappedByteBuffer, update);
+                        result[0] = true;
+                    }
+                }
+            }, entry.getPosition(), SharedEntry.MAX_SIZE);
+            Logger.v(TAG, "compareAndSetLong: key=" + key + " expect=" + expect + " update=" + update + " result = " + result[0]);
+            return result[0];
+        }
+    }
+
     @Override
     public int getAndIncrementInt(String key, int startValue) {
         return getAndAddInt(key, 1, startValue);
@@ -373,6 +441,12 @@ public class MultiProcessDataSharer implements IDataSharer {
 
     @Override
     public int getAndAddInt(String key, int delta, int startValue) {
+        int result = getAndAddIntLocked(key, delta, startValue);
+        checkDataChanged();
+        return result;
+    }
+
+    private int getAndAddIntLocked(String key, int delta, int startValue) {
         synchronized (this) {
             awaitLoadedLocked();
             final int[] result = new int[1];
@@ -403,6 +477,12 @@ public class MultiProcessDataSharer implements IDataSharer {
 
     @Override
     public int getAndDelInt(String key, int delta, int startValue) {
+        int result = getAndDelIntLocked(key, delta, startValue);
+        checkDataChanged();
+        return result;
+    }
+
+    private int getAndDelIntLocked(String key, int delta, int startValue) {
         synchronized (this) {
             awaitLoadedLocked();
             final int[] result = new int[1];
@@ -425,4 +505,104 @@ public class MultiProcessDataSharer implements IDataSharer {
             }
         }
     }
+
+    @Override
+    public void registerDataChangedListener(String key, OnDataChangedListener listener) {
+        awaitLoaded();
+        synchronized (mWatcherLock) {
+            Watcher watcher = mWatchers.get(key);
+            if (watcher == null) {
+                watcher = new Watcher(key, getSequence(key));
+                mWatchers.put(key, watcher);
+            }
+            if (!watcher.listeners.contains(listener)) {
+                watcher.listeners.add(listener);
+            }
+        }
+    }
+
+    @Override
+    public void unregisterDataChangedListener(String key, OnDataChangedListener listener) {
+        synchronized (mWatcherLock) {
+            Watcher watcher = mWatchers.get(key);
+            if (watcher != null) {
+                watcher.listeners.remove(listener);
+                if (watcher.listeners.isEmpty()) {
+                    mWatchers.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 比较被监听 entry 的 sequence，变化时通知监听者。
+     * 本进程写入后会立即检查，其他进程的写入在下一次调用时发现。
+     */
+    @Override
+    public void checkDataChanged() {
+        if (mWatchers.isEmpty()) return;
+        awaitLoaded();
+        List<Watcher> changed = null;
+        synchronized (mWatcherLock) {
+            for (Watcher watcher : mWatchers.values()) {
+                int sequence = getSequence(watcher.key);
+                // odd means another process is writing, check next time
+                if (sequence == watcher.sequence || (sequence & 1) != 0) continue;
+                watcher.sequence = sequence;
+                if (changed == null) changed = new ArrayList<>();
+                changed.add(watcher);
+            }
+        }
+        // notify without lock, listeners may read or write the sharer
+        if (changed != null) {
+            for (Watcher watcher : changed) {
+                for (OnDataChangedListener listener : watcher.listeners) {
+                    listener.onDataChanged(watcher.key);
+                }
+            }
+        }
+    }
+
+    private void awaitLoaded() {
+        if (!mLoaded) {
+            synchronized (this) {
+                awaitLoadedLocked();
+            }
+        }
+    }
+
+    private int getSequence(String key) {
+        if (mMappedByteBuffer == null || mFileChannel == null || !mFileChannel.isOpen()) {
+            return Watcher.NO_ENTRY;
+        }
+        SharedEntry entry = mSharedEntries.get(key);
+        if (entry == null && hasNewEntry()) {
+            synchronized (this) {
+                awaitLoadedLocked();
+                lockedRun(this::incrementLoadFromDisk);
+            }
+            entry = mSharedEntries.get(key);
+        }
+        return entry == null ? Watcher.NO_ENTRY : entry.getSequence(mMappedByteBuffer);
+    }
+
+    // 其他进程新增了 entry
+    private boolean hasNewEntry() {
+        int position = mCurrentPosition;
+        if (position + 2 > mMappedByteBuffer.capacity()) return false;
+        return mMappedByteBuffer.getShort(position) > 0;
+    }
+
+    private static final class Watcher {
+        private static final int NO_ENTRY = Integer.MIN_VALUE;
+
+        private final String key;
+        private final List<OnDataChangedListener> listeners = new CopyOnWriteArrayList<>();
+        private int sequence;
+
+        private Watcher(String key, int sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
 }
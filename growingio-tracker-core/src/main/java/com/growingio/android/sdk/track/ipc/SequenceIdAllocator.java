@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.ipc;
+
+import com.growingio.android.sdk.track.log.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多进程共享的自增 id 分配器。
+ * 每个进程通过一次文件锁从共享文件中租用一段连续的 id，之后在进程内通过 AtomicLong 分配，不再加锁。
+ * 进程退出时未使用的 id 可以归还（仅当其他进程未在此之后租用），否则留下空洞。
+ */
+public class SequenceIdAllocator {
+    private static final String TAG = "SequenceIdAllocator";
+
+    private final IDataSharer dataSharer;
+    private final String key;
+    private final int blockSize;
+    private final boolean reclaimEnabled;
+
+    private volatile Lease lease = new Lease(1L, 0L);
+
+    public SequenceIdAllocator(IDataSharer dataSharer, String key, int blockSize, boolean reclaimEnabled) {
+        this.dataSharer = dataSharer;
+        this.key = key;
+        this.blockSize = Math.max(1, blockSize);
+        this.reclaimEnabled = reclaimEnabled;
+    }
+
+    public long nextId() {
+        while (true) {
+            Lease current = lease;
+            long id = current.next.getAndIncrement();
+            if (id <= current.last) {
+                return id;
+            }
+            synchronized (this) {
+                if (lease == current) {
+                    lease = reserve();
+                }
+            }
+        }
+    }
+
+    /**
+     * return the unused ids of current lease to the shared file,
+     * only works when no other process has leased after this one.
+     */
+    public synchronized void release() {
+        if (!reclaimEnabled) return;
+        Lease current = lease;
+        long next;
+        do {
+            next = current.next.get();
+            if (next > current.last) return;
+        } while (!current.next.compareAndSet(next, current.last + 1));
+
+        if (dataSharer.compareAndSetLong(key, current.last, next - 1)) {
+            Logger.d(TAG, "release sequence id range [" + next + ", " + current.last + "]");
+        } else {
+            Logger.d(TAG, "sequence id range [" + next + ", " + current.last + "] is left as gap");
+        }
+    }
+
+    private Lease reserve() {
+        // return the last id of the reserved block, the first block starts with 1
+        long last = dataSharer.getAndAddLong(key, blockSize, blockSize);
+        return new Lease(last - blockSize + 1, last);
+    }
+
+    private static final class Lease {
+        private final AtomicLong next;
+        private final long last;
+
+        private Lease(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import androidx.annotation.Nullable;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * 该数据结构最大存储长度为{@link SharedEntry#MAX_SIZE}，所以该数据结构不适于存储对象序列化或者长字符串。
@@ -35,7 +36,16 @@ import java.util.List;
  * │u2         │valueLength│  1  │
  * ├───────────┼───────────┼─────┤
  * │ux         │value      │  1  │
+ * ├───────────┼───────────┼─────┤
+ * │...        │padding    │  1  │
+ * ├───────────┼───────────┼─────┤
+ * │u4         │checksum   │  1  │
+ * ├───────────┼───────────┼─────┤
+ * │u4         │sequence   │  1  │
  * └───────────┴───────────┴─────┘
+ * sequence 位于每个 entry 的最后 4 个字节，写入前后各加一（写入中为奇数），
+ * 读取时无需文件锁，前后 sequence 一致即为有效值，否则重试。
+ * MappedByteBuffer 的读写在进程间没有顺序保证，因此无锁读取还需校验 valueType、valueLength 和 value 的 CRC32。
  */
 class SharedEntry {
     public static final int MAX_SIZE = 1024;
@@ -47,10 +57,25 @@ class SharedEntry {
     public static final byte VALUE_TYPE_STRING = 5;
     public static final byte VALUE_TYPE_INT_ARRAY = 6;
 
+    private static final int SEQUENCE_SIZE = Integer.SIZE / Byte.SIZE;
+    private static final int CHECKSUM_SIZE = Integer.SIZE / Byte.SIZE;
+    private static final int VALUE_HEADER_SIZE = 3;
+    private static final int MAX_OPTIMISTIC_RETRY = 3;
+
+    /**
+     * returned by {@link #getValueOptimistic(ByteBuffer)} when the value is being written.
+     */
+    static final Object READ_FAILED = new Object();
+
     private final int mPosition;
     private final String mKey;
 
     private final int mValuePosition;
+    private final int mSequencePosition;
+    private final int mChecksumPosition;
+
+    // 进程内缓存的解码值，sequence 未变化时直接返回
+    private volatile CachedValue mCachedValue;
 
     SharedEntry(ByteBuffer byteBuffer, int position) throws IllegalArgumentException {
         mPosition = position;
@@ -64,6 +89,8 @@ class SharedEntry {
         byteBuffer.get(bytes);
         mKey = new String(bytes);
         mValuePosition = mPosition + 2 + keyLength;
+        mSequencePosition = mPosition + MAX_SIZE - SEQUENCE_SIZE;
+        mChecksumPosition = mSequencePosition - CHECKSUM_SIZE;
     }
 
     SharedEntry(ByteBuffer byteBuffer, int position, String key) {
@@ -74,6 +101,8 @@ class SharedEntry {
         byteBuffer.putShort(keyLength);
         byteBuffer.put(mKey.getBytes());
         mValuePosition = mPosition + 2 + keyLength;
+        mSequencePosition = mPosition + MAX_SIZE - SEQUENCE_SIZE;
+        mChecksumPosition = mSequencePosition - CHECKSUM_SIZE;
     }
 
     public int getPosition() {
@@ -84,37 +113,99 @@ class SharedEntry {
         return mKey;
     }
 
+    /**
+     * read the value without file lock, retry if a writer is changing it.
+     *
+     * @return {@link #READ_FAILED} if the value can't be read consistently, the caller should read with lock.
+     */
+    @Nullable
+    public Object getValueOptimistic(ByteBuffer byteBuffer) {
+        for (int i = 0; i < MAX_OPTIMISTIC_RETRY; i++) {
+            int sequence = byteBuffer.getInt(mSequencePosition);
+            if ((sequence & 1) != 0) {
+                continue;
+            }
+            CachedValue cached = mCachedValue;
+            if (cached != null && cached.sequence == sequence) {
+                return cached.value;
+            }
+            // 先复制一份，校验和解码都基于同一份数据
+            byte[] snapshot = readPayload(byteBuffer);
+            if (snapshot == null || checksum(snapshot) != byteBuffer.getInt(mChecksumPosition)) {
+                continue;
+            }
+            Object value;
+            try {
+                value = decodeValue(ByteBuffer.wrap(snapshot), 0);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (byteBuffer.getInt(mSequencePosition) == sequence) {
+                // list is mutable, don't share it
+                if (!(value instanceof List)) {
+                    mCachedValue = new CachedValue(sequence, value);
+                }
+                return value;
+            }
+        }
+        return READ_FAILED;
+    }
+
+    /**
+     * 旧版本写入的 entry 没有 checksum 和 sequence（均为 0），无锁读取总是校验失败。
+     * 需在文件锁内调用，补写 checksum 之后即可无锁读取。
+     */
+    void stampLegacyChecksum(ByteBuffer byteBuffer) {
+        if (byteBuffer.getInt(mSequencePosition) != 0 || byteBuffer.getInt(mChecksumPosition) != 0) {
+            return;
+        }
+        byte[] payload = readPayload(byteBuffer);
+        if (payload != null) {
+            byteBuffer.putInt(mChecksumPosition, checksum(payload));
+        }
+    }
+
+    /**
+     * read with absolute index, so it won't change the position of the shared buffer.
+     */
     @Nullable
     public Object getValue(ByteBuffer byteBuffer) {
-        byteBuffer.position(mValuePosition);
-        byte valueType = byteBuffer.get();
-        short valueLength = byteBuffer.getShort();
+        return decodeValue(byteBuffer, mValuePosition);
+    }
+
+    @Nullable
+    private static Object decodeValue(ByteBuffer byteBuffer, int index) {
+        byte valueType = byteBuffer.get(index);
+        short valueLength = byteBuffer.getShort(index + 1);
+        index += VALUE_HEADER_SIZE;
         switch (valueType) {
             case VALUE_TYPE_INT:
                 if (valueLength == (Integer.SIZE / Byte.SIZE)) {
-                    return byteBuffer.getInt();
+                    return byteBuffer.getInt(index);
                 }
                 break;
             case VALUE_TYPE_LONG:
                 if (valueLength == (Long.SIZE / Byte.SIZE)) {
-                    return byteBuffer.getLong();
+                    return byteBuffer.getLong(index);
                 }
                 break;
             case VALUE_TYPE_FLOAT:
                 if (valueLength == (Float.SIZE / Byte.SIZE)) {
-                    return byteBuffer.getFloat();
+                    return byteBuffer.getFloat(index);
                 }
                 break;
             case VALUE_TYPE_BOOLEAN:
                 int size = Byte.SIZE;
                 if (valueLength == (Byte.SIZE / size)) {
-                    return byteBuffer.get() == 1;
+                    return byteBuffer.get(index) == 1;
                 }
                 break;
             case VALUE_TYPE_STRING:
                 if (valueLength > 0) {
                     byte[] bytes = new byte[valueLength];
-                    byteBuffer.get(bytes);
+                    for (int i = 0; i < valueLength; i++) {
+                        bytes[i] = byteBuffer.get(index + i);
+                    }
                     return new String(bytes);
                 }
                 break;
@@ -122,7 +213,7 @@ class SharedEntry {
                 if (valueLength > 0) {
                     List<Integer> array = new ArrayList<>();
                     for (int i = 0; i < valueLength; i++) {
-                        array.add(byteBuffer.getInt());
+                        array.add(byteBuffer.getInt(index + i * (Integer.SIZE / Byte.SIZE)));
                     }
                     return array;
                 }
@@ -134,62 +225,123 @@ class SharedEntry {
         return null;
     }
 
+    /**
+     * the sequence changes on every write, used to detect the changes of other processes.
+     */
+    public int getSequence(ByteBuffer byteBuffer) {
+        return byteBuffer.getInt(mSequencePosition);
+    }
+
+    private int getMaxValueLength() {
+        return MAX_SIZE - (mValuePosition - mPosition) - VALUE_HEADER_SIZE - CHECKSUM_SIZE - SEQUENCE_SIZE;
+    }
+
+    /**
+     * copy valueType, valueLength and value, return null if the length is out of range.
+     */
+    @Nullable
+    private byte[] readPayload(ByteBuffer byteBuffer) {
+        byte valueType = byteBuffer.get(mValuePosition);
+        int valueLength = byteBuffer.getShort(mValuePosition + 1);
+        int byteLength = valueType == VALUE_TYPE_INT_ARRAY ? valueLength * (Integer.SIZE / Byte.SIZE) : valueLength;
+        if (byteLength < 0 || byteLength > getMaxValueLength()) {
+            return null;
+        }
+        byte[] payload = new byte[VALUE_HEADER_SIZE + byteLength];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = byteBuffer.get(mValuePosition + i);
+        }
+        return payload;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return (int) crc32.getValue();
+    }
+
+    // 写入前 sequence 置为奇数；若上次写入中断（进程被杀）已是奇数，则继续保持奇数
+    private int beginWrite(ByteBuffer byteBuffer) {
+        int sequence = byteBuffer.getInt(mSequencePosition);
+        sequence = (sequence & 1) == 0 ? sequence + 1 : sequence + 2;
+        byteBuffer.putInt(mSequencePosition, sequence);
+        return sequence;
+    }
+
+    private void endWrite(ByteBuffer byteBuffer, int sequence) {
+        byte[] payload = readPayload(byteBuffer);
+        byteBuffer.putInt(mChecksumPosition, payload == null ? 0 : checksum(payload));
+        byteBuffer.putInt(mSequencePosition, sequence + 1);
+    }
+
     public void putIntArray(ByteBuffer byteBuffer, List<Integer> values) {
-        byteBuffer.position(mValuePosition);
-        byteBuffer.put(VALUE_TYPE_INT_ARRAY);
-        if ((values.size() * (Integer.SIZE / Byte.SIZE)) > (MAX_SIZE - (mValuePosition - mPosition))) {
+        if ((values.size() * (Integer.SIZE / Byte.SIZE)) > getMaxValueLength()) {
             throw new IllegalArgumentException("value is too long, value.length() = " + values.size());
         }
+        int sequence = beginWrite(byteBuffer);
+        byteBuffer.position(mValuePosition);
+        byteBuffer.put(VALUE_TYPE_INT_ARRAY);
         byteBuffer.putShort((short) values.size());
         for (int value : values) {
             byteBuffer.putInt(value);
         }
+        endWrite(byteBuffer, sequence);
     }
 
     public void putString(ByteBuffer byteBuffer, @Nullable String value) throws IllegalArgumentException {
-        byteBuffer.position(mValuePosition);
-        byteBuffer.put(VALUE_TYPE_STRING);
         if (value == null) {
             value = "";
         }
         byte[] valueBytes = value.getBytes();
-        short valueLength = valueBytes == null ? 0 : ((short) valueBytes.length);
-        if (valueLength > (MAX_SIZE - (mValuePosition - mPosition))) {
+        int valueLength = valueBytes == null ? 0 : valueBytes.length;
+        if (valueLength > getMaxValueLength()) {
             throw new IllegalArgumentException("value is too long, value.length() = " + value.length());
         }
-        byteBuffer.putShort(valueLength);
+        int sequence = beginWrite(byteBuffer);
+        byteBuffer.position(mValuePosition);
+        byteBuffer.put(VALUE_TYPE_STRING);
+        byteBuffer.putShort((short) valueLength);
         if (valueLength > 0) {
             byteBuffer.put(valueBytes);
         }
+        endWrite(byteBuffer, sequence);
     }
 
     public void putInt(ByteBuffer byteBuffer, int value) {
+        int sequence = beginWrite(byteBuffer);
         byteBuffer.position(mValuePosition);
         byteBuffer.put(VALUE_TYPE_INT);
         byteBuffer.putShort((short) (Integer.SIZE / Byte.SIZE));
         byteBuffer.putInt(value);
+        endWrite(byteBuffer, sequence);
     }
 
     public void putLong(ByteBuffer byteBuffer, long value) {
+        int sequence = beginWrite(byteBuffer);
         byteBuffer.position(mValuePosition);
         byteBuffer.put(VALUE_TYPE_LONG);
         byteBuffer.putShort((short) (Long.SIZE / Byte.SIZE));
         byteBuffer.putLong(value);
+        endWrite(byteBuffer, sequence);
     }
 
     public void putFloat(ByteBuffer byteBuffer, float value) {
+        int sequence = beginWrite(byteBuffer);
         byteBuffer.position(mValuePosition);
         byteBuffer.put(VALUE_TYPE_FLOAT);
         byteBuffer.putShort((short) (Float.SIZE / Byte.SIZE));
         byteBuffer.putFloat(value);
+        endWrite(byteBuffer, sequence);
     }
 
     public void putBoolean(ByteBuffer byteBuffer, boolean value) {
         int size = Byte.SIZE;
+        int sequence = beginWrite(byteBuffer);
         byteBuffer.position(mValuePosition);
         byteBuffer.put(VALUE_TYPE_BOOLEAN);
         byteBuffer.putShort((short) (Byte.SIZE / size));
         byteBuffer.put((byte) (value ? 1 : 0));
+        endWrite(byteBuffer, sequence);
     }
 
     public void putObject(ByteBuffer byteBuffer, int valueType, Object value) {
@@ -216,4 +368,14 @@ class SharedEntry {
                 break;
         }
     }
+
+    private static final class CachedValue {
+        private final int sequence;
+        private final Object value;
+
+        private CachedValue(int sequence, Object value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
 }
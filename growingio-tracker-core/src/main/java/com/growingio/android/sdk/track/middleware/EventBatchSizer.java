@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.middleware;
+
+/**
+ * 自适应的上传批次大小，只在发送线程中使用
+ * - 批次按字节数限制，事件条数由平均事件大小换算得到，作为数据库查询的 limit
+ * - 根据成功请求测得的上传带宽和压缩率调整，使一次请求的耗时接近 TARGET_REQUEST_MILLIS
+ * - 收到 413 时减半（最少 1 条），之后不再超过该批次的一半，被拒绝的事件以更小的批次重新发送
+ * - 上限由应用的 memory class 决定
+ */
+final class EventBatchSizer {
+    static final int DEFAULT_BATCH_EVENTS = 100;
+    static final int LOW_MEMORY_BATCH_EVENTS = 10;
+    static final int MIN_BATCH_BYTES = 16 * 1024;
+    // same as the size limit of the database query
+    static final int MAX_BATCH_BYTES = 2 * 1000 * 1024;
+
+    private static final int MIN_BATCH_EVENTS = 10;
+    private static final int MAX_BATCH_EVENTS = 1000;
+    private static final long TARGET_REQUEST_MILLIS = 2000L;
+    private static final double SMOOTHING = 0.3d;
+
+    private final int ceilingBytes;
+    private int limitBytes;
+    private int batchBytes;
+    private int batchEvents = DEFAULT_BATCH_EVENTS;
+    private boolean lowMemory;
+
+    private double avgEventBytes;
+    private double compressionRatio;
+    private double bytesPerMillis;
+
+    private UploadBatchSizeListener listener;
+
+    /**
+     * @param memoryClass {@link android.app.ActivityManager#getMemoryClass()} in MB, 0 if unknown
+     */
+    EventBatchSizer(int memoryClass) {
+        // 1/64 of the heap: 2MB for 128MB, 512KB for 32MB
+        ceilingBytes = memoryClass > 0 ? clamp(memoryClass * 16L * 1024L, MIN_BATCH_BYTES * 4, MAX_BATCH_BYTES) : MAX_BATCH_BYTES;
+        limitBytes = ceilingBytes;
+        batchBytes = ceilingBytes;
+    }
+
+    void setListener(UploadBatchSizeListener listener) {
+        this.listener = listener;
+    }
+
+    void setLowMemory(boolean lowMemory) {
+        this.lowMemory = lowMemory;
+    }
+
+    int getBatchBytes() {
+        return lowMemory ? Math.min(batchBytes, MIN_BATCH_BYTES * 4) : batchBytes;
+    }
+
+    int getBatchEvents() {
+        return lowMemory ? Math.min(batchEvents, LOW_MEMORY_BATCH_EVENTS) : batchEvents;
+    }
+
+    /**
+     * @param rawBytes     size of the formatted events
+     * @param events       number of the events
+     * @param sentBytes    bytes written to the network, 0 if unknown
+     * @param rttMillis    time from sending the request to receiving the response
+     * @param responseCode http response code
+     */
+    void onResponse(int rawBytes, int events, long sentBytes, long rttMillis, int responseCode) {
+        if (rawBytes <= 0 || events <= 0) return;
+        boolean full = events >= batchEvents || rawBytes >= batchBytes / 2;
+        avgEventBytes = smooth(avgEventBytes, (double) rawBytes / events);
+
+        if (responseCode == 413) {
+            limitBytes = Math.max(MIN_BATCH_BYTES, rawBytes / 2);
+            // shrink below MIN_BATCH_EVENTS, so a batch rejected again and again ends with a single event
+            resize(Math.min(batchBytes, limitBytes), events / 2, 1);
+        } else if (responseCode >= 200 && responseCode < 300 && sentBytes > 0) {
+            compressionRatio = smooth(compressionRatio, (double) sentBytes / rawBytes);
+            // small batches are dominated by latency, which underestimates the bandwidth
+            if (!full || rttMillis <= 0) return;
+            bytesPerMillis = smooth(bytesPerMillis, (double) sentBytes / rttMillis);
+            long target = (long) (bytesPerMillis * TARGET_REQUEST_MILLIS / Math.max(compressionRatio, 0.01d));
+            resize(clamp(target, MIN_BATCH_BYTES, limitBytes), batchEvents * 2, MIN_BATCH_EVENTS);
+        }
+    }
+
+    private void resize(int bytes, int maxEvents, int minEvents) {
+        int count = (int) Math.min(bytes / avgEventBytes, Math.max(maxEvents, minEvents));
+        count = clamp(count, minEvents, MAX_BATCH_EVENTS);
+        if (bytes == batchBytes && count == batchEvents) return;
+        batchBytes = bytes;
+        batchEvents = count;
+        if (listener != null) {
+            listener.onBatchSizeChanged(batchBytes, batchEvents);
+        }
+    }
+
+    private static double smooth(double current, double sample) {
+        return current <= 0 ? sample : current + (sample - current) * SMOOTHING;
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+}
@@ -36,7 +36,9 @@ public class EventDatabase {
     private List<GEvent> events;
     private int policy;
     private int limit;
+    private long firstId;
     private long lastId;
+    private int maxBytes;
     private String eventType;
 
     public int getDbOp() {
@@ -55,10 +57,18 @@ public class EventDatabase {
         return limit;
     }
 
+    public long getFirstId() {
+        return firstId;
+    }
+
     public long getLastId() {
         return lastId;
     }
 
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
     public String getEventType() {
         return eventType;
     }
@@ -101,6 +111,24 @@ public class EventDatabase {
         return ed;
     }
 
+    /**
+     * query the events whose id is not less than firstId, used to prefetch the next batch while sending.
+     */
+    public static EventDatabase query(int policy, int limit, long firstId) {
+        EventDatabase ed = query(policy, limit);
+        ed.firstId = firstId;
+        return ed;
+    }
+
+    /**
+     * the total size of the queried events is limited by maxBytes, at least one event is returned.
+     */
+    public static EventDatabase query(int policy, int limit, long firstId, int maxBytes) {
+        EventDatabase ed = query(policy, limit, firstId);
+        ed.maxBytes = maxBytes;
+        return ed;
+    }
+
     public static EventDatabase queryAndDelete(int policy, int limit) {
         EventDatabase ed = new EventDatabase();
         ed.dbOp = DATABASE_OP_QUERY_DELETE;
@@ -118,6 +146,21 @@ public class EventDatabase {
         return ed;
     }
 
+    /**
+     * delete the events in [firstId, lastId] only, other batches in the range may be still sending.
+     */
+    public static EventDatabase delete(long firstId, long lastId, int policy, String eventType) {
+        EventDatabase ed = delete(lastId, policy, eventType);
+        ed.firstId = firstId;
+        return ed;
+    }
+
+    public static EventDatabase update(long firstId, long lastId, String eventType) {
+        EventDatabase ed = update(lastId, eventType);
+        ed.firstId = firstId;
+        return ed;
+    }
+
     public static EventDatabase update(long lastId, String eventType) {
         EventDatabase ed = new EventDatabase();
         ed.dbOp = DATABASE_OP_UPDATE;
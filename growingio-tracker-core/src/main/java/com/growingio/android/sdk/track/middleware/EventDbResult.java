@@ -22,6 +22,7 @@ package com.growingio.android.sdk.track.middleware;
  */
 public class EventDbResult {
     private boolean success;
+    private long firstId;
     private long lastId;
     private int sum;
     private byte[] data;
@@ -51,6 +52,14 @@ public class EventDbResult {
         this.sum = sum;
     }
 
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public void setFirstId(long firstId) {
+        this.firstId = firstId;
+    }
+
     public long getLastId() {
         return lastId;
     }
@@ -21,25 +21,32 @@ import com.growingio.android.sdk.TrackerContext;
 import com.growingio.android.sdk.track.listener.TrackThread;
 import com.growingio.android.sdk.track.middleware.http.EventEncoder;
 import com.growingio.android.sdk.track.middleware.http.EventResponse;
+import com.growingio.android.sdk.track.middleware.http.EventStream;
 import com.growingio.android.sdk.track.middleware.http.EventUrl;
 import com.growingio.android.sdk.track.log.Logger;
+import com.growingio.android.sdk.track.modelloader.DataFetcher;
+import com.growingio.android.sdk.track.modelloader.LoadDataFetcher;
 import com.growingio.android.sdk.track.modelloader.ModelLoader;
+import com.growingio.android.sdk.track.modelloader.BoundModelLoader;
 import com.growingio.android.sdk.track.modelloader.TrackerRegistry;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 
-public class EventHttpSender implements IEventNetSender {
+public class EventHttpSender implements IEventAsyncNetSender {
     private static final String TAG = "EventHttpSender";
 
     private final String mProjectId;
     private final String mServerHost;
-    private final TrackerRegistry trackerRegistry;
+    private final BoundModelLoader<EventUrl, EventResponse> networkModelLoader;
+    private final BoundModelLoader<EventEncoder, EventEncoder> encoderModelLoader;
     private final boolean defaultPreflight;
 
-    private boolean requestPreflightChecked = false;
+    private volatile boolean requestPreflightChecked = false;
 
     public EventHttpSender(TrackerContext context) {
         ConfigurationProvider configurationProvider = context.getConfigurationProvider();
-        this.trackerRegistry = context.getRegistry();
+        TrackerRegistry trackerRegistry = context.getRegistry();
+        this.networkModelLoader = trackerRegistry.bind(EventUrl.class, EventResponse.class);
+        this.encoderModelLoader = trackerRegistry.bind(EventEncoder.class, EventEncoder.class);
         mProjectId = configurationProvider.core().getProjectId();
         mServerHost = configurationProvider.core().getDataCollectionServerHost();
         defaultPreflight = false;
@@ -51,7 +58,7 @@ public class EventHttpSender implements IEventNetSender {
     }
 
     private ModelLoader<EventUrl, EventResponse> getNetworkModelLoader() {
-        return trackerRegistry.getModelLoader(EventUrl.class, EventResponse.class);
+        return networkModelLoader.get();
     }
 
     private EventResponse requestPreflight(long time) {
@@ -82,9 +89,48 @@ public class EventHttpSender implements IEventNetSender {
         if (events == null || events.length == 0) {
             return new SendResponse(0, 0);
         }
+        SendLoadData loadData = buildSendLoadData(events, mediaType);
+        if (loadData == null) {
+            return new SendResponse(0, 0);
+        }
+        EventResponse response = loadData.fetcher.executeData();
+        return onResponse(loadData.eventUrl, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    @TrackThread
+    @Override
+    public void sendAsync(byte[] events, String mediaType, final SendCallback callback) {
+        if (events == null || events.length == 0) {
+            callback.onResponse(new SendResponse(0, 0));
+            return;
+        }
+        final SendLoadData loadData = buildSendLoadData(events, mediaType);
+        if (loadData == null) {
+            callback.onResponse(new SendResponse(0, 0));
+            return;
+        }
+        if (!(loadData.fetcher instanceof LoadDataFetcher)) {
+            callback.onResponse(onResponse(loadData.eventUrl, loadData.fetcher.executeData()));
+            return;
+        }
+        ((LoadDataFetcher<EventResponse>) loadData.fetcher).loadData(new LoadDataFetcher.DataCallback<EventResponse>() {
+            @Override
+            public void onDataReady(EventResponse data) {
+                callback.onResponse(onResponse(loadData.eventUrl, data));
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                callback.onResponse(onResponse(loadData.eventUrl, null));
+            }
+        });
+    }
+
+    private SendLoadData buildSendLoadData(byte[] events, String mediaType) {
         if (getNetworkModelLoader() == null) {
             Logger.e(TAG, "please register http request component first");
-            return new SendResponse(0, 0);
+            return null;
         }
         long time = System.currentTimeMillis();
         EventUrl eventUrl = new EventUrl(mServerHost, time)
@@ -96,27 +142,48 @@ public class EventHttpSender implements IEventNetSender {
                 .setBodyData(events);
         if (!TextUtils.isEmpty(mediaType)) eventUrl.setMediaType(mediaType);
         //data encoder - https://codes.growingio.com/w/api_v3_interface/
-        EventEncoder encoder = trackerRegistry.executeData(new EventEncoder(eventUrl), EventEncoder.class, EventEncoder.class);
+        ModelLoader<EventEncoder, EventEncoder> encoderLoader = encoderModelLoader.get();
+        EventEncoder encoder = encoderLoader == null ? null : encoderLoader.buildLoadData(new EventEncoder(eventUrl)).fetcher.executeData();
         if (encoder != null) {
             eventUrl = encoder.getEventUrl();
         }
 
-        byte[] data = eventUrl.getRequestBody();
         Logger.d(TAG, "send event to url: " + eventUrl.toString());
 
         ModelLoader.LoadData<EventResponse> loadData = getNetworkModelLoader().buildLoadData(eventUrl);
         if (!loadData.fetcher.getDataClass().isAssignableFrom(EventResponse.class)) {
             Logger.e(TAG, new IllegalArgumentException("illegal data class for http response."));
-            return new SendResponse(0, 0);
+            return null;
         }
-        EventResponse response = loadData.fetcher.executeData();
+        return new SendLoadData(eventUrl, loadData.fetcher);
+    }
+
+    private SendResponse onResponse(EventUrl eventUrl, EventResponse response) {
         int responseCode = response != null ? response.getResponseCode() : 0;
         if (responseCode >= 200 && responseCode < 300) {
             requestPreflightChecked = true;
         } else if (responseCode == 403) {
             requestPreflightChecked = false;
         }
-        long totalUsed = data == null ? 0L : data.length;
+        long totalUsed = getUsedBytes(eventUrl);
         return new SendResponse(responseCode, totalUsed);
     }
+
+    private long getUsedBytes(EventUrl eventUrl) {
+        EventStream bodyStream = eventUrl.getBodyStream();
+        if (bodyStream != null) {
+            return bodyStream.getContentWritten();
+        }
+        byte[] data = eventUrl.getRequestBody();
+        return data == null ? 0L : data.length;
+    }
+
+    private static final class SendLoadData extends ModelLoader.LoadData<EventResponse> {
+        private final EventUrl eventUrl;
+
+        SendLoadData(EventUrl eventUrl, DataFetcher<EventResponse> fetcher) {
+            super(fetcher);
+            this.eventUrl = eventUrl;
+        }
+    }
 }
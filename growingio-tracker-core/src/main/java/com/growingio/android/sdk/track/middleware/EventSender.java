@@ -24,17 +24,22 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
 
 import com.growingio.android.sdk.track.ipc.ProcessLock;
 import com.growingio.android.sdk.track.log.Logger;
+import com.growingio.android.sdk.track.modelloader.BoundModelLoader;
 import com.growingio.android.sdk.track.modelloader.ModelLoader;
 import com.growingio.android.sdk.track.modelloader.TrackerRegistry;
 import com.growingio.android.sdk.track.utils.NetworkUtil;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.growingio.android.sdk.track.middleware.GEvent.SEND_POLICY_INSTANT;
 
@@ -46,13 +51,29 @@ import static com.growingio.android.sdk.track.middleware.GEvent.SEND_POLICY_INST
 public class EventSender {
     private static final String TAG = "EventSender";
 
+    // group commit: events are written to database together when reach the size or the time window
+    private static final int EVENTS_COMMIT_SIZE = 20;
+    private static final long EVENTS_COMMIT_INTERVAL = 1000L;
+
+    // result of a pipelined request, the larger one wins when batches finish with different results
+    private static final int SEND_RESULT_SUCCEEDED = 0;
+    // 批次被 413 拒绝，事件保留在数据库中，以减半后的批次重新查询
+    private static final int SEND_RESULT_RETRY = 1;
+    private static final int SEND_RESULT_STOPPED = 2;
+    private static final int SEND_RESULT_BACKOFF = 3;
+
     private final Context mContext;
     private IEventNetSender mEventNetSender;
     private final SharedPreferences mSharedPreferences;
     private final SendHandler mSendHandler;
     private final ProcessLock mProcessLock;
     private final long mCellularDataLimit;
-    private final TrackerRegistry mRegistry;
+    private int mMaxConcurrentRequests;
+    private final BoundModelLoader<EventDatabase, EventDbResult> mDatabaseModelLoader;
+    private final EventBatchSizer mBatchSizer;
+    private final Object mCommitLock = new Object();
+    private final Object mPendingLock = new Object();
+    private List<GEvent> mPendingEvents = new ArrayList<>();
 
     /**
      * 事件发送管理类
@@ -61,13 +82,27 @@ public class EventSender {
      * @param dataUploadInterval 发送事件的时间周期，单位 s
      * @param cellularDataLimit  事件发送的移动网络的流量限制，单位 MB
      */
-    @SuppressLint("WrongConstant")
     public EventSender(Context context, TrackerRegistry registry, IEventNetSender sender, long dataUploadInterval, long cellularDataLimit) {
+        this(context, registry, sender, dataUploadInterval, cellularDataLimit, 1);
+    }
+
+    /**
+     * 事件发送管理类
+     *
+     * @param sender                网络发送的sender
+     * @param dataUploadInterval    发送事件的时间周期，单位 s
+     * @param cellularDataLimit     事件发送的移动网络的流量限制，单位 MB
+     * @param maxConcurrentRequests 同时发送的最大请求数，大于1且sender支持异步发送时开启流水线发送
+     */
+    @SuppressLint("WrongConstant")
+    public EventSender(Context context, TrackerRegistry registry, IEventNetSender sender, long dataUploadInterval, long cellularDataLimit, int maxConcurrentRequests) {
         mContext = context.getApplicationContext();
-        mRegistry = registry;
+        mDatabaseModelLoader = registry.bind(EventDatabase.class, EventDbResult.class);
         mCellularDataLimit = cellularDataLimit * 1024L * 1024L;
+        mMaxConcurrentRequests = Math.max(1, maxConcurrentRequests);
         mEventNetSender = sender;
         mProcessLock = new ProcessLock(mContext, EventSender.class.getName());
+        mBatchSizer = new EventBatchSizer(getMemoryClass());
         mSharedPreferences = mContext.getSharedPreferences("growing3_sender", Context.MODE_PRIVATE);
         HandlerThread thread = new HandlerThread(EventSender.class.getName());
         thread.start();
@@ -75,6 +110,7 @@ public class EventSender {
     }
 
     public void shutdown() {
+        commitPendingEvents();
         mProcessLock.release();
         mSendHandler.removeCallbacksAndMessages(null);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
@@ -85,7 +121,7 @@ public class EventSender {
     }
 
     private ModelLoader<EventDatabase, EventDbResult> getDatabaseModelLoader() {
-        return mRegistry.getModelLoader(EventDatabase.class, EventDbResult.class);
+        return mDatabaseModelLoader.get();
     }
 
     private EventDbResult databaseOperation(EventDatabase eventDatabase) {
@@ -102,13 +138,31 @@ public class EventSender {
         this.mEventNetSender = mEventNetSender;
     }
 
+    void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.mMaxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    public void setUploadBatchSizeListener(UploadBatchSizeListener listener) {
+        mBatchSizer.setListener(listener);
+    }
+
     public void cacheEvent(GEvent event) {
         // 避免不触发非INSTANT事件时（如埋点SDK），cache事件不被发送
+        commitPendingEvents();
         databaseOperation(EventDatabase.insert(event));
     }
 
     public void sendEvent(GEvent event) {
-        databaseOperation(EventDatabase.insert(event));
+        int pendingSize;
+        synchronized (mPendingLock) {
+            mPendingEvents.add(event);
+            pendingSize = mPendingEvents.size();
+        }
+        if (pendingSize >= EVENTS_COMMIT_SIZE) {
+            commitPendingEvents();
+        } else if (pendingSize == 1) {
+            mSendHandler.commitEventsDelayed();
+        }
         if (event.getSendPolicy() == SEND_POLICY_INSTANT) {
             mSendHandler.uploadInstantEvent();
         } else {
@@ -116,8 +170,25 @@ public class EventSender {
         }
     }
 
+    /**
+     * write the pending events to database in one transaction.
+     * it's called before querying events and should be called when the process may be killed, such as app in background.
+     */
+    public void commitPendingEvents() {
+        synchronized (mCommitLock) {
+            List<GEvent> events;
+            synchronized (mPendingLock) {
+                if (mPendingEvents.isEmpty()) return;
+                events = mPendingEvents;
+                mPendingEvents = new ArrayList<>();
+            }
+            databaseOperation(EventDatabase.inserts(events));
+        }
+    }
+
     void removeAllEvents() {
         Logger.w(TAG, "action: removeAllEvents");
+        commitPendingEvents();
         databaseOperation(EventDatabase.clear());
     }
 
@@ -162,19 +233,29 @@ public class EventSender {
     }
 
     @SuppressLint("WrongConstant")
-    private ActivityManager.MemoryInfo getMemoryInfo() {
+    private int getMemoryClass() {
         ActivityManager activityManager = (ActivityManager) mContext.getSystemService(Context.ACTIVITY_SERVICE);
+        return activityManager == null ? 0 : activityManager.getMemoryClass();
+    }
+
+    // getMemoryInfo is a binder call, only check it once before sending
+    @SuppressLint("WrongConstant")
+    private boolean isLowMemory() {
+        ActivityManager activityManager = (ActivityManager) mContext.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) return false;
         ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
         activityManager.getMemoryInfo(memoryInfo);
-        return memoryInfo;
+        return memoryInfo.lowMemory;
     }
 
-    private int numOfMaxEventsPerRequest() {
-        ActivityManager.MemoryInfo info = getMemoryInfo();
-        if (info.lowMemory) {
-            return 10;
-        }
-        return 100;
+    private EventDatabase queryBatch(int policy, long firstId) {
+        return EventDatabase.query(policy, mBatchSizer.getBatchEvents(), firstId, mBatchSizer.getBatchBytes());
+    }
+
+    private void onBatchResponse(EventDbResult dbResult, SendResponse response, long rttMillis) {
+        byte[] data = dbResult.getData();
+        mBatchSizer.onResponse(data == null ? 0 : data.length, dbResult.getSum(),
+                response.getUsedBytes(), rttMillis, response.getResponseCode());
     }
 
     /**
@@ -183,6 +264,7 @@ public class EventSender {
      * @param onlyInstant true -- 仅发送实时消息
      */
     void sendEvents(boolean onlyInstant) {
+        commitPendingEvents();
         if (!mProcessLock.isAcquired()) {
             Logger.w(TAG, "sdk sendEvents will in main process,not in sub process.");
             return;
@@ -201,6 +283,7 @@ public class EventSender {
         } else {
             uploadEvents = new int[]{SEND_POLICY_INSTANT, GEvent.SEND_POLICY_MOBILE_DATA};
         }
+        mBatchSizer.setLowMemory(isLowMemory());
 
         boolean succeeded = true;
         for (int policy : uploadEvents) {
@@ -208,6 +291,10 @@ public class EventSender {
                 Logger.e(TAG, "upload events break with http failed.");
                 break;
             }
+            if (mMaxConcurrentRequests > 1 && mEventNetSender instanceof IEventAsyncNetSender) {
+                succeeded = sendEventsPipelined(policy, networkState, (IEventAsyncNetSender) mEventNetSender);
+                continue;
+            }
             do {
                 if (policy != SEND_POLICY_INSTANT
                         && networkState.isMobileData()
@@ -215,12 +302,14 @@ public class EventSender {
                     Logger.w(TAG, "Today's mobile data is exhausted");
                     break;
                 }
-                EventDbResult dbResult = databaseOperation(EventDatabase.query(policy, numOfMaxEventsPerRequest()));
+                EventDbResult dbResult = databaseOperation(queryBatch(policy, 0L));
                 if (dbResult.isSuccess() && dbResult.getSum() > 0) {
                     if (mEventNetSender == null) {
                         succeeded = false;
                     } else {
+                        long startTime = SystemClock.elapsedRealtime();
                         SendResponse sendResponse = mEventNetSender.send(dbResult.getData(), dbResult.getMediaType());
+                        onBatchResponse(dbResult, sendResponse, SystemClock.elapsedRealtime() - startTime);
                         succeeded = sendResponse.isSucceeded();
                         int responseCode = sendResponse.getResponseCode();
                         if (succeeded) {
@@ -231,13 +320,18 @@ public class EventSender {
                             }
                             mSendHandler.resetBackoff();
                         } else if (responseCode == 413) {
-                            String eventType = dbResult.getEventType();
-                            databaseOperation(EventDatabase.delete(dbResult.getLastId(), policy, eventType));
                             if (networkState.isMobileData()) {
                                 todayBytes(sendResponse.getUsedBytes());
                             }
-                            Logger.e(TAG, "action: sendEvents, delete events with responseCode: " + responseCode);
-                            break;
+                            if (dbResult.getSum() > 1) {
+                                // the batch size has been halved by mBatchSizer, query the same events again
+                                Logger.w(TAG, "action: sendEvents, retry with a smaller batch, responseCode: " + responseCode);
+                            } else {
+                                // a single event is too large to be accepted
+                                databaseOperation(EventDatabase.delete(dbResult.getLastId(), policy, dbResult.getEventType()));
+                                Logger.e(TAG, "action: sendEvents, delete event with responseCode: " + responseCode);
+                            }
+                            succeeded = true;
                         } else if (responseCode >= 400 || responseCode == 0) {
                             // mark the events as undeliverable
                             databaseOperation(EventDatabase.update(dbResult.getLastId(), dbResult.getEventType()));
@@ -257,14 +351,138 @@ public class EventSender {
     }
 
 
+    /**
+     * the next batch is queried and formatted while the former batches are in flight.
+     * responses are handled in the sender thread, and each batch is deleted by its own id range,
+     * so a batch finished earlier never deletes the events of a batch still in flight.
+     *
+     * @return false if any batch failed
+     */
+    private boolean sendEventsPipelined(int policy, NetworkUtil.NetworkState networkState, IEventAsyncNetSender sender) {
+        LinkedBlockingQueue<SendResult> results = new LinkedBlockingQueue<>();
+        int inflight = 0;
+        long nextId = 0L;
+        int state = SEND_RESULT_SUCCEEDED;
+        boolean anySucceeded = false;
+        try {
+            do {
+                if (state == SEND_RESULT_RETRY) {
+                    // all the batches in flight are finished, the rejected events are the first ones in database now
+                    state = SEND_RESULT_SUCCEEDED;
+                    nextId = 0L;
+                }
+                while (state == SEND_RESULT_SUCCEEDED) {
+                    if (policy != SEND_POLICY_INSTANT
+                            && networkState.isMobileData()
+                            && mCellularDataLimit < todayBytes(0)) {
+                        Logger.w(TAG, "Today's mobile data is exhausted");
+                        break;
+                    }
+                    EventDbResult dbResult = databaseOperation(queryBatch(policy, nextId));
+                    if (!dbResult.isSuccess() || dbResult.getSum() <= 0 || dbResult.getLastId() <= 0) {
+                        break;
+                    }
+                    nextId = dbResult.getLastId() + 1;
+
+                    // wait for a free slot
+                    while (inflight >= mMaxConcurrentRequests) {
+                        int result = handleSendResult(results.take(), policy, networkState);
+                        anySucceeded |= result == SEND_RESULT_SUCCEEDED;
+                        state = Math.max(state, result);
+                        inflight--;
+                    }
+                    if (state != SEND_RESULT_SUCCEEDED) break;
+
+                    long startTime = SystemClock.elapsedRealtime();
+                    sender.sendAsync(dbResult.getData(), dbResult.getMediaType(),
+                            response -> results.add(new SendResult(dbResult, response, SystemClock.elapsedRealtime() - startTime)));
+                    inflight++;
+
+                    SendResult finished;
+                    while ((finished = results.poll()) != null) {
+                        int result = handleSendResult(finished, policy, networkState);
+                        anySucceeded |= result == SEND_RESULT_SUCCEEDED;
+                        state = Math.max(state, result);
+                        inflight--;
+                    }
+                }
+                while (inflight > 0) {
+                    int result = handleSendResult(results.take(), policy, networkState);
+                    anySucceeded |= result == SEND_RESULT_SUCCEEDED;
+                    state = Math.max(state, result);
+                    inflight--;
+                }
+            } while (state == SEND_RESULT_RETRY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the events which have not been acknowledged are kept in database and will be sent again
+            return false;
+        }
+
+        if (state == SEND_RESULT_BACKOFF) {
+            mSendHandler.backoff();
+        } else if (anySucceeded) {
+            mSendHandler.resetBackoff();
+        }
+        return state == SEND_RESULT_SUCCEEDED;
+    }
+
+    private int handleSendResult(SendResult result, int policy, NetworkUtil.NetworkState networkState) {
+        EventDbResult dbResult = result.dbResult;
+        SendResponse sendResponse = result.response;
+        onBatchResponse(dbResult, sendResponse, result.rttMillis);
+        int responseCode = sendResponse.getResponseCode();
+        String eventType = dbResult.getEventType();
+        if (sendResponse.isSucceeded()) {
+            databaseOperation(EventDatabase.delete(dbResult.getFirstId(), dbResult.getLastId(), policy, eventType));
+            if (networkState.isMobileData()) {
+                todayBytes(sendResponse.getUsedBytes());
+            }
+            return SEND_RESULT_SUCCEEDED;
+        } else if (responseCode == 413) {
+            if (networkState.isMobileData()) {
+                todayBytes(sendResponse.getUsedBytes());
+            }
+            if (dbResult.getSum() > 1) {
+                // the batch size has been halved by mBatchSizer, the events are queried again
+                Logger.w(TAG, "action: sendEvents, retry with a smaller batch, responseCode: " + responseCode);
+                return SEND_RESULT_RETRY;
+            }
+            // a single event is too large to be accepted
+            databaseOperation(EventDatabase.delete(dbResult.getFirstId(), dbResult.getLastId(), policy, eventType));
+            Logger.e(TAG, "action: sendEvents, delete event with responseCode: " + responseCode);
+            return SEND_RESULT_SUCCEEDED;
+        } else if (responseCode >= 400 || responseCode == 0) {
+            // mark the events as undeliverable
+            databaseOperation(EventDatabase.update(dbResult.getFirstId(), dbResult.getLastId(), eventType));
+            Logger.e(TAG, "action: sendEvents, service unavailable with responseCode: " + responseCode);
+            return SEND_RESULT_BACKOFF;
+        }
+        return SEND_RESULT_STOPPED;
+    }
+
+    private static final class SendResult {
+        private final EventDbResult dbResult;
+        private final SendResponse response;
+        private final long rttMillis;
+
+        SendResult(EventDbResult dbResult, SendResponse response, long rttMillis) {
+            this.dbResult = dbResult;
+            this.response = response;
+            this.rttMillis = rttMillis;
+        }
+    }
+
     EventDbResult getGEventsFromPolicy(int policy) {
-        return databaseOperation(EventDatabase.queryAndDelete(policy, numOfMaxEventsPerRequest()));
+        commitPendingEvents();
+        return databaseOperation(EventDatabase.queryAndDelete(policy, mBatchSizer.getBatchEvents()));
     }
 
     // 由于数据发送是耗时操作，网络端更有可能被block，所以这里另起一个线程处理
     private final class SendHandler extends Handler {
         private static final int MSG_SEND_INSTANT_EVENTS = 1;
         private static final int MSG_SEND_UNINSTANT_EVENTS = 2;
+        private static final int MSG_COMMIT_EVENTS = 3;
 
         private static final long EVENTS_UPLOAD_INTERVAL_MAX = 5 * 60 * 1000; // 5 minutes
         private static final int EVENTS_BULK_SIZE = 100;
@@ -288,19 +506,30 @@ public class EventSender {
             } else {
                 backoffUploadInterval = 15000L;
             }
-            removeCallbacksAndMessages(null);
+            removeSendMessages();
             sendEmptyMessageDelayed(MSG_SEND_UNINSTANT_EVENTS, backoffUploadInterval);
         }
 
         void resetBackoff() {
             if (isNotBackoffState()) return;
             backoffUploadInterval = mDataUploadInterval;
-            removeCallbacksAndMessages(null);
+            removeSendMessages();
             if (backoffUploadInterval > 0) {
                 sendEmptyMessageDelayed(MSG_SEND_UNINSTANT_EVENTS, backoffUploadInterval);
             }
         }
 
+        private void removeSendMessages() {
+            removeMessages(MSG_SEND_INSTANT_EVENTS);
+            removeMessages(MSG_SEND_UNINSTANT_EVENTS);
+        }
+
+        private void commitEventsDelayed() {
+            if (!hasMessages(MSG_COMMIT_EVENTS)) {
+                sendEmptyMessageDelayed(MSG_COMMIT_EVENTS, EVENTS_COMMIT_INTERVAL);
+            }
+        }
+
         boolean isNotBackoffState() {
             return backoffUploadInterval == mDataUploadInterval;
         }
@@ -343,6 +572,9 @@ public class EventSender {
                         sendEmptyMessageDelayed(MSG_SEND_UNINSTANT_EVENTS, backoffUploadInterval);
                     }
                     break;
+                case MSG_COMMIT_EVENTS:
+                    commitPendingEvents();
+                    break;
                 default:
                     Logger.e(TAG, "Unexpected value: " + msg.what);
             }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.middleware;
+package com.growingio.android.sdk.track.middleware;
+
+import com.growingio.android.sdk.track.listener.TrackThread;
+
+/**
+ * send events without blocking the sender thread, so that several batches could be in flight at the same time.
+ */
+public interface IEventAsyncNetSender extends IEventNetSender {
+
+    interface SendCallback {
+        void onResponse(SendResponse response);
+    }
+
+    /**
+     * the callback may be invoked in any thread.
+     */
+    @TrackThread
+    void sendAsync(byte[] events, String mediaType, SendCallback callback);
+}
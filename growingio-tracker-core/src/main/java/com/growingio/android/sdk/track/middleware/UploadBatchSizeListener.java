@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.middleware;
+
+/**
+ * notified in the sender thread when the upload batch size is adjusted.
+ */
+public interface UploadBatchSizeListener {
+
+    /**
+     * @param maxBytes  max size of the formatted events in one request, before encoding
+     * @param maxEvents max number of events in one request
+     */
+    void onBatchSizeChanged(int maxBytes, int maxEvents);
+}
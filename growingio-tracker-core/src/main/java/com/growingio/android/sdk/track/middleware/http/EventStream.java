@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.middleware.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * request body which is written to the connection directly, so that the encoded data
+ * don't need to be copied into a new byte array before sending.
+ * it may be written more than once, eg: retry or redirect.
+ */
+public abstract class EventStream {
+    private volatile long contentWritten = 0L;
+
+    /**
+     * @return the length of the body, or -1 if unknown and the request will be sent with chunked transfer encoding.
+     */
+    public long contentLength() {
+        return -1L;
+    }
+
+    public final void writeTo(OutputStream out) throws IOException {
+        contentWritten = onWrite(out);
+    }
+
+    /**
+     * @return the count of bytes written to the stream.
+     */
+    protected abstract long onWrite(OutputStream out) throws IOException;
+
+    /**
+     * @return the count of bytes written by the last writeTo.
+     */
+    public long getContentWritten() {
+        return contentWritten;
+    }
+
+    public byte[] toByteArray() throws IOException {
+        long length = contentLength();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(length > 0 ? (int) length : 1024);
+        writeTo(baos);
+        return baos.toByteArray();
+    }
+}
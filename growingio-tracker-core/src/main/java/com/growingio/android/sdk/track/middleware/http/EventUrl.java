@@ -15,6 +15,9 @@
  */
 package com.growingio.android.sdk.track.middleware.http;
 
+import com.growingio.android.sdk.track.log.Logger;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +34,7 @@ public class EventUrl {
     private final List<String> mPaths = new ArrayList<>();
     private final Map<String, String> mParams = new HashMap<>();
     private byte[] mBodyData;
+    private EventStream mBodyStream;
     private final long mTime;
     private String mMediaType = "application/json"; //or "application/x-www-form-urlencoded" for data
 
@@ -61,16 +65,37 @@ public class EventUrl {
         return mMediaType;
     }
 
+    /**
+     * the body stream will be converted to byte array if exists, use {@link #getBodyStream()} first.
+     */
     public byte[] getRequestBody() {
+        if (mBodyData == null && mBodyStream != null) {
+            try {
+                mBodyData = mBodyStream.toByteArray();
+            } catch (IOException e) {
+                Logger.e("EventUrl", e, "write body stream failed");
+            }
+        }
         return mBodyData;
     }
 
+    public EventStream getBodyStream() {
+        return mBodyStream;
+    }
+
     public long getTime() {
         return mTime;
     }
 
     public EventUrl setBodyData(byte[] mBodyData) {
         this.mBodyData = mBodyData;
+        this.mBodyStream = null;
+        return this;
+    }
+
+    public EventUrl setBodyStream(EventStream bodyStream) {
+        this.mBodyStream = bodyStream;
+        this.mBodyData = null;
         return this;
     }
 
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.modelloader;
+
+/**
+ * <p>
+ * 预先绑定 model 与 data 类型的 ModelLoader，供频繁调用的地方使用。
+ * 注册信息未变化时 {@link #get()} 只读取一次 volatile 变量，注册或反注册后自动重新查找。
+ */
+public final class BoundModelLoader<Model, Data> {
+    private final ModelLoaderRegistry registry;
+    private final Class<Model> modelClass;
+    private final Class<Data> dataClass;
+    private volatile Resolved<Model, Data> resolved;
+
+    BoundModelLoader(ModelLoaderRegistry registry, Class<Model> modelClass, Class<Data> dataClass) {
+        this.registry = registry;
+        this.modelClass = modelClass;
+        this.dataClass = dataClass;
+    }
+
+    public ModelLoader<Model, Data> get() {
+        int version = registry.snapshot().version;
+        Resolved<Model, Data> current = resolved;
+        if (current == null || current.version != version) {
+            current = new Resolved<>(version, registry.getModelLoader(modelClass, dataClass));
+            resolved = current;
+        }
+        return current.loader;
+    }
+
+    private static final class Resolved<Model, Data> {
+        final int version;
+        final ModelLoader<Model, Data> loader;
+
+        Resolved(int version, ModelLoader<Model, Data> loader) {
+            this.version = version;
+            this.loader = loader;
+        }
+    }
+}
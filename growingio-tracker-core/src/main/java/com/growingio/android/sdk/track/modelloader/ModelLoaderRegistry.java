@@ -17,85 +17,147 @@ package com.growingio.android.sdk.track.modelloader;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * <p>
+ * 查询不加锁：注册信息与已创建的 ModelLoader 保存在不可变的 Snapshot 中，注册或首次创建 ModelLoader 时复制一份新的 Snapshot 替换。
  *
  * @author cpacm 2021/4/1
  */
 class ModelLoaderRegistry {
 
-    private final Map<Class<?>, ModelLoader<?, ?>> cachedModelLoaders = new HashMap<>();
-    private final List<Entry<?, ?>> entries = new ArrayList<>();
+    // 缓存未注册的查询结果
+    private static final Object NO_LOADER = new Object();
+
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.<Entry<?, ?>>emptyList());
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
 
     public synchronized <Model, Data> void remove(Class<Model> modelClass, Class<Data> dataClass) {
-        for (Iterator<Entry<?, ?>> iterator = entries.iterator(); iterator.hasNext();) {
-            Entry<?, ?> entry = iterator.next();
-            if (entry.handles(modelClass, dataClass)) {
-                iterator.remove();
-            }
-        }
-        cachedModelLoaders.remove(modelClass);
+        List<Entry<?, ?>> entries = new ArrayList<>(snapshot.entries);
+        removeHandled(entries, modelClass, dataClass);
+        snapshot = new Snapshot(snapshot.version + 1, entries);
     }
 
     public synchronized <Model, Data> void put(Class<Model> modelClass, Class<Data> dataClass, ModelLoaderFactory<? extends Model, ? extends Data> factory) {
-        add(modelClass, dataClass, factory);
-        cachedModelLoaders.clear();
+        List<Entry<?, ?>> entries = new ArrayList<>(snapshot.entries);
+        removeHandled(entries, modelClass, dataClass);
+        entries.add(new Entry<>(modelClass, dataClass, factory));
+        snapshot = new Snapshot(snapshot.version + 1, entries);
     }
 
     @SuppressWarnings("unchecked")
-    public synchronized <Model> ModelLoader<Model, ?> getModelLoaderForClass(Class<Model> modelClass) {
-        ModelLoader<?, ?> loader = cachedModelLoaders.get(modelClass);
+    public <Model> ModelLoader<Model, ?> getModelLoaderForClass(Class<Model> modelClass) {
+        Object loader = snapshot.byModel.get(modelClass);
         if (loader == null) {
-            loader = this.build(modelClass);
-        }
-        if (loader == null) return null;
-        else {
-            cachedModelLoaders.put(modelClass, loader);
-            return (ModelLoader<Model, ?>) loader;
+            loader = resolve(modelClass, null);
         }
+        return loader == NO_LOADER ? null : (ModelLoader<Model, ?>) loader;
     }
 
     @SuppressWarnings("unchecked")
-    public synchronized <Model, Data> ModelLoader<Model, Data> getModelLoader(Class<Model> modelClass, Class<Data> dataClass) {
-        ModelLoader<?, ?> loader = cachedModelLoaders.get(modelClass);
-        if (loader == null) {
-            loader = this.build(modelClass);
+    public <Model, Data> ModelLoader<Model, Data> getModelLoader(Class<Model> modelClass, Class<Data> dataClass) {
+        Object loader = null;
+        Map<Class<?>, Object> byData = snapshot.byModelAndData.get(modelClass);
+        if (byData != null) {
+            loader = byData.get(dataClass);
         }
-        if (loader == null) return null;
-        else {
-            cachedModelLoaders.put(modelClass, loader);
-            return (ModelLoader<Model, Data>) loader;
+        if (loader == null) {
+            loader = resolve(modelClass, dataClass);
         }
+        return loader == NO_LOADER ? null : (ModelLoader<Model, Data>) loader;
     }
 
-    private <Model, Data> void add(
-            Class<Model> modelClass,
-            Class<Data> dataClass,
-            ModelLoaderFactory<? extends Model, ? extends Data> factory) {
-        for (Iterator<Entry<?, ?>> iterator = entries.iterator(); iterator.hasNext();) {
-            Entry<?, ?> entry = iterator.next();
-            if (entry.handles(modelClass, dataClass)) {
-                iterator.remove();
+    /**
+     * 在锁内查找并创建 ModelLoader，同一个 factory 只会 build 一次
+     *
+     * @param dataClass 为 null 时只匹配 modelClass
+     */
+    private synchronized Object resolve(Class<?> modelClass, Class<?> dataClass) {
+        Snapshot current = snapshot;
+        Object cached;
+        if (dataClass == null) {
+            cached = current.byModel.get(modelClass);
+        } else {
+            Map<Class<?>, Object> byData = current.byModelAndData.get(modelClass);
+            cached = byData == null ? null : byData.get(dataClass);
+        }
+        if (cached != null) return cached;
+
+        Entry<?, ?> found = null;
+        for (Entry<?, ?> entry : current.entries) {
+            if (dataClass == null ? entry.handles(modelClass) : entry.handles(modelClass, dataClass)) {
+                found = entry;
+                break;
             }
         }
-        Entry<Model, Data> entry = new Entry<>(modelClass, dataClass, factory);
-        entries.add(entry);
+        Map<Entry<?, ?>, ModelLoader<?, ?>> built = current.built;
+        Object loader = NO_LOADER;
+        if (found != null) {
+            ModelLoader<?, ?> modelLoader = built.get(found);
+            if (modelLoader == null) {
+                modelLoader = found.factory.build();
+                built = new IdentityHashMap<>(built);
+                built.put(found, modelLoader);
+            }
+            if (modelLoader != null) loader = modelLoader;
+        }
+
+        Map<Class<?>, Object> byModel = current.byModel;
+        Map<Class<?>, Map<Class<?>, Object>> byModelAndData = current.byModelAndData;
+        if (dataClass == null) {
+            byModel = new HashMap<>(byModel);
+            byModel.put(modelClass, loader);
+        } else {
+            byModelAndData = new HashMap<>(byModelAndData);
+            Map<Class<?>, Object> byData = byModelAndData.get(modelClass);
+            byData = byData == null ? new HashMap<Class<?>, Object>() : new HashMap<>(byData);
+            byData.put(dataClass, loader);
+            byModelAndData.put(modelClass, byData);
+        }
+        snapshot = new Snapshot(current.version, current.entries, built, byModel, byModelAndData);
+        return loader;
     }
 
-    private synchronized <Model> ModelLoader<?, ?> build(Class<Model> modelClass) {
-        for (Entry<?, ?> entry : entries) {
-            if (entry.handles(modelClass)) {
-                return entry.factory.build();
+    private static void removeHandled(List<Entry<?, ?>> entries, Class<?> modelClass, Class<?> dataClass) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).handles(modelClass, dataClass)) {
+                entries.remove(i);
             }
         }
-        return null;
     }
 
+    /**
+     * 不可变，只允许整体替换。version 只在注册信息变化时增加
+     */
+    static final class Snapshot {
+        final int version;
+        final List<Entry<?, ?>> entries;
+        final Map<Entry<?, ?>, ModelLoader<?, ?>> built;
+        final Map<Class<?>, Object> byModel;
+        final Map<Class<?>, Map<Class<?>, Object>> byModelAndData;
+
+        Snapshot(int version, List<Entry<?, ?>> entries) {
+            this(version, entries, Collections.<Entry<?, ?>, ModelLoader<?, ?>>emptyMap(),
+                    Collections.<Class<?>, Object>emptyMap(), Collections.<Class<?>, Map<Class<?>, Object>>emptyMap());
+        }
+
+        Snapshot(int version, List<Entry<?, ?>> entries, Map<Entry<?, ?>, ModelLoader<?, ?>> built,
+                 Map<Class<?>, Object> byModel, Map<Class<?>, Map<Class<?>, Object>> byModelAndData) {
+            this.version = version;
+            this.entries = entries;
+            this.built = built;
+            this.byModel = byModel;
+            this.byModelAndData = byModelAndData;
+        }
+    }
 
     private static class Entry<Model, Data> {
         private final Class<Model> modelClass;
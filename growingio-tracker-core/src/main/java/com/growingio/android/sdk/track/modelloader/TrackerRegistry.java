@@ -37,6 +37,13 @@ public class TrackerRegistry {
         return modelLoaderRegistry.getModelLoader(modelClass, dataClass);
     }
 
+    /**
+     * 绑定 model 与 data 类型，返回的对象可以长期持有，每次调用 {@link BoundModelLoader#get()} 获取当前注册的 ModelLoader
+     */
+    public <Model, Data> BoundModelLoader<Model, Data> bind(Class<Model> modelClass, Class<Data> dataClass) {
+        return new BoundModelLoader<>(modelLoaderRegistry, modelClass, dataClass);
+    }
+
     public <Model, Data> TrackerRegistry register(Class<Model> modelClass, Class<Data> dataClass, ModelLoaderFactory<Model, Data> factory) {
         modelLoaderRegistry.put(modelClass, dataClass, factory);
         return this;
@@ -30,6 +30,7 @@ import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.events.helper.DefaultEventFilterInterceptor;
 import com.growingio.android.sdk.track.events.helper.DynamicGeneralPropsGenerator;
 import com.growingio.android.sdk.track.events.helper.JsonSerializableFactory;
+import com.growingio.android.sdk.track.events.helper.JsonStreamWriter;
 import com.growingio.android.sdk.track.listener.TrackThread;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.middleware.GEvent;
@@ -55,6 +56,14 @@ public class EventBuilderProvider implements TrackerLifecycleProvider {
     private DynamicGeneralPropsGenerator dynamicGeneralPropsGenerator;
 
     private static final JsonSerializableFactory serializableFactory = new JsonSerializableFactory();
+    // 超过该大小的缓冲区不再复用，避免线程长期持有大数组
+    private static final int MAX_REUSED_JSON_BUFFER = 64 * 1024;
+    private static final ThreadLocal<JsonStreamWriter> jsonWriter = new ThreadLocal<JsonStreamWriter>() {
+        @Override
+        protected JsonStreamWriter initialValue() {
+            return new JsonStreamWriter();
+        }
+    };
 
     private ConfigurationProvider configurationProvider;
     private TrackerContext context;
@@ -89,6 +98,19 @@ public class EventBuilderProvider implements TrackerLifecycleProvider {
         serializableFactory.toJson(jsonObject, event);
     }
 
+    /**
+     * 直接输出事件的 UTF-8 JSON，不创建 JSONObject
+     */
+    public static byte[] toJsonBytes(BaseEvent event) {
+        JsonStreamWriter writer = jsonWriter.get().reset();
+        writer.beginObject();
+        serializableFactory.writeJson(writer, event);
+        writer.endObject();
+        byte[] bytes = writer.toByteArray();
+        if (bytes.length > MAX_REUSED_JSON_BUFFER) jsonWriter.remove();
+        return bytes;
+    }
+
     public static void parseFrom(BaseEvent.BaseBuilder builder, JSONObject jsonObject) {
         serializableFactory.parseFrom(builder, jsonObject);
     }
@@ -275,8 +297,11 @@ public class EventBuilderProvider implements TrackerLifecycleProvider {
             return false;
         }
 
-        Map<String, Boolean> filterFields = eventFilterInterceptor.filterEventField(eventBuilder.getEventType(), eventBuilder.getFilterMap());
-        eventBuilder.filterFieldProperty(filterFields);
+        // default interceptor passes all fields, skip building the field map
+        if (eventFilterInterceptor != defaultFilterInterceptor) {
+            Map<String, Boolean> filterFields = eventFilterInterceptor.filterEventField(eventBuilder.getEventType(), eventBuilder.getFilterMap());
+            eventBuilder.filterFieldProperty(filterFields);
+        }
 
         return true;
     }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.providers;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.net.ConnectivityManager;
+
+import com.growingio.android.sdk.CoreConfiguration;
+import com.growingio.android.sdk.TrackerContext;
+import com.growingio.android.sdk.track.SDKConfig;
+import com.growingio.android.sdk.track.ipc.IDataSharer;
+import com.growingio.android.sdk.track.listener.TrackThread;
+import com.growingio.android.sdk.track.log.Logger;
+import com.growingio.android.sdk.track.utils.NetworkUtil;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事件公共字段快照，只在网络、系统配置、session 或登录用户变化时失效并重新生成；
+ * 事件构建时直接引用快照，避免每个事件都去查询网络、屏幕和应用信息。
+ */
+public class EventContextProvider implements TrackerLifecycleProvider {
+    private static final String TAG = "EventContextProvider";
+
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile EventContext eventContext;
+
+    private Context context;
+    private ConfigurationProvider configurationProvider;
+    private DeviceInfoProvider deviceInfoProvider;
+    private AppInfoProvider appInfoProvider;
+    private PersistentDataProvider persistentDataProvider;
+    private boolean receiverRegistered;
+
+    // session or login user changed by this process or other processes
+    private final IDataSharer.OnDataChangedListener identityListener = key -> invalidate();
+
+    private final BroadcastReceiver connectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    private final ComponentCallbacks componentCallbacks = new ComponentCallbacks() {
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // language and fold screen size
+            invalidate();
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    };
+
+    EventContextProvider() {
+    }
+
+    @Override
+    public void setup(TrackerContext context) {
+        this.context = context.getBaseContext();
+        this.configurationProvider = context.getConfigurationProvider();
+        this.deviceInfoProvider = context.getDeviceInfoProvider();
+        this.appInfoProvider = context.getProvider(AppInfoProvider.class);
+        this.persistentDataProvider = context.getProvider(PersistentDataProvider.class);
+        persistentDataProvider.addSessionChangedListener(identityListener);
+        persistentDataProvider.addLoginUserChangedListener(identityListener);
+
+        try {
+            this.context.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+            receiverRegistered = true;
+        } catch (Exception e) {
+            Logger.e(TAG, e, "register connectivity receiver failed");
+        }
+        this.context.registerComponentCallbacks(componentCallbacks);
+    }
+
+    @Override
+    public void shutdown() {
+        if (receiverRegistered) {
+            try {
+                context.unregisterReceiver(connectivityReceiver);
+            } catch (Exception ignored) {
+            }
+            receiverRegistered = false;
+        }
+        context.unregisterComponentCallbacks(componentCallbacks);
+        persistentDataProvider.removeSessionChangedListener(identityListener);
+        persistentDataProvider.removeLoginUserChangedListener(identityListener);
+        invalidate();
+        eventContext = null;
+    }
+
+    /**
+     * mark the current snapshot stale, the next event will rebuild it.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    @TrackThread
+    public EventContext getEventContext() {
+        // a few int reads, invalidate the snapshot if other processes changed session or user
+        persistentDataProvider.checkDataChanged();
+        EventContext current = eventContext;
+        int currentVersion = version.get();
+        // Locale.setDefault won't send configuration change
+        if (current == null || current.version != currentVersion || current.locale != Locale.getDefault()) {
+            current = new EventContext(currentVersion, this);
+            eventContext = current;
+        }
+        return current;
+    }
+
+    /**
+     * immutable, only rebuild by {@link #getEventContext()} when stale.
+     */
+    public static final class EventContext {
+        private final int version;
+        private final Locale locale;
+
+        private final String sessionId;
+        private final String userId;
+        private final String userKey;
+
+        private final String platform;
+        private final String platformVersion;
+        private final String deviceId;
+        private final String urlScheme;
+        private final String dataSourceId;
+        private final String appChannel;
+        private final int screenHeight;
+        private final int screenWidth;
+        private final String deviceBrand;
+        private final String deviceModel;
+        private final String deviceType;
+        private final String appName;
+        private final String appVersion;
+        private final String packageName;
+        private final String networkState;
+        private final String sdkVersion;
+        private final String language;
+        private final String timezoneOffset;
+
+        private EventContext(int version, EventContextProvider provider) {
+            this.version = version;
+            this.locale = Locale.getDefault();
+
+            PersistentDataProvider persistentData = provider.persistentDataProvider;
+            this.sessionId = persistentData.getSessionId();
+            this.userId = persistentData.getLoginUserId();
+            this.userKey = persistentData.getLoginUserKey();
+
+            CoreConfiguration core = provider.configurationProvider.core();
+            this.urlScheme = core.getUrlScheme();
+            this.dataSourceId = core.getDataSourceId();
+            this.appChannel = core.getChannel();
+
+            DeviceInfoProvider deviceInfo = provider.deviceInfoProvider;
+            deviceInfo.updateFoldScreenSize();
+            this.platform = deviceInfo.getPlatform();
+            this.platformVersion = deviceInfo.getPlatformVersion();
+            this.deviceId = deviceInfo.getDeviceId();
+            this.screenHeight = deviceInfo.getScreenHeight();
+            this.screenWidth = deviceInfo.getScreenWidth();
+            this.deviceBrand = deviceInfo.getDeviceBrand();
+            this.deviceModel = deviceInfo.getDeviceModel();
+            this.deviceType = deviceInfo.getDeviceType();
+            this.timezoneOffset = String.valueOf(deviceInfo.getTimezoneOffset());
+
+            AppInfoProvider appInfo = provider.appInfoProvider;
+            this.appName = appInfo.getAppName();
+            this.appVersion = appInfo.getAppVersion();
+            this.packageName = appInfo.getPackageName();
+
+            this.networkState = NetworkUtil.getActiveNetworkState(provider.context).getNetworkName();
+            this.sdkVersion = SDKConfig.SDK_VERSION;
+            this.language = locale.getLanguage();
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getUserKey() {
+            return userKey;
+        }
+
+        public String getPlatform() {
+            return platform;
+        }
+
+        public String getPlatformVersion() {
+            return platformVersion;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public String getUrlScheme() {
+            return urlScheme;
+        }
+
+        public String getDataSourceId() {
+            return dataSourceId;
+        }
+
+        public String getAppChannel() {
+            return appChannel;
+        }
+
+        public int getScreenHeight() {
+            return screenHeight;
+        }
+
+        public int getScreenWidth() {
+            return screenWidth;
+        }
+
+        public String getDeviceBrand() {
+            return deviceBrand;
+        }
+
+        public String getDeviceModel() {
+            return deviceModel;
+        }
+
+        public String getDeviceType() {
+            return deviceType;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public String getAppVersion() {
+            return appVersion;
+        }
+
+        public String getPackageName() {
+            return packageName;
+        }
+
+        public String getNetworkState() {
+            return networkState;
+        }
+
+        public String getSdkVersion() {
+            return sdkVersion;
+        }
+
+        public String getLanguage() {
+            return language;
+        }
+
+        public String getTimezoneOffset() {
+            return timezoneOffset;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.growingio.android.sdk.TrackerContext;
 import com.growingio.android.sdk.track.ipc.IDataSharer;
 import com.growingio.android.sdk.track.ipc.MultiProcessDataSharer;
 import com.growingio.android.sdk.track.ipc.ProcessLock;
+import com.growingio.android.sdk.track.ipc.SequenceIdAllocator;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.utils.SystemUtil;
 
@@ -57,6 +58,7 @@ public class PersistentDataProvider implements TrackerLifecycleProvider {
     private final IDataSharer dataSharer;
     private final ProcessLock processLock;
     private boolean isFirstProcess = true;
+    private SequenceIdAllocator eventSequenceIdAllocator;
 
     PersistentDataProvider(Context context) {
         dataSharer = new MultiProcessDataSharer(context, SHARER_NAME, SHARER_MAX_SIZE);
@@ -67,10 +69,17 @@ public class PersistentDataProvider implements TrackerLifecycleProvider {
     public void setup(TrackerContext context) {
         // need invoke after setup
         repairPid(context, context.getConfigurationProvider());
+
+        int blockSize = context.getConfigurationProvider().core().getEventSequenceIdBlockSize();
+        if (blockSize > 1) {
+            eventSequenceIdAllocator = new SequenceIdAllocator(dataSharer, KEY_TYPE_GLOBAL, blockSize,
+                    context.getConfigurationProvider().core().isEventSequenceIdReclaimEnabled());
+        }
     }
 
     @Override
     public void shutdown() {
+        releaseEventSequenceIds();
         dataSharer.release();
         processLock.release();
     }
@@ -80,9 +89,23 @@ public class PersistentDataProvider implements TrackerLifecycleProvider {
     }
 
     public long getGlobalEventSequenceIdAndIncrement() {
+        SequenceIdAllocator allocator = eventSequenceIdAllocator;
+        if (allocator != null) {
+            return allocator.nextId();
+        }
         return dataSharer.getAndIncrementLong(KEY_TYPE_GLOBAL, 1L);
     }
 
+    /**
+     * return the unused leased sequence ids, called when the app goes background.
+     */
+    public void releaseEventSequenceIds() {
+        SequenceIdAllocator allocator = eventSequenceIdAllocator;
+        if (allocator != null) {
+            allocator.release();
+        }
+    }
+
     public String getSessionId() {
         return dataSharer.getString(KEY_SESSION_ID, "");
     }
@@ -150,6 +173,31 @@ public class PersistentDataProvider implements TrackerLifecycleProvider {
         }
     }
 
+    /**
+     * 检查其他进程对共享数据的修改，并通知监听者
+     */
+    public void checkDataChanged() {
+        dataSharer.checkDataChanged();
+    }
+
+    public void addSessionChangedListener(IDataSharer.OnDataChangedListener listener) {
+        dataSharer.registerDataChangedListener(KEY_SESSION_ID, listener);
+    }
+
+    public void removeSessionChangedListener(IDataSharer.OnDataChangedListener listener) {
+        dataSharer.unregisterDataChangedListener(KEY_SESSION_ID, listener);
+    }
+
+    public void addLoginUserChangedListener(IDataSharer.OnDataChangedListener listener) {
+        dataSharer.registerDataChangedListener(KEY_LOGIN_USER_ID, listener);
+        dataSharer.registerDataChangedListener(KEY_LOGIN_USER_KEY, listener);
+    }
+
+    public void removeLoginUserChangedListener(IDataSharer.OnDataChangedListener listener) {
+        dataSharer.unregisterDataChangedListener(KEY_LOGIN_USER_ID, listener);
+        dataSharer.unregisterDataChangedListener(KEY_LOGIN_USER_KEY, listener);
+    }
+
     public String getLoginUserKey() {
         return dataSharer.getString(KEY_LOGIN_USER_KEY, "");
     }
@@ -113,6 +113,8 @@ public class SessionProvider implements IActivityLifecycle, TrackerLifecycleProv
                 }
                 if (persistentDataProvider.getActivityCount() == 0) {
                     persistentDataProvider.setLatestPauseTime(System.currentTimeMillis());
+                    // background process may be killed, return the leased ids
+                    persistentDataProvider.releaseEventSequenceIds();
                     TrackMainThread.trackMain().postActionToTrackMain(new Runnable() {
                         @Override
                         public void run() {
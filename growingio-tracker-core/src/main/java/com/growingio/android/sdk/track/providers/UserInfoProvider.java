@@ -18,17 +18,23 @@ package com.growingio.android.sdk.track.providers;
 import android.text.TextUtils;
 
 import com.growingio.android.sdk.TrackerContext;
+import com.growingio.android.sdk.track.ipc.IDataSharer;
+import com.growingio.android.sdk.track.listener.ListenerDispatcher;
+import com.growingio.android.sdk.track.listener.OnUserIdChangedListener;
 import com.growingio.android.sdk.track.listener.TrackThread;
 import com.growingio.android.sdk.track.log.Logger;
 import com.growingio.android.sdk.track.utils.ObjectUtils;
 
-public class UserInfoProvider implements TrackerLifecycleProvider {
+public class UserInfoProvider extends ListenerDispatcher<OnUserIdChangedListener> implements TrackerLifecycleProvider {
     private static final String TAG = "UserInfoPolicy";
 
     private PersistentDataProvider persistentDataProvider;
     private SessionProvider sessionProvider;
     private ConfigurationProvider configurationProvider;
 
+    private String notifiedUserId;
+    private final IDataSharer.OnDataChangedListener loginUserListener = key -> dispatchUserIdChanged();
+
     UserInfoProvider() {
     }
 
@@ -37,11 +43,40 @@ public class UserInfoProvider implements TrackerLifecycleProvider {
         configurationProvider = context.getConfigurationProvider();
         persistentDataProvider = context.getProvider(PersistentDataProvider.class);
         sessionProvider = context.getProvider(SessionProvider.class);
+
+        notifiedUserId = getLoginUserId();
+        persistentDataProvider.addLoginUserChangedListener(loginUserListener);
     }
 
     @Override
     public void shutdown() {
+        persistentDataProvider.removeLoginUserChangedListener(loginUserListener);
+    }
+
+    /**
+     * called when the login user id is changed by this process or other processes.
+     */
+    public void addUserIdChangedListener(OnUserIdChangedListener listener) {
+        register(listener);
+    }
 
+    public void removeUserIdChangedListener(OnUserIdChangedListener listener) {
+        unregister(listener);
+    }
+
+    private void dispatchUserIdChanged() {
+        String userId = getLoginUserId();
+        synchronized (mListeners) {
+            // userKey change also notifies, only dispatch when userId changed
+            if (ObjectUtils.equals(userId, notifiedUserId)) return;
+            notifiedUserId = userId;
+            Logger.d(TAG, "userId changed to " + userId);
+            for (OnUserIdChangedListener listener : mListeners) {
+                if (null != listener) {
+                    listener.onUserIdChanged(userId);
+                }
+            }
+        }
     }
 
 
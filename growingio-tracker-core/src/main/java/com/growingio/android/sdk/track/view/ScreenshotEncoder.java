@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.util.Base64;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 圈选/Debugger 截图编码器
+ * <p>
+ * 截图和缩放使用的 Bitmap 在多次截图之间复用；编码前按固定大小的分块计算 hash，
+ * 所有分块都未变化时直接返回上一次的编码结果，跳过 JPEG 压缩和 Base64。
+ */
+public class ScreenshotEncoder {
+    private static final int TILE_SIZE = 64;
+    private static final String BASE64_PREFIX = "data:image/jpeg;base64,";
+    public static final long MIN_REFRESH_INTERVAL = 500L;
+    public static final long MAX_REFRESH_INTERVAL = 3000L;
+
+    private final AtomicBoolean capturing = new AtomicBoolean(false);
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix scaleMatrix = new Matrix();
+
+    private Bitmap captureBitmap;
+    private Bitmap scaledBitmap;
+
+    private int[] pixels;
+    private long[] tileHashes;
+    private int hashWidth;
+    private int hashHeight;
+    private int changedTiles;
+    private String lastBase64;
+    // 截图过程中调用 release，等截图结束后再回收 Bitmap
+    private boolean releasePending;
+    private volatile long refreshInterval = MIN_REFRESH_INTERVAL;
+
+    boolean startCapture() {
+        return capturing.compareAndSet(false, true);
+    }
+
+    synchronized void finishCapture() {
+        capturing.set(false);
+        if (releasePending) {
+            releasePending = false;
+            recycleBitmaps();
+        }
+    }
+
+    Bitmap obtainCaptureBitmap(int width, int height) {
+        captureBitmap = obtain(captureBitmap, width, height);
+        return captureBitmap;
+    }
+
+    Bitmap scaleBitmap(Bitmap source, float scale) {
+        if (scale == 1f) return source;
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+        scaledBitmap = obtain(scaledBitmap, width, height);
+        scaleMatrix.setScale(scale, scale);
+        new Canvas(scaledBitmap).drawBitmap(source, scaleMatrix, scalePaint);
+        return scaledBitmap;
+    }
+
+    private static Bitmap obtain(Bitmap pooled, int width, int height) {
+        if (pooled == null || pooled.isRecycled() || pooled.getWidth() != width || pooled.getHeight() != height) {
+            if (pooled != null && !pooled.isRecycled()) {
+                pooled.recycle();
+            }
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        pooled.eraseColor(Color.TRANSPARENT);
+        return pooled;
+    }
+
+    /**
+     * 编码截图，画面未变化时返回上一次的结果（同一个 String 对象）
+     *
+     * @param bitmap 截图，编码后不会被 recycle
+     */
+    public synchronized String encode(Bitmap bitmap) {
+        if (!updateTileHashes(bitmap) && lastBase64 != null) {
+            return lastBase64;
+        }
+        stream.reset();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 100, stream);
+        lastBase64 = BASE64_PREFIX + Base64.encodeToString(stream.toByteArray(), Base64.DEFAULT);
+        return lastBase64;
+    }
+
+    /**
+     * @return 最近一次编码时发生变化的分块数量
+     */
+    public synchronized int getChangedTiles() {
+        return changedTiles;
+    }
+
+    /**
+     * 发送截图前根据 WebSocket 中尚未发出的数据量调整刷新间隔，上一帧仍未发完时间隔加倍，否则逐步恢复
+     */
+    public void adjustRefreshInterval(long queuedBytes) {
+        if (queuedBytes > 0) {
+            refreshInterval = Math.min(refreshInterval * 2, MAX_REFRESH_INTERVAL);
+        } else {
+            refreshInterval = Math.max(refreshInterval / 2, MIN_REFRESH_INTERVAL);
+        }
+    }
+
+    public long getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * 清除分块记录并恢复刷新间隔，下一次截图会重新编码
+     */
+    public synchronized void reset() {
+        tileHashes = null;
+        lastBase64 = null;
+        changedTiles = 0;
+        refreshInterval = MIN_REFRESH_INTERVAL;
+    }
+
+    /**
+     * 释放复用的 Bitmap，截图过程中调用时在截图结束后释放
+     */
+    public synchronized void release() {
+        reset();
+        pixels = null;
+        if (capturing.get()) {
+            releasePending = true;
+        } else {
+            recycleBitmaps();
+        }
+    }
+
+    private void recycleBitmaps() {
+        if (captureBitmap != null) captureBitmap.recycle();
+        if (scaledBitmap != null) scaledBitmap.recycle();
+        captureBitmap = null;
+        scaledBitmap = null;
+    }
+
+    private boolean updateTileHashes(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        boolean sizeChanged = tileHashes == null || width != hashWidth || height != hashHeight;
+        if (sizeChanged) {
+            tileHashes = new long[columns * rows];
+            hashWidth = width;
+            hashHeight = height;
+        }
+        if (pixels == null || pixels.length < width * TILE_SIZE) {
+            pixels = new int[width * TILE_SIZE];
+        }
+
+        int changed = 0;
+        for (int row = 0; row < rows; row++) {
+            int top = row * TILE_SIZE;
+            int stripHeight = Math.min(TILE_SIZE, height - top);
+            bitmap.getPixels(pixels, 0, width, 0, top, width, stripHeight);
+            for (int column = 0; column < columns; column++) {
+                int left = column * TILE_SIZE;
+                int right = Math.min(left + TILE_SIZE, width);
+                long hash = 1125899906842597L;
+                for (int y = 0; y < stripHeight; y++) {
+                    int offset = y * width;
+                    for (int x = left; x < right; x++) {
+                        hash = 31 * hash + pixels[offset + x];
+                    }
+                }
+                int tile = row * columns + column;
+                if (sizeChanged || tileHashes[tile] != hash) {
+                    tileHashes[tile] = hash;
+                    changed++;
+                }
+            }
+        }
+        changedTiles = changed;
+        return changed > 0;
+    }
+}
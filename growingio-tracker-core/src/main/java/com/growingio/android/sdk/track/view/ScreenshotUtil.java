@@ -41,6 +41,14 @@ public class ScreenshotUtil {
     }
 
     public static Bitmap getScreenshotBitmap() {
+        Context context = TrackMainThread.trackMain().getContext();
+        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(context);
+        Bitmap bitmap = Bitmap.createBitmap(metrics.widthPixels, metrics.heightPixels, Bitmap.Config.ARGB_8888);
+        drawDecorViewsToBitmap(getScreenshotDecorViews(), bitmap);
+        return bitmap;
+    }
+
+    private static List<DecorView> getScreenshotDecorViews() {
         List<DecorView> decorViews = WindowHelper.get().getTopActivityViews();
         for (int i = decorViews.size() - 1; i >= 0; i--) {
             if (decorViews.get(i).getView() instanceof TipView) {
@@ -48,11 +56,7 @@ public class ScreenshotUtil {
                 break;
             }
         }
-        Context context = TrackMainThread.trackMain().getContext();
-        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(context);
-        Bitmap bitmap = Bitmap.createBitmap(metrics.widthPixels, metrics.heightPixels, Bitmap.Config.ARGB_8888);
-        drawDecorViewsToBitmap(decorViews, bitmap);
-        return bitmap;
+        return decorViews;
     }
 
     private static void drawDecorViewsToBitmap(List<DecorView> decorViews, Bitmap bitmap) {
@@ -122,6 +126,58 @@ public class ScreenshotUtil {
 
     }
 
+    /**
+     * 截图使用 encoder 中复用的 Bitmap，回调中的 bitmap 由 encoder 持有，不能 recycle。
+     * 上一次截图尚未回调时直接跳过本次截图。
+     */
+    public static void getScreenshotBitmap(float scale, ScreenshotEncoder encoder, ScreenshotCallback callback) throws IllegalArgumentException {
+        if (!encoder.startCapture()) {
+            Logger.d("ScreenshotUtil", "last screenshot is in progress, skip");
+            return;
+        }
+        boolean requested = false;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                Activity activity = TrackMainThread.trackMain().getForegroundActivity();
+                if (activity != null) {
+                    try {
+                        Window window = activity.getWindow();
+                        DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(activity);
+                        int widthPixels = metrics.widthPixels;
+                        int heightPixels = metrics.heightPixels;
+                        int[] location = new int[2];
+                        window.getDecorView().getLocationOnScreen(location);
+                        Bitmap bitmap = encoder.obtainCaptureBitmap(widthPixels, heightPixels);
+                        PixelCopy.request(window, new Rect(location[0], location[1], widthPixels, heightPixels),
+                                bitmap, copyResult -> {
+                                    try {
+                                        if (copyResult == PixelCopy.SUCCESS) {
+                                            Bitmap screenshot = WindowHelper.get().tryRenderDialog(activity, bitmap);
+                                            callback.onScreenshot(encoder.scaleBitmap(screenshot, scale));
+                                        }
+                                    } finally {
+                                        encoder.finishCapture();
+                                    }
+                                }, TrackMainThread.trackMain().getMainHandler());
+                        requested = true;
+                        return;
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                }
+            }
+
+            Context context = TrackMainThread.trackMain().getContext();
+            DisplayMetrics metrics = DeviceUtil.getDisplayMetrics(context);
+            Bitmap bitmap = encoder.obtainCaptureBitmap(metrics.widthPixels, metrics.heightPixels);
+            drawDecorViewsToBitmap(getScreenshotDecorViews(), bitmap);
+            callback.onScreenshot(encoder.scaleBitmap(bitmap, scale));
+        } finally {
+            if (!requested) {
+                encoder.finishCapture();
+            }
+        }
+    }
+
     private static void getScreenShotBitmapDefault(float scale, ScreenshotCallback callback) {
         Bitmap originBitmap = getScreenshotBitmap();
         callback.onScreenshot(scaleBitmap(originBitmap, scale));
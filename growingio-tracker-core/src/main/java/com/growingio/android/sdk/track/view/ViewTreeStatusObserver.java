@@ -26,6 +26,9 @@ import com.growingio.android.sdk.track.R;
 
 public class ViewTreeStatusObserver {
 
+    // increased on global layout of the observed windows, the caches built on view tree are invalid when it changes
+    private static int sLayoutGeneration;
+
     private final DeprecatedViewStateObserver viewStateObserver;
 
     private final boolean observeLayout;
@@ -68,6 +71,29 @@ public class ViewTreeStatusObserver {
         viewStateObserver.sendViewStateChangedEvent();
     }
 
+    /**
+     * only changes in main thread.
+     */
+    public static int getLayoutGeneration() {
+        return sLayoutGeneration;
+    }
+
+    /**
+     * whether any observer is listening the global layout of the window, the layout generation doesn't change for other windows.
+     */
+    public static boolean isLayoutObserved(View root) {
+        Object count = root.getTag(R.id.growing_tracker_monitoring_layout_count);
+        return count instanceof Integer && (Integer) count > 0;
+    }
+
+    private static void changeLayoutObserverCount(View root, int delta) {
+        Object count = root.getTag(R.id.growing_tracker_monitoring_layout_count);
+        int current = count instanceof Integer ? (Integer) count : 0;
+        root.setTag(R.id.growing_tracker_monitoring_layout_count, Math.max(0, current + delta));
+        // layout changed while the window is not observed is unknown
+        sLayoutGeneration++;
+    }
+
     private void unRegisterViewTreeChange(View root) {
         if (isMonitoringViewTree(root)) {
             root.getViewTreeObserver().removeOnGlobalLayoutListener(viewStateObserver);
@@ -77,6 +103,9 @@ public class ViewTreeStatusObserver {
                 root.getViewTreeObserver().removeOnWindowFocusChangeListener((ViewTreeObserver.OnWindowFocusChangeListener) viewStateObserver);
                 root.getViewTreeObserver().removeOnWindowAttachListener((ViewTreeObserver.OnWindowAttachListener) viewStateObserver);
             }
+            if (observeLayout) {
+                changeLayoutObserverCount(root, -1);
+            }
             setMonitoringViewTreeEnabled(root, false);
         }
     }
@@ -85,6 +114,7 @@ public class ViewTreeStatusObserver {
         if (!isMonitoringViewTree(root)) {
             if (observeLayout) {
                 root.getViewTreeObserver().addOnGlobalLayoutListener(viewStateObserver);
+                changeLayoutObserverCount(root, 1);
             }
             if (observeScroll) {
                 root.getViewTreeObserver().addOnScrollChangedListener(viewStateObserver);
@@ -136,6 +166,7 @@ public class ViewTreeStatusObserver {
 
         @Override
         public void onGlobalLayout() {
+            sLayoutGeneration++;
             viewStateChangedListener.onViewStateChanged(new ViewStateChangedEvent(ViewStateChangedEvent.StateType.LAYOUT_CHANGED));
         }
 
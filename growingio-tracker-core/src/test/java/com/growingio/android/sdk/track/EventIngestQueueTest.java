@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class EventIngestQueueTest {
+
+    private static class Task implements Runnable {
+        final int id;
+
+        Task(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    private static List<Integer> drainIds(EventIngestQueue queue, int maxBatch) {
+        List<Runnable> out = new ArrayList<>();
+        queue.drainTo(out, maxBatch);
+        List<Integer> ids = new ArrayList<>();
+        for (Runnable r : out) ids.add(((Task) r).id);
+        return ids;
+    }
+
+    @Test
+    public void dropOldestTest() {
+        EventIngestQueue queue = new EventIngestQueue(3, EventIngestQueue.OVERFLOW_DROP_OLDEST);
+        Truth.assertThat(queue.offer(new Task(1), false)).isTrue();
+        Truth.assertThat(queue.offer(new Task(2), true)).isFalse();
+        queue.offer(new Task(3), true);
+        queue.offer(new Task(4), true);
+        queue.offer(new Task(5), false);
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(1);
+        // action 不受容量约束
+        Truth.assertThat(queue.getDepth()).isEqualTo(4);
+        Truth.assertThat(drainIds(queue, 10)).containsExactly(1, 3, 4, 5).inOrder();
+        Truth.assertThat(queue.getDepth()).isEqualTo(0);
+
+        queue.offer(new Task(6), false);
+        queue.offer(new Task(7), false);
+        queue.offer(new Task(8), false);
+        Truth.assertThat(queue.offer(new Task(9), true)).isFalse();
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(2);
+        Truth.assertThat(drainIds(queue, 10)).containsExactly(6, 7, 8).inOrder();
+    }
+
+    @Test
+    public void drainScheduleTest() {
+        EventIngestQueue queue = new EventIngestQueue(100, EventIngestQueue.OVERFLOW_DROP_OLDEST);
+        Truth.assertThat(queue.offer(new Task(1), true)).isTrue();
+        Truth.assertThat(queue.offer(new Task(2), true)).isFalse();
+        Truth.assertThat(queue.offer(new Task(3), true)).isFalse();
+
+        List<Runnable> out = new ArrayList<>();
+        Truth.assertThat(queue.drainTo(out, 2)).isTrue();
+        Truth.assertThat(out).hasSize(2);
+        // 仍有任务时消费方负责再次调度
+        Truth.assertThat(queue.offer(new Task(4), true)).isFalse();
+        Truth.assertThat(queue.drainTo(out, 2)).isFalse();
+        Truth.assertThat(out).hasSize(4);
+        Truth.assertThat(queue.offer(new Task(5), true)).isTrue();
+    }
+
+    @Test
+    public void blockTest() throws InterruptedException {
+        EventIngestQueue queue = new EventIngestQueue(1, EventIngestQueue.OVERFLOW_BLOCK);
+        queue.offer(new Task(1), true);
+        long start = System.currentTimeMillis();
+        queue.offer(new Task(2), true);
+        Truth.assertThat(System.currentTimeMillis() - start).isAtLeast(EventIngestQueue.BLOCK_TIMEOUT_MS);
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(1);
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {
+            }
+            queue.drainTo(new ArrayList<>(), 1);
+        });
+        consumer.start();
+        queue.offer(new Task(3), true);
+        consumer.join();
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(1);
+        Truth.assertThat(drainIds(queue, 10)).containsExactly(3);
+    }
+
+    @Test
+    public void spillOrderTest() {
+        EventIngestQueue queue = new EventIngestQueue(2, EventIngestQueue.OVERFLOW_SPILL);
+        List<Integer> spilled = new ArrayList<>();
+        List<Integer> executed = new ArrayList<>();
+        Runnable replay = () -> queue.finishSpill(() -> {
+            executed.addAll(spilled);
+            spilled.clear();
+        });
+
+        Truth.assertThat(queue.offerOrSpill(new Task(1), () -> spilled.add(1), replay)).isTrue();
+        queue.offerOrSpill(new Task(2), () -> spilled.add(2), replay);
+        // 队列已满，写入缓存并入队回放任务
+        queue.offerOrSpill(new Task(3), () -> spilled.add(3), replay);
+        Truth.assertThat(spilled).containsExactly(3);
+        Truth.assertThat(queue.getDepth()).isEqualTo(3);
+
+        List<Runnable> out = new ArrayList<>();
+        queue.drainTo(out, 2);
+        Truth.assertThat(queue.getDepth()).isEqualTo(1);
+        // 队列未满，但回放尚未执行，仍写入缓存
+        queue.offerOrSpill(new Task(4), () -> spilled.add(4), replay);
+        Truth.assertThat(spilled).containsExactly(3, 4).inOrder();
+        Truth.assertThat(queue.getDepth()).isEqualTo(1);
+
+        queue.drainTo(out, 10);
+        Truth.assertThat(out).hasSize(3);
+        for (Runnable task : out) {
+            if (task instanceof Task) {
+                executed.add(((Task) task).id);
+            } else {
+                task.run();
+            }
+        }
+        // 回放结束后恢复入队
+        queue.offerOrSpill(new Task(5), () -> spilled.add(5), replay);
+        Truth.assertThat(spilled).isEmpty();
+        Truth.assertThat(drainIds(queue, 10)).containsExactly(5);
+        executed.add(5);
+        Truth.assertThat(executed).containsExactly(1, 2, 3, 4, 5).inOrder();
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void spillOutsideLockTest() {
+        EventIngestQueue queue = new EventIngestQueue(1, EventIngestQueue.OVERFLOW_SPILL);
+        Runnable replay = () -> queue.finishSpill(() -> {
+        });
+        queue.offerOrSpill(new Task(1), () -> true, replay);
+
+        boolean[] offered = new boolean[1];
+        queue.offerOrSpill(new Task(2), () -> {
+            // 写入缓存时其他线程仍可入队
+            Thread producer = new Thread(() -> queue.offer(new Task(3), false));
+            producer.start();
+            try {
+                producer.join(1000);
+            } catch (InterruptedException ignored) {
+            }
+            offered[0] = !producer.isAlive();
+            // 缓存已满，有事件被丢弃
+            return false;
+        }, replay);
+        Truth.assertThat(offered[0]).isTrue();
+        Truth.assertThat(queue.getDroppedCount()).isEqualTo(1);
+        // task 1, replay, task 3
+        Truth.assertThat(queue.getDepth()).isEqualTo(3);
+    }
+}
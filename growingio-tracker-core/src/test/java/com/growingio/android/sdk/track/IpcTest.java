@@ -24,6 +24,7 @@ import com.google.common.truth.Truth;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.growingio.android.sdk.track.ipc.MultiProcessDataSharer;
 import com.growingio.android.sdk.track.ipc.ProcessLock;
+import com.growingio.android.sdk.track.ipc.SequenceIdAllocator;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +32,8 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Config(manifest = Config.NONE)
@@ -93,4 +96,85 @@ public class IpcTest {
         System.out.println(dataSharer.getAndIncrementInt("APP_OPENED", 9));
         System.out.println(dataSharer.getAndDecrementInt("APP_OPENED", 10));
     }
+
+    @Test
+    public void sequenceIdAllocatorTest() {
+        // two sharers of the same file act as two processes
+        MultiProcessDataSharer dataSharer1 = new MultiProcessDataSharer(application, "sequence", 10);
+        MultiProcessDataSharer dataSharer2 = new MultiProcessDataSharer(application, "sequence", 10);
+        SequenceIdAllocator allocator1 = new SequenceIdAllocator(dataSharer1, "GLOBAL", 10, true);
+        SequenceIdAllocator allocator2 = new SequenceIdAllocator(dataSharer2, "GLOBAL", 10, true);
+
+        Truth.assertThat(allocator1.nextId()).isEqualTo(1L);
+        Truth.assertThat(allocator1.nextId()).isEqualTo(2L);
+        Truth.assertThat(allocator2.nextId()).isEqualTo(11L);
+        Truth.assertThat(dataSharer1.getLong("GLOBAL", 0L)).isEqualTo(20L);
+
+        // leased by another process after, left as gap
+        allocator1.release();
+        Truth.assertThat(dataSharer1.getLong("GLOBAL", 0L)).isEqualTo(20L);
+
+        Truth.assertThat(allocator2.nextId()).isEqualTo(12L);
+        allocator2.release();
+        Truth.assertThat(dataSharer2.getLong("GLOBAL", 0L)).isEqualTo(12L);
+
+        Truth.assertThat(allocator1.nextId()).isEqualTo(13L);
+        Truth.assertThat(allocator2.nextId()).isEqualTo(23L);
+
+        for (int i = 14; i <= 22; i++) {
+            Truth.assertThat(allocator1.nextId()).isEqualTo((long) i);
+        }
+        Truth.assertThat(allocator1.nextId()).isEqualTo(33L);
+    }
+
+    @Test
+    public void optimisticReadTest() {
+        MultiProcessDataSharer writer = new MultiProcessDataSharer(application, "optimistic", 10);
+        MultiProcessDataSharer reader = new MultiProcessDataSharer(application, "optimistic", 10);
+        writer.putString("SESSION_ID", "session1");
+        // first read loads the entry with lock, then read without lock
+        Truth.assertThat(reader.getString("SESSION_ID", null)).isEqualTo("session1");
+        Truth.assertThat(reader.getString("SESSION_ID", null)).isEqualTo("session1");
+
+        writer.putString("SESSION_ID", "session2");
+        Truth.assertThat(reader.getString("SESSION_ID", null)).isEqualTo("session2");
+        writer.putString("SESSION_ID", "");
+        Truth.assertThat(reader.getString("SESSION_ID", "empty")).isEqualTo("empty");
+
+        writer.putLong("LATEST_PAUSE_TIME", 100L);
+        Truth.assertThat(reader.getLong("LATEST_PAUSE_TIME", 0L)).isEqualTo(100L);
+        Truth.assertThat(reader.getAndAddLong("LATEST_PAUSE_TIME", 10L, 0L)).isEqualTo(110L);
+        Truth.assertThat(writer.getLong("LATEST_PAUSE_TIME", 0L)).isEqualTo(110L);
+    }
+
+    @Test
+    public void dataChangedListenerTest() {
+        MultiProcessDataSharer dataSharer1 = new MultiProcessDataSharer(application, "watch", 10);
+        MultiProcessDataSharer dataSharer2 = new MultiProcessDataSharer(application, "watch", 10);
+        List<String> changed1 = new ArrayList<>();
+        List<String> changed2 = new ArrayList<>();
+        dataSharer1.registerDataChangedListener("LOGIN_USER_ID", changed1::add);
+        dataSharer2.registerDataChangedListener("LOGIN_USER_ID", changed2::add);
+
+        // writes of this process are notified immediately
+        dataSharer1.putString("LOGIN_USER_ID", "user1");
+        Truth.assertThat(changed1).containsExactly("LOGIN_USER_ID");
+        Truth.assertThat(changed2).isEmpty();
+
+        // writes of other process are found by check
+        dataSharer2.checkDataChanged();
+        Truth.assertThat(changed2).containsExactly("LOGIN_USER_ID");
+        dataSharer2.checkDataChanged();
+        Truth.assertThat(changed2).hasSize(1);
+
+        dataSharer1.putString("SESSION_ID", "session");
+        dataSharer2.checkDataChanged();
+        Truth.assertThat(changed2).hasSize(1);
+
+        dataSharer2.putString("LOGIN_USER_ID", "user2");
+        dataSharer1.checkDataChanged();
+        Truth.assertThat(changed1).hasSize(2);
+        Truth.assertThat(changed2).hasSize(2);
+        Truth.assertThat(dataSharer1.getString("LOGIN_USER_ID", null)).isEqualTo("user2");
+    }
 }
@@ -16,6 +16,7 @@
 package com.growingio.android.sdk.track;
 
 import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.modelloader.BoundModelLoader;
 import com.growingio.android.sdk.track.modelloader.DataFetcher;
 import com.growingio.android.sdk.track.modelloader.ModelLoader;
 import com.growingio.android.sdk.track.modelloader.ModelLoaderFactory;
@@ -49,6 +50,52 @@ public class ModelLoaderTest {
         Truth.assertThat(registry.getModelLoader(String.class, Integer.class)).isNull();
     }
 
+    @Test
+    public void dataClassKeyTest() {
+        TrackerRegistry registry = new TrackerRegistry();
+        CountingFactory factory = new CountingFactory(new TestModelLoader());
+        registry.register(String.class, Integer.class, factory);
+        Truth.assertThat(registry.getModelLoader(String.class, Long.class)).isNull();
+        Truth.assertThat(registry.getModelLoader(String.class, Integer.class)).isNotNull();
+        // 同一个 factory 只创建一次
+        Truth.assertThat(registry.getModelLoader(String.class)).isSameInstanceAs(registry.getModelLoader(String.class, Integer.class));
+        Truth.assertThat(factory.count).isEqualTo(1);
+    }
+
+    @Test
+    public void bindTest() {
+        TrackerRegistry registry = new TrackerRegistry();
+        BoundModelLoader<String, Integer> bound = registry.bind(String.class, Integer.class);
+        Truth.assertThat(bound.get()).isNull();
+
+        ModelLoader<String, Integer> modelLoader = new TestModelLoader();
+        registry.register(String.class, Integer.class, new TestModelLoaderFactory(modelLoader));
+        Truth.assertThat(bound.get()).isSameInstanceAs(modelLoader);
+        Truth.assertThat(bound.get()).isSameInstanceAs(modelLoader);
+
+        ModelLoader<String, Integer> modelLoader2 = new TestModelLoader();
+        registry.register(String.class, Integer.class, new TestModelLoaderFactory(modelLoader2));
+        Truth.assertThat(bound.get()).isSameInstanceAs(modelLoader2);
+
+        registry.unregister(String.class, Integer.class);
+        Truth.assertThat(bound.get()).isNull();
+    }
+
+    static class CountingFactory implements ModelLoaderFactory<String, Integer> {
+        private final ModelLoader<String, Integer> modelLoader;
+        int count;
+
+        CountingFactory(ModelLoader<String, Integer> modelLoader) {
+            this.modelLoader = modelLoader;
+        }
+
+        @Override
+        public ModelLoader<String, Integer> build() {
+            count++;
+            return modelLoader;
+        }
+    }
+
     static class TestModelLoaderFactory implements ModelLoaderFactory<String, Integer> {
 
         private final ModelLoader<String, Integer> modelLoader;
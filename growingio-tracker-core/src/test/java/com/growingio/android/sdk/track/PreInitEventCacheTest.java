@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.common.truth.Truth;
+import com.growingio.android.sdk.track.events.CustomEvent;
+import com.growingio.android.sdk.track.events.PageEvent;
+import com.growingio.android.sdk.track.events.base.BaseEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class PreInitEventCacheTest {
+    private final Application application = ApplicationProvider.getApplicationContext();
+
+    private static CustomEvent.Builder custom(int index) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("index", String.valueOf(index));
+        return new CustomEvent.Builder().setEventName("event" + index).setAttributes(attributes);
+    }
+
+    @Test
+    public void memoryOnlyTest() {
+        PreInitEventCache cache = new PreInitEventCache();
+        cache.config(application, 2, 0);
+        cache.add(custom(0));
+        cache.add(custom(1));
+        cache.add(custom(2));
+        Truth.assertThat(cache.getDroppedCount()).isEqualTo(1);
+        List<BaseEvent.BaseBuilder<?>> builders = cache.drain();
+        Truth.assertThat(builders).hasSize(2);
+        Truth.assertThat(((CustomEvent.Builder) builders.get(0)).getEventName()).isEqualTo("event1");
+        Truth.assertThat(cache.drain()).isEmpty();
+    }
+
+    @Test
+    public void spillTest() {
+        PreInitEventCache cache = new PreInitEventCache();
+        cache.config(application, 2, 4);
+        for (int i = 0; i < 10; i++) {
+            cache.add(custom(i));
+        }
+        // 非 CustomEvent 无法写入文件
+        cache.add(new PageEvent.Builder());
+        cache.add(custom(10));
+        cache.add(custom(11));
+        Truth.assertThat(cache.getDroppedCount()).isEqualTo(1);
+        cache.close();
+
+        // 模拟进程重启，文件中的事件仍然保留
+        PreInitEventCache restarted = new PreInitEventCache();
+        restarted.attach(application);
+        restarted.add(custom(100));
+        List<BaseEvent.BaseBuilder<?>> builders = restarted.drain();
+        Truth.assertThat(builders).hasSize(11);
+        for (int i = 0; i < 10; i++) {
+            CustomEvent.Builder builder = (CustomEvent.Builder) builders.get(i);
+            Truth.assertThat(builder.getEventName()).isEqualTo("event" + i);
+            Truth.assertThat(builder.getAttributes()).containsEntry("index", String.valueOf(i));
+        }
+        Truth.assertThat(((CustomEvent.Builder) builders.get(10)).getEventName()).isEqualTo("event100");
+        Truth.assertThat(restarted.drain()).isEmpty();
+    }
+}
@@ -19,6 +19,8 @@ package com.growingio.android.sdk.track.events;
 import com.google.common.truth.Truth;
 import com.growingio.android.sdk.track.events.base.BaseEvent;
 import com.growingio.android.sdk.track.events.base.BaseEventJsonSerializableFactory;
+import com.growingio.android.sdk.track.events.hybrid.HybridPageEvent;
+import com.growingio.android.sdk.track.providers.EventBuilderProvider;
 
 import org.json.JSONObject;
 import org.junit.Test;
@@ -26,6 +28,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -187,6 +190,23 @@ public class EventsTest {
         inRobolectric(event);
     }
 
+    @Test
+    public void jsonStreamWriter() {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("name", "中文\"/\n\u0001😀");
+        List<BaseEvent> events = Arrays.asList(
+                new CustomEvent.Builder().setEventName("custom").setAttributes(attributes).build(),
+                new PageEvent.Builder().setPath("/page").setTitle("title").setOrientation("PORTRAIT").build(),
+                new ViewElementEvent.Builder(AutotrackEventType.VIEW_CLICK).setPath("/page").setXpath("/a/b").setIndex(2).build(),
+                new VisitEvent.Builder().build(),
+                new HybridPageEvent.Builder().setQuery("a=1").setPath("/hybrid").build()
+        );
+        for (BaseEvent event : events) {
+            String expected = EventBuilderProvider.toJson(event).toString();
+            Truth.assertThat(new String(EventBuilderProvider.toJsonBytes(event), StandardCharsets.UTF_8)).isEqualTo(expected);
+        }
+    }
+
     public void inRobolectric(BaseEvent event) {
         JSONObject jsonObject = new JSONObject();
         BaseEventJsonSerializableFactory.create().toJson(jsonObject, event);
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.ipc;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class SharedEntryTest {
+
+    @Test
+    public void optimisticReadChecksumTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(SharedEntry.MAX_SIZE);
+        SharedEntry entry = new SharedEntry(buffer, 0, "DEVICE_ID");
+        entry.putString(buffer, "device-1234");
+        Truth.assertThat(entry.getSequence(buffer) & 1).isEqualTo(0);
+        Truth.assertThat(entry.getValueOptimistic(buffer)).isEqualTo("device-1234");
+
+        // value changed without finishing the write, eg: reordered stores seen by another process
+        int valueIndex = 2 + "DEVICE_ID".length() + 3;
+        byte origin = buffer.get(valueIndex);
+        buffer.put(valueIndex, (byte) 'X');
+        SharedEntry reader = new SharedEntry(buffer, 0);
+        Truth.assertThat(reader.getValueOptimistic(buffer)).isSameInstanceAs(SharedEntry.READ_FAILED);
+
+        buffer.put(valueIndex, origin);
+        Truth.assertThat(reader.getValueOptimistic(buffer)).isEqualTo("device-1234");
+
+        entry.putLong(buffer, 33L);
+        Truth.assertThat(reader.getValueOptimistic(buffer)).isEqualTo(33L);
+    }
+
+    @Test
+    public void legacyEntryTest() {
+        // written by the version without checksum and sequence
+        ByteBuffer buffer = ByteBuffer.allocate(SharedEntry.MAX_SIZE);
+        buffer.putShort((short) "USER_ID".length());
+        buffer.put("USER_ID".getBytes());
+        buffer.put(SharedEntry.VALUE_TYPE_STRING);
+        buffer.putShort((short) "cpacm".length());
+        buffer.put("cpacm".getBytes());
+
+        SharedEntry entry = new SharedEntry(buffer, 0);
+        Truth.assertThat(entry.getValueOptimistic(buffer)).isSameInstanceAs(SharedEntry.READ_FAILED);
+        entry.stampLegacyChecksum(buffer);
+        Truth.assertThat(entry.getSequence(buffer)).isEqualTo(0);
+        Truth.assertThat(entry.getValueOptimistic(buffer)).isEqualTo("cpacm");
+
+        // the entry written with checksum is not touched
+        entry.putString(buffer, "growingio");
+        int sequence = entry.getSequence(buffer);
+        entry.stampLegacyChecksum(buffer);
+        Truth.assertThat(entry.getSequence(buffer)).isEqualTo(sequence);
+        Truth.assertThat(entry.getValueOptimistic(buffer)).isEqualTo("growingio");
+    }
+}
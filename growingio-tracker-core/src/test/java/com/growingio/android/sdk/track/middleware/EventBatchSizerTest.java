@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.sdk.track.middleware;
+
+import com.google.common.truth.Truth;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class EventBatchSizerTest {
+
+    @Test
+    public void defaultTest() {
+        EventBatchSizer sizer = new EventBatchSizer(0);
+        Truth.assertThat(sizer.getBatchEvents()).isEqualTo(EventBatchSizer.DEFAULT_BATCH_EVENTS);
+        Truth.assertThat(sizer.getBatchBytes()).isEqualTo(EventBatchSizer.MAX_BATCH_BYTES);
+
+        // 1/64 of the heap
+        Truth.assertThat(new EventBatchSizer(32).getBatchBytes()).isEqualTo(512 * 1024);
+
+        sizer.setLowMemory(true);
+        Truth.assertThat(sizer.getBatchEvents()).isEqualTo(EventBatchSizer.LOW_MEMORY_BATCH_EVENTS);
+
+        // latency is unknown, keep the size
+        sizer.setLowMemory(false);
+        sizer.onResponse(30000, 100, 10000, 0, 204);
+        Truth.assertThat(sizer.getBatchEvents()).isEqualTo(EventBatchSizer.DEFAULT_BATCH_EVENTS);
+    }
+
+    @Test
+    public void bandwidthTest() {
+        AtomicInteger changed = new AtomicInteger();
+        EventBatchSizer fast = new EventBatchSizer(256);
+        fast.setListener((maxBytes, maxEvents) -> changed.incrementAndGet());
+        // 300 bytes per event, 1/3 compressed, 100KB/s
+        fast.onResponse(30000, 100, 10000, 100, 204);
+        Truth.assertThat(fast.getBatchEvents()).isEqualTo(200);
+        Truth.assertThat(changed.get()).isEqualTo(1);
+
+        // a small batch doesn't measure the bandwidth
+        fast.onResponse(3000, 10, 1000, 100, 204);
+        Truth.assertThat(fast.getBatchEvents()).isEqualTo(200);
+        Truth.assertThat(changed.get()).isEqualTo(1);
+
+        EventBatchSizer slow = new EventBatchSizer(256);
+        // 2KB/s
+        slow.onResponse(30000, 100, 10000, 5000, 204);
+        Truth.assertThat(slow.getBatchBytes()).isEqualTo(EventBatchSizer.MIN_BATCH_BYTES);
+        Truth.assertThat(slow.getBatchEvents()).isLessThan(EventBatchSizer.DEFAULT_BATCH_EVENTS);
+    }
+
+    @Test
+    public void entityTooLargeTest() {
+        EventBatchSizer sizer = new EventBatchSizer(256);
+        sizer.onResponse(400000, 100, 100000, 0, 413);
+        Truth.assertThat(sizer.getBatchBytes()).isEqualTo(200000);
+        Truth.assertThat(sizer.getBatchEvents()).isEqualTo(50);
+
+        // never grows beyond the half of the rejected batch
+        for (int i = 0; i < 5; i++) {
+            sizer.onResponse(sizer.getBatchBytes(), sizer.getBatchEvents(), sizer.getBatchBytes(), 10, 204);
+        }
+        Truth.assertThat(sizer.getBatchBytes()).isEqualTo(200000);
+
+        // rejected again and again, down to a single event
+        EventBatchSizer large = new EventBatchSizer(256);
+        for (int i = 0; i < 10; i++) {
+            large.onResponse(large.getBatchEvents() * 100000, large.getBatchEvents(), 0, 0, 413);
+        }
+        Truth.assertThat(large.getBatchEvents()).isEqualTo(1);
+    }
+}
@@ -46,7 +46,10 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.android.controller.ContentProviderController;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Config(manifest = Config.NONE)
 @RunWith(RobolectricTestRunner.class)
@@ -158,4 +161,100 @@ public class EventSenderTest {
         eventSender.sendEvents(false);
         Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void eventSendPipelinedTest() {
+        context.getRegistry().register(EventDatabase.class, EventDbResult.class, new DatabaseDataLoader.Factory(context));
+        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
+        eventSender.removeAllEvents();
+        CustomEvent ce = new CustomEvent.Builder()
+                .setEventName("cpacm").build();
+        for (int i = 0; i < 250; i++) {
+            eventSender.cacheEvent(ce);
+        }
+
+        AtomicInteger requestCount = new AtomicInteger();
+        eventSender.setMaxConcurrentRequests(3);
+        eventSender.setEventNetSender(new IEventAsyncNetSender() {
+            @Override
+            public SendResponse send(byte[] events, String mediaType) {
+                return new SendResponse(204, events.length);
+            }
+
+            @Override
+            public void sendAsync(byte[] events, String mediaType, SendCallback callback) {
+                int index = requestCount.incrementAndGet();
+                new Thread(() -> {
+                    // the earlier batch finishes later, the second batch fails
+                    Uninterruptibles.sleepUninterruptibly(400 - index * 100, TimeUnit.MILLISECONDS);
+                    callback.onResponse(new SendResponse(index == 2 ? 500 : 204, events.length));
+                }).start();
+            }
+        });
+        eventSender.sendEvents(false);
+        Truth.assertThat(requestCount.get()).isEqualTo(3);
+
+        // only the failed batch is kept
+        EventDbResult dbResult = eventSender.getGEventsFromPolicy(ce.getSendPolicy());
+        Truth.assertThat(dbResult.getSum()).isEqualTo(100);
+        Truth.assertThat(eventSender.getGEventsFromPolicy(ce.getSendPolicy()).getSum()).isEqualTo(0);
+    }
+
+    @Test
+    public void eventSendEntityTooLargeTest() {
+        context.getRegistry().register(EventDatabase.class, EventDbResult.class, new DatabaseDataLoader.Factory(context));
+        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
+        eventSender.removeAllEvents();
+        CustomEvent ce = new CustomEvent.Builder()
+                .setEventName("cpacm").build();
+        for (int i = 0; i < 30; i++) {
+            eventSender.cacheEvent(ce);
+        }
+
+        List<Integer> batches = new ArrayList<>();
+        eventSender.setEventNetSender((events, mediaType) -> {
+            try {
+                batches.add(EventV3Protocol.EventV3List.parseFrom(events).getValuesCount());
+            } catch (InvalidProtocolBufferException e) {
+                e.printStackTrace();
+            }
+            // rejected as too large, then the service is unavailable
+            return new SendResponse(batches.size() == 1 ? 413 : 500, events.length);
+        });
+        eventSender.sendEvents(false);
+
+        // the rejected events are kept and sent again in a smaller batch
+        Truth.assertThat(batches).hasSize(2);
+        Truth.assertThat(batches.get(0)).isEqualTo(30);
+        Truth.assertThat(batches.get(1)).isEqualTo(15);
+        Truth.assertThat(eventSender.getGEventsFromPolicy(ce.getSendPolicy()).getSum()).isEqualTo(30);
+    }
+
+    @Test
+    public void eventSendEntityTooLargeSingleTest() {
+        context.getRegistry().register(EventDatabase.class, EventDbResult.class, new DatabaseDataLoader.Factory(context));
+        context.getRegistry().register(EventFormatData.class, EventByteArray.class, new ProtobufDataLoader.Factory());
+        eventSender.removeAllEvents();
+        CustomEvent ce = new CustomEvent.Builder()
+                .setEventName("cpacm").build();
+        for (int i = 0; i < 3; i++) {
+            eventSender.cacheEvent(ce);
+        }
+
+        List<Integer> batches = new ArrayList<>();
+        eventSender.setEventNetSender((events, mediaType) -> {
+            try {
+                batches.add(EventV3Protocol.EventV3List.parseFrom(events).getValuesCount());
+            } catch (InvalidProtocolBufferException e) {
+                e.printStackTrace();
+            }
+            // the first single event is still too large
+            return new SendResponse(batches.size() <= 2 ? 413 : 204, events.length);
+        });
+        eventSender.sendEvents(false);
+
+        // 3 -> 1 (deleted) -> 1 -> 1
+        Truth.assertThat(batches).containsExactly(3, 1, 1, 1).inOrder();
+        Truth.assertThat(eventSender.getGEventsFromPolicy(ce.getSendPolicy()).getSum()).isEqualTo(0);
+    }
 }
@@ -18,6 +18,7 @@ package com.growingio.android.sdk.track.providers;
 import android.app.Activity;
 import android.app.Application;
 import android.content.Intent;
+import android.net.ConnectivityManager;
 import android.net.Uri;
 import android.os.Bundle;
 
@@ -38,9 +39,13 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.android.controller.ActivityController;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 @Config(manifest = Config.NONE)
@@ -164,4 +169,46 @@ public class ProviderTest {
         Truth.assertThat(new Date().getTimezoneOffset()).isEqualTo(deviceInfoProvider.getTimezoneOffset());
     }
 
+    @Test
+    public void eventContextProvider() {
+        EventContextProvider eventContextProvider = context.getProvider(EventContextProvider.class);
+        EventContextProvider.EventContext eventContext = eventContextProvider.getEventContext();
+        Truth.assertThat(eventContext.getPackageName()).isEqualTo(application.getPackageName());
+        Truth.assertThat(eventContext.getDeviceModel()).isEqualTo("robolectric");
+        Truth.assertThat(eventContext.getScreenWidth()).isEqualTo(320);
+        Truth.assertThat(eventContext.getUrlScheme()).isEqualTo("growingio://provider");
+        Truth.assertThat(eventContext.getLanguage()).isEqualTo(Locale.getDefault().getLanguage());
+        // same snapshot until inputs change
+        Truth.assertThat(eventContextProvider.getEventContext()).isSameInstanceAs(eventContext);
+
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+        ShadowLooper.idleMainLooper();
+        EventContextProvider.EventContext refreshed = eventContextProvider.getEventContext();
+        Truth.assertThat(refreshed).isNotSameInstanceAs(eventContext);
+        Truth.assertThat(refreshed.getVersion()).isGreaterThan(eventContext.getVersion());
+
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.JAPANESE);
+            Truth.assertThat(eventContextProvider.getEventContext().getLanguage()).isEqualTo("ja");
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void userIdChangedListener() {
+        UserInfoProvider userInfoProvider = context.getUserInfoProvider();
+        List<String> userIds = new ArrayList<>();
+        userInfoProvider.addUserIdChangedListener(userIds::add);
+        userInfoProvider.setLoginUserId("user1");
+        userInfoProvider.setLoginUserId("user1");
+        userInfoProvider.setLoginUserId(null);
+        Truth.assertThat(userIds).containsExactly("user1", "").inOrder();
+
+        EventContextProvider eventContextProvider = context.getProvider(EventContextProvider.class);
+        userInfoProvider.setLoginUserId("user2");
+        Truth.assertThat(eventContextProvider.getEventContext().getUserId()).isEqualTo("user2");
+    }
+
 }
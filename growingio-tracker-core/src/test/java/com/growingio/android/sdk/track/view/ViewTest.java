@@ -17,6 +17,8 @@ package com.growingio.android.sdk.track.view;
 
 import android.app.Activity;
 import android.app.Application;
+import android.graphics.Bitmap;
+import android.graphics.Color;
 import android.view.View;
 
 import androidx.test.core.app.ApplicationProvider;
@@ -96,4 +98,55 @@ public class ViewTest {
         });
     }
 
+    @Test
+    public void screenshotRefreshIntervalTest() {
+        ScreenshotEncoder encoder = new ScreenshotEncoder();
+        Truth.assertThat(encoder.getRefreshInterval()).isEqualTo(ScreenshotEncoder.MIN_REFRESH_INTERVAL);
+        // 上一帧仍未发完，间隔加倍直至上限
+        for (int i = 0; i < 5; i++) {
+            encoder.adjustRefreshInterval(1024L);
+        }
+        Truth.assertThat(encoder.getRefreshInterval()).isEqualTo(ScreenshotEncoder.MAX_REFRESH_INTERVAL);
+        encoder.adjustRefreshInterval(0L);
+        Truth.assertThat(encoder.getRefreshInterval()).isEqualTo(ScreenshotEncoder.MAX_REFRESH_INTERVAL / 2);
+        encoder.reset();
+        Truth.assertThat(encoder.getRefreshInterval()).isEqualTo(ScreenshotEncoder.MIN_REFRESH_INTERVAL);
+    }
+
+    @Test
+    public void screenshotEncoderTest() {
+        ScreenshotEncoder encoder = new ScreenshotEncoder();
+        Bitmap bitmap = Bitmap.createBitmap(200, 150, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.WHITE);
+
+        String first = encoder.encode(bitmap);
+        Truth.assertThat(first).startsWith("data:image/jpeg;base64,");
+        Truth.assertThat(encoder.getChangedTiles()).isEqualTo(12);
+
+        Truth.assertThat(encoder.encode(bitmap)).isSameInstanceAs(first);
+        Truth.assertThat(encoder.getChangedTiles()).isEqualTo(0);
+
+        bitmap.setPixel(130, 70, Color.BLACK);
+        encoder.encode(bitmap);
+        Truth.assertThat(encoder.getChangedTiles()).isEqualTo(1);
+
+        encoder.reset();
+        encoder.encode(bitmap);
+        Truth.assertThat(encoder.getChangedTiles()).isEqualTo(12);
+
+        Bitmap scaled = encoder.scaleBitmap(bitmap, 0.5f);
+        Truth.assertThat(scaled.getWidth()).isEqualTo(100);
+        Truth.assertThat(scaled.getHeight()).isEqualTo(75);
+        Truth.assertThat(encoder.scaleBitmap(bitmap, 0.5f)).isSameInstanceAs(scaled);
+
+        // 截图过程中 release，截图结束后才回收
+        Truth.assertThat(encoder.startCapture()).isTrue();
+        Bitmap capture = encoder.obtainCaptureBitmap(200, 150);
+        encoder.release();
+        Truth.assertThat(capture.isRecycled()).isFalse();
+        Truth.assertThat(scaled.isRecycled()).isFalse();
+        encoder.finishCapture();
+        Truth.assertThat(capture.isRecycled()).isTrue();
+        Truth.assertThat(scaled.isRecycled()).isTrue();
+    }
 }
@@ -40,6 +40,8 @@ public class CircleScreenshot {
     private final long mSnapshotKey;
     private final JSONArray mElements;
     private final JSONArray mPages;
+    private String[] mElementTexts;
+    private String mPagesText;
 
     public CircleScreenshot(Builder builder) {
         mMsgType = MSG_TYPE;
@@ -69,6 +71,65 @@ public class CircleScreenshot {
         return json;
     }
 
+    /**
+     * 直接拼接消息文本，每个元素只序列化一次，不再构建外层的 JSONObject 树
+     */
+    public String toJSONString() {
+        String[] elements = elementTexts();
+        String pages = pagesText();
+        int capacity = 128 + pages.length() + (mScreenshot == null ? 0 : mScreenshot.length());
+        for (String element : elements) {
+            capacity += element.length() + 1;
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        sb.append("{\"screenWidth\":").append(mScreenWidth);
+        sb.append(",\"screenHeight\":").append(mScreenHeight);
+        try {
+            sb.append(",\"scale\":").append(JSONObject.numberToString((double) mScale));
+        } catch (JSONException ignored) {
+            sb.append('0');
+        }
+        if (mScreenshot != null) {
+            sb.append(",\"screenshot\":").append(JSONObject.quote(mScreenshot));
+        }
+        sb.append(",\"msgType\":").append(JSONObject.quote(mMsgType));
+        sb.append(",\"snapshotKey\":").append(mSnapshotKey);
+        sb.append(",\"elements\":[");
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(elements[i]);
+        }
+        sb.append("],\"pages\":").append(pages);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    String[] elementTexts() {
+        if (mElementTexts == null) {
+            String[] texts = new String[mElements.length()];
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = String.valueOf(mElements.opt(i));
+            }
+            mElementTexts = texts;
+        }
+        return mElementTexts;
+    }
+
+    String pagesText() {
+        if (mPagesText == null) {
+            mPagesText = mPages.toString();
+        }
+        return mPagesText;
+    }
+
+    JSONArray getElements() {
+        return mElements;
+    }
+
+    String getScreenshot() {
+        return mScreenshot;
+    }
+
     public static final class Builder {
         private int mScreenWidth;
         private int mScreenHeight;
@@ -181,7 +181,8 @@ public class CirclerService implements LoadDataFetcher<WebService>,
     @Override
     public void onScreenshotRefreshed(CircleScreenshot screenshot) {
         if (screenshot != null) {
-            sendMessage(screenshot.toJSONObject().toString());
+            screenshotProvider.getScreenshotEncoder().adjustRefreshInterval(webSocketHandler.queueSize());
+            sendMessage(screenshot.toJSONString());
         }
     }
 }
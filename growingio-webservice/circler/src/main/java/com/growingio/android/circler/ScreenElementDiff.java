@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 Beijing Yishu Technology Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.growingio.android.circler;
+
+import com.growingio.android.sdk.autotrack.view.ScreenElementHelper;
+import com.growingio.android.sdk.track.utils.ObjectUtils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 记录上一帧的圈选元素（以 xpath + xIndex 为 key），计算新增、移除和位置/内容变化的元素数量。
+ * 圈选 Web 端只接受完整帧，因此仅用于判断是否需要重新发送。
+ */
+final class ScreenElementDiff {
+    private Map<String, String> previousElements = new HashMap<>();
+    private String previousPages;
+    private String previousScreenshot;
+
+    private int added;
+    private int removed;
+    private int moved;
+
+    /**
+     * @return 与上一帧相比是否有变化
+     */
+    synchronized boolean update(CircleScreenshot screenshot) {
+        JSONArray elements = screenshot.getElements();
+        String[] texts = screenshot.elementTexts();
+        Map<String, String> current = new HashMap<>(texts.length * 2);
+        int addedCount = 0;
+        int movedCount = 0;
+        for (int i = 0; i < texts.length; i++) {
+            String key = elementKey(elements.optJSONObject(i), i);
+            if (current.containsKey(key)) {
+                key = key + '#' + i;
+            }
+            String old = previousElements.get(key);
+            if (old == null) {
+                addedCount++;
+            } else if (!old.equals(texts[i])) {
+                movedCount++;
+            }
+            current.put(key, texts[i]);
+        }
+        int removedCount = previousElements.size() - (current.size() - addedCount);
+
+        String pages = screenshot.pagesText();
+        boolean changed = addedCount > 0 || movedCount > 0 || removedCount > 0
+                || !ObjectUtils.equals(pages, previousPages)
+                || !ObjectUtils.equals(screenshot.getScreenshot(), previousScreenshot);
+
+        previousElements = current;
+        previousPages = pages;
+        previousScreenshot = screenshot.getScreenshot();
+        added = addedCount;
+        removed = removedCount;
+        moved = movedCount;
+        return changed;
+    }
+
+    synchronized void reset() {
+        previousElements = new HashMap<>();
+        previousPages = null;
+        previousScreenshot = null;
+        added = 0;
+        removed = 0;
+        moved = 0;
+    }
+
+    synchronized int getAdded() {
+        return added;
+    }
+
+    synchronized int getRemoved() {
+        return removed;
+    }
+
+    synchronized int getMoved() {
+        return moved;
+    }
+
+    private static String elementKey(JSONObject element, int index) {
+        if (element == null) return String.valueOf(index);
+        return element.optString(ScreenElementHelper.VIEW_XPATH) + '#' + element.optString(ScreenElementHelper.VIEW_XINDEX);
+    }
+}
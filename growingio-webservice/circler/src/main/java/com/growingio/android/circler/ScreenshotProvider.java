@@ -38,6 +38,7 @@ import com.growingio.android.sdk.track.providers.AppInfoProvider;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 import com.growingio.android.sdk.track.providers.DeviceInfoProvider;
 import com.growingio.android.sdk.track.utils.DeviceUtil;
+import com.growingio.android.sdk.track.view.ScreenshotEncoder;
 import com.growingio.android.sdk.track.view.ScreenshotUtil;
 import com.growingio.android.sdk.track.view.ViewStateChangedEvent;
 import com.growingio.android.sdk.track.view.ViewTreeStatusListener;
@@ -53,7 +54,6 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     private static final String TAG = "ScreenshotProvider";
 
     private static final float SCREENSHOT_STANDARD_WIDTH = 720F;
-    private static final long MIN_REFRESH_INTERVAL = 500L;
     private static final long EVENT_REFRESH_INTERVAL = 1000L;
     private static final long MAX_REFRESH_INTERVAL = 3000L;
     private long lastSendTime = System.currentTimeMillis(); // 记录上次发送的事件，用来避免当界面刷新频率过快时一直无法发送圈选的情况。
@@ -64,6 +64,8 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     private OnScreenshotRefreshedListener refreshListener;
 
     private ThreadSafeTipView safeTipView;
+    private final ScreenshotEncoder screenshotEncoder = new ScreenshotEncoder();
+    private final ScreenElementDiff elementDiff = new ScreenElementDiff();
 
     private ConfigurationProvider configurationProvider;
     private AppInfoProvider appInfoProvider;
@@ -103,7 +105,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
             screenshotHandler.post(this::dispatchScreenshot);
         } else {
             if (changedEvent.getStateType() == ViewStateChangedEvent.StateType.MANUAL_CHANGED) {
-                refreshScreenshot(EVENT_REFRESH_INTERVAL);
+                refreshScreenshot(Math.max(EVENT_REFRESH_INTERVAL, screenshotEncoder.getRefreshInterval()));
             } else {
                 refreshScreenshot();
             }
@@ -116,13 +118,9 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
         if (activity == null) return;
 
         try {
-            ScreenshotUtil.getScreenshotBitmap(scale, bitmap -> {
-                try {
-                    String screenshotBase64 = ScreenshotUtil.getScreenshotBase64(bitmap);
-                    sendScreenshotRefreshed(screenshotBase64, scale);
-                } catch (IOException e) {
-                    Logger.e(TAG, "base64 screenshot failed:" + e.getMessage());
-                }
+            ScreenshotUtil.getScreenshotBitmap(scale, screenshotEncoder, bitmap -> {
+                String screenshotBase64 = screenshotEncoder.encode(bitmap);
+                sendScreenshotRefreshed(screenshotBase64, scale);
             });
         } catch (IllegalArgumentException e) {
             Logger.e(TAG, "dispatch screenshot failed:" + e.getMessage());
@@ -135,10 +133,16 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     }
 
     public void refreshScreenshot() {
-        refreshScreenshot(MIN_REFRESH_INTERVAL);
+        refreshScreenshot(screenshotEncoder.getRefreshInterval());
+    }
+
+    ScreenshotEncoder getScreenshotEncoder() {
+        return screenshotEncoder;
     }
 
     public void registerScreenshotRefreshedListener(OnScreenshotRefreshedListener listener) {
+        screenshotEncoder.reset();
+        elementDiff.reset();
         register();
         this.refreshListener = listener;
         refreshScreenshot();
@@ -147,6 +151,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     }
 
     public void unregisterScreenshotRefreshedListener() {
+        screenshotEncoder.release();
         this.refreshListener = null;
         unRegister();
 
@@ -175,7 +180,12 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
         builder.buildWithNodes(viewNodeProvider, new Callback<CircleScreenshot>() {
             @Override
             public void onSuccess(CircleScreenshot result) {
-                Logger.d(TAG, "Create circle screenshot successfully");
+                if (!elementDiff.update(result)) {
+                    Logger.d(TAG, "Circle screenshot not changed, skip");
+                    return;
+                }
+                Logger.d(TAG, "Create circle screenshot successfully, added:" + elementDiff.getAdded()
+                        + " removed:" + elementDiff.getRemoved() + " moved:" + elementDiff.getMoved());
                 sendScreenshot(result);
             }
 
@@ -51,6 +51,10 @@ class WebSocketHandler extends WebSocketListener {
         }
     }
 
+    long queueSize() {
+        return webSocket == null ? 0 : webSocket.queueSize();
+    }
+
     @Override
     public void onOpen(WebSocket webSocket, Response response) {
         String readyMessage = screenshotProvider.buildReadyMessage();
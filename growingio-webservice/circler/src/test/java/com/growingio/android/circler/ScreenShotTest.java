@@ -119,6 +119,77 @@ public class ScreenShotTest {
         screenshotProvider.unregisterScreenshotRefreshedListener();
     }
 
+    @Test
+    public void screenshotJsonStringTest() throws JSONException {
+        CircleScreenshot screenshot = new CircleScreenshot(new CircleScreenshot.Builder(320, 470)
+                .setScale(1.5f)
+                .setScreenshot("base64\"test")
+                .setSnapshotKey(3)
+                .addElement(createElement("/Activity/Button", "/0", 10, "确定"))
+                .addElement(createElement("/Activity/TextView", "/1", 20, null))
+                .addPage(new JSONObject().put("path", "/Activity").put("title", "title")));
+
+        JSONObject expected = screenshot.toJSONObject();
+        JSONObject actual = new JSONObject(screenshot.toJSONString());
+        Truth.assertThat(actual.length()).isEqualTo(expected.length());
+        Truth.assertThat(actual.getInt("screenWidth")).isEqualTo(320);
+        Truth.assertThat(actual.getDouble("scale")).isEqualTo(1.5);
+        Truth.assertThat(actual.getString("screenshot")).isEqualTo("base64\"test");
+        Truth.assertThat(actual.getLong("snapshotKey")).isEqualTo(3);
+        Truth.assertThat(actual.getString("msgType")).isEqualTo("refreshScreenshot");
+        Truth.assertThat(actual.getJSONArray("elements").toString()).isEqualTo(expected.getJSONArray("elements").toString());
+        Truth.assertThat(actual.getJSONArray("pages").toString()).isEqualTo(expected.getJSONArray("pages").toString());
+    }
+
+    @Test
+    public void screenElementDiffTest() throws JSONException {
+        ScreenElementDiff diff = new ScreenElementDiff();
+        Truth.assertThat(diff.update(createScreenshot("shot",
+                createElement("/A/Button", "/0", 10, "ok"),
+                createElement("/A/TextView", "/1", 20, "text")))).isTrue();
+        Truth.assertThat(diff.getAdded()).isEqualTo(2);
+
+        Truth.assertThat(diff.update(createScreenshot("shot",
+                createElement("/A/Button", "/0", 10, "ok"),
+                createElement("/A/TextView", "/1", 20, "text")))).isFalse();
+
+        Truth.assertThat(diff.update(createScreenshot("shot",
+                createElement("/A/Button", "/0", 30, "ok"),
+                createElement("/A/ImageView", "/2", 20, null)))).isTrue();
+        Truth.assertThat(diff.getAdded()).isEqualTo(1);
+        Truth.assertThat(diff.getRemoved()).isEqualTo(1);
+        Truth.assertThat(diff.getMoved()).isEqualTo(1);
+
+        Truth.assertThat(diff.update(createScreenshot("shot2",
+                createElement("/A/Button", "/0", 30, "ok"),
+                createElement("/A/ImageView", "/2", 20, null)))).isTrue();
+
+        diff.reset();
+        Truth.assertThat(diff.update(createScreenshot("shot2",
+                createElement("/A/Button", "/0", 30, "ok"),
+                createElement("/A/ImageView", "/2", 20, null)))).isTrue();
+    }
+
+    private CircleScreenshot createScreenshot(String base64, JSONObject... elements) {
+        CircleScreenshot.Builder builder = new CircleScreenshot.Builder(320, 470).setScreenshot(base64);
+        for (JSONObject element : elements) {
+            builder.addElement(element);
+        }
+        return new CircleScreenshot(builder);
+    }
+
+    private JSONObject createElement(String xpath, String xIndex, int top, String content) throws JSONException {
+        return new JSONObject()
+                .put("xpath", xpath)
+                .put("xcontent", xIndex)
+                .put("left", 0)
+                .put("top", top)
+                .put("width", 100)
+                .put("height", 40)
+                .put("nodeType", "TEXT")
+                .put("content", content);
+    }
+
     public List<DecorView> getAllWindowDecorViews() {
         Activity activity = Robolectric.buildActivity(RobolectricActivity.class).create().resume().get();
         View view = activity.getWindow().getDecorView();
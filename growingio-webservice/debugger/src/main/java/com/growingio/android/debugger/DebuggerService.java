@@ -209,6 +209,7 @@ public class DebuggerService implements LoadDataFetcher<WebService>,
     @Override
     public void onScreenshotRefreshed(DebuggerScreenshot screenshot) {
         if (screenshot != null) {
+            screenshotProvider.getScreenshotEncoder().adjustRefreshInterval(webSocketHandler.queueSize());
             sendMessage(screenshot.toJSONObject().toString());
         }
     }
@@ -36,6 +36,7 @@ import com.growingio.android.sdk.track.providers.AppInfoProvider;
 import com.growingio.android.sdk.track.providers.ConfigurationProvider;
 import com.growingio.android.sdk.track.providers.DeviceInfoProvider;
 import com.growingio.android.sdk.track.utils.DeviceUtil;
+import com.growingio.android.sdk.track.view.ScreenshotEncoder;
 import com.growingio.android.sdk.track.view.ScreenshotUtil;
 import com.growingio.android.sdk.track.view.ViewStateChangedEvent;
 import com.growingio.android.sdk.track.view.ViewTreeStatusListener;
@@ -43,7 +44,6 @@ import com.growingio.android.sdk.track.view.ViewTreeStatusListener;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
 
 public class ScreenshotProvider extends ViewTreeStatusListener {
     private static final String TAG = "ScreenshotProvider";
@@ -61,6 +61,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     private OnScreenshotRefreshedListener refreshListener;
 
     private ThreadSafeTipView safeTipView;
+    private final ScreenshotEncoder screenshotEncoder = new ScreenshotEncoder();
 
     private ConfigurationProvider configurationProvider;
     private AppInfoProvider appInfoProvider;
@@ -99,7 +100,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
             screenshotHandler.post(this::dispatchScreenshot);
         } else {
             if (changedEvent.getStateType() == ViewStateChangedEvent.StateType.MANUAL_CHANGED) {
-                refreshScreenshot(EVENT_REFRESH_INTERVAL);
+                refreshScreenshot(Math.max(EVENT_REFRESH_INTERVAL, screenshotEncoder.getRefreshInterval()));
             } else {
                 refreshScreenshot();
             }
@@ -112,13 +113,13 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
         if (activity == null) return;
 
         try {
-            ScreenshotUtil.getScreenshotBitmap(scale, bitmap -> {
-                try {
-                    String screenshotBase64 = ScreenshotUtil.getScreenshotBase64(bitmap);
-                    sendScreenshotRefreshed(screenshotBase64, scale);
-                } catch (IOException e) {
-                    Logger.e(TAG, "base64 screenshot failed:" + e.getMessage());
+            ScreenshotUtil.getScreenshotBitmap(scale, screenshotEncoder, bitmap -> {
+                String screenshotBase64 = screenshotEncoder.encode(bitmap);
+                if (screenshotEncoder.getChangedTiles() == 0) {
+                    Logger.d(TAG, "Screenshot not changed, skip");
+                    return;
                 }
+                sendScreenshotRefreshed(screenshotBase64, scale);
             });
         } catch (IllegalArgumentException e) {
             Logger.e(TAG, "dispatch screenshot failed:" + e.getMessage());
@@ -131,7 +132,11 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     }
 
     void refreshScreenshot() {
-        refreshScreenshot(MIN_REFRESH_INTERVAL);
+        refreshScreenshot(screenshotEncoder.getRefreshInterval());
+    }
+
+    ScreenshotEncoder getScreenshotEncoder() {
+        return screenshotEncoder;
     }
 
     public void generateDebuggerData(String screenshotBase64) {
@@ -148,6 +153,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     }
 
     public void registerScreenshotRefreshedListener(OnScreenshotRefreshedListener listener) {
+        screenshotEncoder.reset();
         register();
         refreshListener = listener;
         refreshScreenshot();
@@ -156,6 +162,7 @@ public class ScreenshotProvider extends ViewTreeStatusListener {
     }
 
     public void unregisterScreenshotRefreshedListener() {
+        screenshotEncoder.release();
         refreshListener = null;
         unRegister();
 
@@ -53,6 +53,10 @@ class WebSocketHandler extends WebSocketListener {
         }
     }
 
+    long queueSize() {
+        return webSocket == null ? 0 : webSocket.queueSize();
+    }
+
     @Override
     public void onOpen(WebSocket webSocket, Response response) {
         if (webSocket.send(screenshotProvider.buildReadyMessage())) {